@@ -0,0 +1,166 @@
+package tasks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * An OutputStream, that writes into a Log-File in the Background. A Write only copies the Bytes
+ * into a Ring-Buffer, that is drained by a single Writer-Thread. The Writer-Thread writes all
+ * pending Bytes at once through a Buffer and flushes the File, whenever the Ring-Buffer is empty,
+ * so logging never waits for the Drive, unless the Ring-Buffer is full. <br>
+ * All pending Bytes are written, before the JVM exits, e.g. by {@code System.exit(0)}.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class AsyncLogStream extends OutputStream {
+
+  /**
+   * The amount of Writes, the Ring-Buffer can hold.
+   */
+  private static final int CAPACITY = 4096;
+
+  /**
+   * The Size of the Buffer of the Log-File in Bytes.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The maximal Time in ms, the Exit of the JVM waits for the pending Bytes.
+   */
+  private static final long EXIT_TIMEOUT = 2000;
+
+  /**
+   * The Ring-Buffer, that holds the Bytes of all pending Writes.
+   */
+  private final ArrayBlockingQueue<byte[]> ring;
+
+  /**
+   * The buffered Log-File. Only used by the Writer-Thread.
+   */
+  private final OutputStream file;
+
+  /**
+   * The amount of Writes, that were added to the Ring-Buffer.
+   */
+  private long added;
+
+  /**
+   * The amount of Writes, that were written and flushed into the Log-File.
+   */
+  private long written;
+
+  /**
+   * The Constructor for this Stream. Creates the Log-File, replacing an existing one, and starts
+   * the Writer-Thread.
+
+   * @param logFile The Log-File to be written.
+   * @throws FileNotFoundException  If the Log-File couldn't be created.
+   * @since 1.22
+   */
+  public AsyncLogStream(File logFile) throws FileNotFoundException {
+    this.ring = new ArrayBlockingQueue<byte[]>(CAPACITY);
+    this.file = new BufferedOutputStream(new FileOutputStream(logFile), BUFFER_SIZE);
+    new NamedThreadFactory("Logger").newThread(this::drain).start();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> await(EXIT_TIMEOUT), "LogFlush"));
+  }
+
+  @Override
+  public void write(int b) {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (len == 0) {
+      return;
+    }
+    try {
+      ring.put(Arrays.copyOfRange(b, off, off + len));
+      synchronized (this) {
+        added++;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits, until all Bytes, that were written so far, are in the Log-File.
+   */
+  @Override
+  public void flush() {
+    await(0);
+  }
+
+  /**
+   * Waits, until all Bytes, that were written so far, are in the Log-File.
+
+   * @param timeout The maximal Time to wait in ms or {@code 0} to wait without a Timeout.
+   * @since 1.22
+   */
+  private synchronized void await(long timeout) {
+    long target = added;
+    long end = System.currentTimeMillis() + timeout;
+    try {
+      while (written < target) {
+        long remaining = end - System.currentTimeMillis();
+        if (timeout > 0 && remaining <= 0) {
+          return;
+        }
+        wait(timeout > 0 ? remaining : 0);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Drains the Ring-Buffer into the Log-File. Runs on the Writer-Thread, until the JVM exits.
+
+   * @since 1.22
+   */
+  private void drain() {
+    List<byte[]> batch = new ArrayList<byte[]>();
+    long pending = 0;
+    while (true) {
+      try {
+        batch.add(ring.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      ring.drainTo(batch);
+      boolean idle = ring.isEmpty();
+      try {
+        for (byte[] bytes : batch) {
+          file.write(bytes);
+        }
+        if (idle) {
+          file.flush();
+        }
+      } catch (IOException e) {
+        /*
+         * The Error can't be logged, since this might be the Error-Log. The Bytes are dropped, so
+         * waiting Threads are released anyway.
+         */
+      }
+      pending += batch.size();
+      batch.clear();
+      if (idle) {
+        synchronized (this) {
+          written += pending;
+          notifyAll();
+        }
+        pending = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package tasks;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream, that reads at most a given amount of Bytes from another Stream. If the other 
+ * Stream contains more Bytes, an IOException is thrown, so a Response, that is much bigger than 
+ * expected, can't keep a Check busy.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class BoundedInputStream extends FilterInputStream {
+
+  /**
+   * The amount of Bytes, that may still be read.
+   */
+  private long remaining;
+
+  /**
+   * The Constructor for this Stream.
+
+   * @param in  The Stream, the Bytes will be read from.
+   * @param limit The maximal amount of Bytes, that will be read.
+   * @since 1.22
+   */
+  BoundedInputStream(InputStream in, long limit) {
+    super(in);
+    this.remaining = limit;
+  }
+
+  @Override
+  public int read() throws IOException {
+    checkLimit();
+    int b = super.read();
+    if (b >= 0) {
+      remaining--;
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkLimit();
+    int read = super.read(b, off, (int) Math.min(len, remaining));
+    if (read > 0) {
+      remaining -= read;
+    }
+    return read;
+  }
+
+  /**
+   * Checks, if the limit was reached.
+
+   * @throws IOException  If the limit was reached.
+   * @since 1.22
+   */
+  private void checkLimit() throws IOException {
+    if (remaining <= 0) {
+      throw new IOException("Response exceeds the maximal Size");
+    }
+  }
+}
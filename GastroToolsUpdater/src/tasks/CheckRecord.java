@@ -0,0 +1,133 @@
+package tasks;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import loggingtool.LoggingTool;
+import updatersettings.UpdaterSettings;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * The Record of the last successful Check for Updates. It stores, when the last Check was done and 
+ * which Version was published at that Time. If the installed Version matches that Version and the 
+ * Check was done within the Check-Interval of the UpdaterSettings, the Launcher can be started 
+ * without checking again. The Hits and Misses of this Record are counted and logged.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class CheckRecord {
+
+  /**
+   * The UpdaterSettingsTool, this Record is stored with.
+   */
+  private final UpdaterSettingsTool updaterSettings;
+
+  /**
+   * The Constructor for this Record.
+
+   * @param updaterSettings The UpdaterSettingsTool, this Record is stored with.
+   * @since 1.22
+   */
+  public CheckRecord(UpdaterSettingsTool updaterSettings) {
+    this.updaterSettings = updaterSettings;
+  }
+
+  /**
+   * Checks, if the last Check was done within the Check-Interval and found the given Version as 
+   * the latest Version. Counts and logs the Result as a Hit or Miss.
+
+   * @param installedVersion  The installed Version of the Launcher.
+   * @return  {@code true}, if the Launcher can be started without checking again.
+   * @since 1.22
+   */
+  public boolean isFresh(String installedVersion) {
+    long interval = parse(UpdaterSettings.checkInterval);
+    long age = System.currentTimeMillis() - parse(UpdaterSettings.lastCheckTime);
+    String lastVersion = updaterSettings.getValue(UpdaterSettings.lastCheckVersion);
+    String reason;
+    if (interval <= 0) {
+      reason = "Check-Interval disabled";
+    } else if (age < 0 || age >= interval) {
+      reason = "last Check " + age + " ms ago";
+    } else if (installedVersion.isEmpty() || !installedVersion.equals(lastVersion)) {
+      reason = "installed Version " + installedVersion + " isn't the checked Version " 
+          + lastVersion;
+    } else {
+      count(UpdaterSettings.checkCacheHits, "Hit, last Check " + age + " ms ago");
+      return true;
+    }
+    count(UpdaterSettings.checkCacheMisses, "Miss, " + reason);
+    return false;
+  }
+
+  /**
+   * Stores, that a Check was done just now and found the given Version as the latest Version.
+
+   * @param publishedVersion  The latest published Version.
+   * @since 1.22
+   */
+  void record(String publishedVersion) {
+    HashMap<UpdaterSettings, String> map = new HashMap<UpdaterSettings, String>();
+    map.put(UpdaterSettings.lastCheckTime, String.valueOf(System.currentTimeMillis()));
+    map.put(UpdaterSettings.lastCheckVersion, publishedVersion);
+    updaterSettings.setValues(map);
+  }
+
+  /**
+   * Refreshes this Record with the Version-Manifest of the given Request, that was started 
+   * without any User Interface. This is done after the Launcher was started because of a Hit, so 
+   * the next Start knows about a new Version without waiting for the Network now. Failures are 
+   * only logged.
+
+   * @param request The Request of the Version-Manifest, that was started with the Updater.
+   * @return  The Version-Manifest, that was read, or {@code null}, if it couldn't be read.
+   * @see StartupCheck#takeManifest()
+   * @since 1.22
+   */
+  public VersionManifest refresh(CompletableFuture<VersionManifest> request) {
+    try {
+      VersionManifest manifest = request.get();
+      record(manifest.getCurrentVersion());
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Check-Record refreshed, latest published Version: " + manifest.getCurrentVersion());
+      return manifest;
+    } catch (ExecutionException | InterruptedException e) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Check-Record couldn't be refreshed: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Increments the given Counter and logs the Statistics of this Record.
+
+   * @param counter The Counter to be incremented.
+   * @param message The Reason for the Hit or Miss.
+   * @since 1.22
+   */
+  private void count(UpdaterSettings counter, String message) {
+    HashMap<UpdaterSettings, String> map = new HashMap<UpdaterSettings, String>();
+    map.put(counter, String.valueOf(parse(counter) + 1));
+    updaterSettings.setValues(map);
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Check-Record " + message + " (" 
+        + parse(UpdaterSettings.checkCacheHits) + " Hits, " 
+        + parse(UpdaterSettings.checkCacheMisses) + " Misses)");
+  }
+
+  /**
+   * Returns the Value of the given Setting as a Number.
+
+   * @param setting The Setting to be read.
+   * @return  The Value of the Setting or {@code 0}, if it's no Number.
+   * @since 1.22
+   */
+  private long parse(UpdaterSettings setting) {
+    try {
+      return Long.parseLong(updaterSettings.getValue(setting));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -1,18 +1,27 @@
 package tasks;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
-import java.util.StringTokenizer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.scene.control.Label;
 import loggingtool.LoggingTool;
-import updater.Updater;
+import updatersettings.UpdaterSettings;
+import updatersettings.UpdaterSettingsTool;
 
 /**
  * The Task, that will check, if a new Version of the Launcher was released.
@@ -27,12 +36,6 @@ public class CheckerTask extends Task<Void> {
    */
   private Label updates;
   
-  /**
-   * The primary Application, this Task was indirectly called from. Since the Application calls a 
-   * ProgressTask, which in turn will call a CheckerTask, both have to be stored.
-   */
-  private Updater primary;
-  
   /**
    * The ProgressTask, that directly called this Task.
    */
@@ -44,29 +47,137 @@ public class CheckerTask extends Task<Void> {
    */
   private int index;
   
+  /**
+   * The UpdaterSettingsTool to read the URL of the Version-Manifest.
+   */
+  private UpdaterSettingsTool updaterSettings;
+  
+  /**
+   * The RetryPolicy, that sets the Timeouts of all Connections and measures their Round-Trips.
+   */
+  private RetryPolicy policy;
+  
+  /**
+   * The Scheduler, that starts the Requests to the Mirrors of the Version-Manifest.
+   */
+  private ScheduledExecutorService scheduler;
+  
+  /**
+   * The Result of this Check, that the parent Task waits for.
+   */
+  private final CompletableFuture<VersionInfo> result;
+  
+  /**
+   * The Request of the Version-Manifest, that was started with the Updater, or {@code null}, if 
+   * this Check requests the Manifest itself.
+   */
+  private CompletableFuture<VersionManifest> earlyManifest;
+  
+  /**
+   * The maximal amount of Bytes, that will be read from the rendered Version File.
+   */
+  private static final long MAX_PAGE_BYTES = 2097152;
+  
   /**
    * The Constructor for this Task. This will set all Fields to the given Parameters.
 
    * @param updates The Label, where Messages about the Process are shown to the User.
-   * @param primary The Application, this Task was indirectly called from.
    * @param prt The ProgressTask, which directly called this Task.
    * @param index The current index of operations done.
+   * @param updaterSettings The UpdaterSettingsTool to read the URL of the Version-Manifest.
+   * @param policy  The RetryPolicy, that sets the Timeouts of all Connections.
+   * @param scheduler The Scheduler, that starts the Requests to the Mirrors.
    * @since 1.0
    */
-  public CheckerTask(Label updates, Updater primary, ProgressTask prt, int index) {
+  CheckerTask(Label updates, ProgressTask prt, int index, UpdaterSettingsTool updaterSettings, 
+      RetryPolicy policy, ScheduledExecutorService scheduler) {
     this.updates = updates;
-    this.primary = primary;
     this.prt = prt;
     this.index = index;
+    this.updaterSettings = updaterSettings;
+    this.policy = policy;
+    this.scheduler = scheduler;
+    this.result = new CompletableFuture<VersionInfo>();
+  }
+  
+  /**
+   * Returns the Result of this Check. It's completed as soon as the published Versions are known 
+   * and completed exceptionally, if the Check failed or was cancelled.
+
+   * @return  The Result of this Check.
+   * @since 1.22
+   */
+  CompletableFuture<VersionInfo> getResult() {
+    return result;
+  }
+  
+  /**
+   * Sets the Request of the Version-Manifest, that was started with the Updater. This Check waits 
+   * for its Result instead of requesting the Manifest again.
+
+   * @param earlyManifest The Request of the Version-Manifest or {@code null}, if this Check 
+   *     requests the Manifest itself.
+   * @see StartupCheck#takeManifest()
+   * @since 1.22
+   */
+  void setEarlyManifest(CompletableFuture<VersionManifest> earlyManifest) {
+    this.earlyManifest = earlyManifest;
   }
   
   @Override
   protected Void call() {
+    /*
+     * Makes sure, that the Result is always completed, even if the Check failed unexpectedly.
+     */
+    try {
+      check();
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      throw e;
+    }
+    return null;
+  }
+  
+  /**
+   * Checks for the published Versions and completes the Result with them.
+
+   * @since 1.22
+   */
+  private void check() {
+    /*
+     * Stores the Time, this Check started, to log the Time needed to decide about the Update.
+     */
+    long start = System.currentTimeMillis();
+    /*
+     * Tries to read the compact Version-Manifest first. Only if it can't be read, the rendered 
+     * Version File on GitHub is checked.
+     */
+    VersionManifest manifest = requestManifest();
+    /*
+     * Checks, if the Task was interrupted while waiting for the Manifest. If yes, the parent Task 
+     * already handled the Timeout and the Version File isn't checked anymore.
+     */
+    if (manifest == null && Thread.currentThread().isInterrupted()) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "CheckerTask was interrupted while waiting for the Manifest!");
+      result.completeExceptionally(new CancellationException());
+      return;
+    }
+    if (manifest != null) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Check for published Versions successful after " + (System.currentTimeMillis() - start) 
+          + " ms!");
+      prt.updateIndicator(index + 4, "Version überprüft.");
+      result.complete(new VersionInfo(manifest.getCurrentVersion(), 
+          manifest.getOlderVersions(), manifest));
+      return;
+    }
     /*
      * Creates a bufferedReader, which will read the Version File in the Repository, if a 
      * Connection can be established. If no connection is found, this Reader will be null.
      */
     BufferedReader br;
+    URLConnection con;
     try {
       /*
        * Since the Launcher's Version File will always be at the same location, this is a static 
@@ -79,12 +190,16 @@ public class CheckerTask extends Task<Void> {
        *  Get the input stream through URL Connection. If no connection can be established, an 
        *  IOException will be thrown, which is caught by the catch-Block below.
        */
-      URLConnection con = url.openConnection();
+      con = url.openConnection();
+      policy.applyTimeouts(con);
+      long sent = policy.now();
       con.connect();
-      InputStream is = con.getInputStream();
       /*
-       * Creates a BufferedReader for the InputStream.
+       * Creates a BufferedReader for the InputStream, that will never read more than 
+       * MAX_PAGE_BYTES.
        */
+      InputStream is = new BoundedInputStream(con.getInputStream(), MAX_PAGE_BYTES);
+      policy.finishRoundTrip(sent);
       br = new BufferedReader(new InputStreamReader(is));
       /*
        * Updates the Frame, to show the Progress.
@@ -99,7 +214,7 @@ public class CheckerTask extends Task<Void> {
       Platform.runLater(new Runnable() {
         @Override
         public void run() {
-          updates.setText("Keine Verbindung zum Server mglich. Bitte berprfen Sie Ihre "
+          updates.setText("Keine Verbindung zum Server möglich. Bitte überprüfen Sie Ihre "
               + "Internetverbindung.");
           LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
               "No Connection to the Server could be established!");
@@ -108,114 +223,39 @@ public class CheckerTask extends Task<Void> {
         }        
       });
       /*
-       * Sets the Published and older Versions Fields in the parent Task to the Failed-States.
-       */
-      prt.setPublishedVersion("FAILED");
-      prt.setOlderVersions(new ArrayList<String>());
-      /*
-       * Sets the Reader to null for consistency Issues and returns null to exit the Task.
+       * Completes the Result with the Error, so the parent Task shows the Failed-State.
        */
-      br = new BufferedReader(null);
-      return null;
+      result.completeExceptionally(e);
+      return;
     }
     /*
-     * Creates an empty String to store version numbers.
-     */
-    String s = "";
-    
-    /*
-     * A String, that saves the line, that was last read. Will be updated after each br.readLine().
+     * Creates an empty List to store the Lines of the Version Information.
      */
-    String line = null;
+    List<String> lines = new ArrayList<String>();
     
     /*
-     * A boolean to determine, if the current part of the InputStream contains 
-     * information about the Version.
-     */
-    boolean version = false;
-    
-    /*
-     * Go through each line of the InputStream to search for version information.
+     * Reads the Page once and removes all HTML-Code from it. Only the Text between the Version 
+     * Markers is kept and the Page isn't read any further after the End Marker. The Connection is 
+     * closed right afterwards, so the rest of the Page isn't downloaded.
      */
     try {
-      while ((line = br.readLine()) != null) {
-        /*
-         * Checks, if the Task was cancelled. If yes, sets older and published Versions to their 
-         * Failed-States and exits the Task.
-         */
-        if (isCancelled()) {
-          Platform.runLater(new Runnable() {
-            @Override
-            public void run() {
-              LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
-                  "CheckerTask was cancelled due to timeout!");
-              LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
-                  "CheckerTask was cancelled due to timeout!");
-              prt.setPublishedVersion("FAILED");
-              updates.setText("Zeitberschreitung!");
-              primary.showUpdateFailed();
-            }           
-          });
-          return null;
-        }
-        /*
-         * This String is always at the end of the version information.
-         */
-        if (line.contains("#End Version File")) {
-          version = false;
-          prt.updateIndicator(++index, "Versionsbeschreibung abgefragt.");
-        }
-        
-        /*
-         * We are now at the information part of the File. Here begins the allocation of 
-         * all versions that were released.
-         */
-        if (version) {
-          /*
-           * Remove HTML-Code from the String.
-           */
-          while (line.contains(">")) {
-            /*
-             * Checks, if the Task was cancelled. If yes, sets older and published Versions to 
-             * their Failed-States and exits the Task.
-             */
-            if (isCancelled()) {
-              Platform.runLater(new Runnable() {
-                @Override
-                public void run() {
-                  LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-                      "CheckerTask was cancelled due to timeout!");
-                  LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
-                      "CheckerTask was cancelled due to timeout!");
-                  prt.setPublishedVersion("FAILED");
-                  updates.setText("Zeitberschreitung!");
-                  primary.showUpdateFailed();
-                }           
-              });
-              return null;
-            }
-            line = line.replaceFirst(line.substring(line.indexOf("<"), 
-                line.indexOf(">") + 1), "");
-          }
-          /*
-           * If the Line still contains Information after removing all HTML-Code, then there 
-           * are version numbers stored in it. It is added to the String defined before.
-           */
-          if (line.trim().length() != 0) {
-            s = s.concat(line.trim() + System.lineSeparator());
-          }
-        }
-        /*
-         * This Line is always at the start of the Information about versions. This is checked 
-         * here to remove a line from s.
-         */
-        if (line.contains("#Begin Version File")) {
-          version = true;
-          prt.updateIndicator(++index, "Versionsbeschreibung gefunden!");
-        }
-      }
+      lines = new HtmlVersionStripper(br, this::isCancelled, 
+          () -> prt.updateIndicator(++index, "Versionsbeschreibung gefunden!"), 
+          () -> prt.updateIndicator(++index, "Versionsbeschreibung abgefragt.")).strip();
     } catch (IOException e) {
       e.printStackTrace();
+    } finally {
+      close(con, br);
+    }
+    /*
+     * Checks, if the Task was cancelled. If yes, the parent Task already handled the Timeout and 
+     * this Task is exited.
+     */
+    if (lines == null) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "CheckerTask was cancelled due to timeout!");
+      result.completeExceptionally(new CancellationException());
+      return;
     }
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
         "Published Versions found! Splitting Info into suitable Strings...");
@@ -224,42 +264,128 @@ public class CheckerTask extends Task<Void> {
      */
     prt.updateIndicator(++index, "Aufteilen der Versionsbeschreibung...");
     /*
-     * Separates the Version-String into single Version-Tokens. Each Token describes a single 
-     * Version-Number.
-     */
-
-    StringTokenizer st = new StringTokenizer(s, System.lineSeparator());
-    /*
-     * The First Token always contains "Current Version:", which isn't a Version itself and can 
-     * be deleted safely.
-     */
-    st.nextToken();
-    /*
-     * The second Token always contains the current version and thus will be stored.
+     * The First Line always contains "Current Version:", the second Line contains the current 
+     * version and the third Line contains "Older Versions:". If these Lines are missing, the Page 
+     * didn't contain the Version Information and the Check failed.
      */
-    prt.setPublishedVersion(st.nextToken());
-    /*
-     * The third Token always contains "Older Versions:", which isn't a Version itself and can 
-     * be deleted safely.
-     */
-    st.nextToken();
+    if (lines.size() < 3) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+          "No Version Information found!");
+      result.completeExceptionally(new IOException("No Version Information found"));
+      return;
+    }
     /*
-     * Creates a new ArrayList, where all oldVersions will be stored in. This is done via a 
-     * while-loop, that checks, if there are Tokens left in the Tokenizer and adds these Tokens 
-     * to the List.
+     * All following Lines contain the older Versions.
      */
-    ArrayList<String> oldVersions = new ArrayList<String>();
-    while (st.hasMoreTokens()) {
-      oldVersions.add(st.nextToken());
-    }
+    ArrayList<String> oldVersions = new ArrayList<String>(lines.subList(3, lines.size()));
     /*
-     * Updates the User, stores the created List in the parent Task and exits this Task.
+     * Updates the User, completes the Result with the found Versions and exits this Task.
      */
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
-        "Check for published Versions successful!");
-    prt.updateIndicator(++index, "Version berprft.");
-    prt.setOlderVersions(oldVersions);
-    return null;
+        "Check for published Versions successful after " + (System.currentTimeMillis() - start) 
+        + " ms!");
+    prt.updateIndicator(++index, "Version überprüft.");
+    result.complete(new VersionInfo(lines.get(1), oldVersions, null));
   }
   
+  /**
+   * Closes the given Reader and disconnects the given Connection, so no further Data is 
+   * downloaded.
+
+   * @param con The Connection to be disconnected.
+   * @param br  The Reader to be closed.
+   * @since 1.22
+   */
+  private void close(URLConnection con, BufferedReader br) {
+    if (con instanceof HttpURLConnection) {
+      ((HttpURLConnection) con).disconnect();
+    }
+    try {
+      br.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+  
+  /**
+   * Reads the compact Version-Manifest from the URL stored in the UpdaterSettings. If it doesn't 
+   * answer in time, the Mirrors stored in the UpdaterSettings are requested as well and the first 
+   * valid Manifest is taken. If a Manifest was cached by an earlier Check, the Requests are 
+   * conditional and a {@code 304 Not Modified} is answered from the Cache, without downloading 
+   * the Manifest again. If the Manifest was already requested with the Start of the Updater, the 
+   * Result of that Request is taken instead, but it's not waited longer than the Timeout of the 
+   * first Check for it.
+
+   * @return  The Version-Manifest or {@code null}, if it couldn't be read or the Thread was 
+   *     interrupted. In the latter Case, the interrupted Flag is set again.
+   * @see VersionManifest
+   * @see HedgedManifestRequest
+   * @since 1.22
+   */
+  private VersionManifest requestManifest() {
+    if (earlyManifest != null) {
+      try {
+        VersionManifest manifest = earlyManifest.get(policy.getCheckTimeout(0), 
+            TimeUnit.MILLISECONDS);
+        prt.updateIndicator(++index, "Verbindung hergestellt!");
+        return manifest;
+      } catch (ExecutionException e) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Manifest couldn't be read, checking Version File instead: " 
+            + e.getCause().getMessage());
+        return null;
+      } catch (TimeoutException e) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Manifest wasn't read in time, checking Version File instead.");
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    List<String> urls = getManifestUrls(updaterSettings);
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Reading Manifest from: " + urls);
+    ManifestCache cache = new ManifestCache(getManifestCacheFile());
+    try {
+      VersionManifest manifest = new HedgedManifestRequest(urls, cache, policy, scheduler)
+          .request();
+      prt.updateIndicator(++index, "Verbindung hergestellt!");
+      return manifest;
+    } catch (IOException e) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Manifest couldn't be read, checking Version File instead: " + e.getMessage());
+      return null;
+    }
+  }
+  
+  /**
+   * Returns the URLs of the Version-Manifest stored in the UpdaterSettings, the primary URL first 
+   * and its Mirrors afterwards.
+
+   * @param updaterSettings The UpdaterSettingsTool to read the URLs from.
+   * @return  All URLs of the Version-Manifest.
+   * @since 1.22
+   */
+  static List<String> getManifestUrls(UpdaterSettingsTool updaterSettings) {
+    List<String> urls = new ArrayList<String>();
+    urls.add(updaterSettings.getValue(UpdaterSettings.manifestUrl));
+    for (String mirror : updaterSettings.getValue(UpdaterSettings.manifestMirrors).split(",")) {
+      if (!mirror.trim().isEmpty()) {
+        urls.add(mirror.trim());
+      }
+    }
+    return urls;
+  }
+  
+  /**
+   * Returns the File, the last Version-Manifest is cached in. It's stored next to the Version File 
+   * of the Launcher.
+
+   * @return  The File of the ManifestCache.
+   * @since 1.22
+   */
+  static File getManifestCacheFile() {
+    return new File(System.getProperty("user.dir") + File.separator + "app" + File.separator 
+        + "ManifestCache.txt");
+  }
 }
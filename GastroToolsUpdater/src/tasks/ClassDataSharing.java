@@ -0,0 +1,276 @@
+package tasks;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import loggingtool.LoggingTool;
+
+/**
+ * The Class-Data-Sharing Archive of a Jar. The Archive contains the parsed Classes of the Jar and
+ * of the Java Platform, so a JVM, that is started with it, doesn't have to load and verify them
+ * again. This shortens the Start on slow Computers. <br>
+ * The Archive is created by a separate JVM, that uses the same Java Installation as the running
+ * one, and is only used, if it's newer than the Jar. Java 8 and 9 only support Archives of
+ * Applications with the commercial Features of the Oracle JDK. If the running JVM doesn't support
+ * them, no Archive is created and the Jar is started as before.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class ClassDataSharing {
+
+  /**
+   * The Extension of the Archive, that is created next to the Jar.
+   */
+  private static final String EXTENSION = ".jsa";
+
+  /**
+   * The maximal amount of seconds, the Creation of an Archive may take.
+   */
+  private static final long DUMP_TIMEOUT = 120;
+
+  /**
+   * The Jar, the Archive is created for.
+   */
+  private final File jar;
+
+  /**
+   * The Archive of the Jar.
+   */
+  private final File archive;
+
+  /**
+   * The Constructor for this Archive. The Archive is located next to the given Jar.
+
+   * @param jar The Jar, the Archive is created for.
+   * @since 1.22
+   */
+  public ClassDataSharing(File jar) {
+    this.jar = jar.getAbsoluteFile();
+    String name = this.jar.getName();
+    this.archive = new File(this.jar.getParentFile(),
+        name.substring(0, name.lastIndexOf('.') < 0 ? name.length() : name.lastIndexOf('.'))
+        + EXTENSION);
+  }
+
+  /**
+   * Returns the Archive of the Jar.
+
+   * @return  The Archive of the Jar, even if it wasn't created yet.
+   * @since 1.22
+   */
+  public File getArchive() {
+    return archive;
+  }
+
+  /**
+   * Determines, if the Archive exists and is newer than the Jar. If the Jar was replaced, the
+   * Archive has to be created again.
+
+   * @return  {@code true}, if the Archive can be used, {@code false} if not.
+   * @since 1.22
+   */
+  public boolean isUsable() {
+    return archive.isFile() && archive.lastModified() >= jar.lastModified();
+  }
+
+  /**
+   * Returns the Options, a JVM has to be started with to use the Archive.
+
+   * @return  The Options of the JVM or an empty List, if the Archive can't be used.
+   * @since 1.22
+   */
+  public List<String> getOptions() {
+    List<String> options = new ArrayList<String>();
+    if (isUsable()) {
+      options.addAll(getUnlockOptions());
+      options.add("-Xshare:auto");
+      options.add("-XX:SharedArchiveFile=" + archive.getPath());
+    }
+    return options;
+  }
+
+  /**
+   * Creates the Archive, if it doesn't exist or is older than the Jar. A separate JVM loads all
+   * Classes of the Jar and of the Java Platform and dumps them into the Archive. Blocks, until the
+   * Archive was created.
+
+   * @return  {@code true}, if the Archive can be used afterwards, {@code false} if not.
+   * @since 1.22
+   */
+  public boolean refresh() {
+    if (isUsable()) {
+      return true;
+    }
+    if (!isSupported()) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Class-Data-Sharing isn't supported by Java " + getJavaVersion());
+      return false;
+    }
+    long begin = System.currentTimeMillis();
+    Path classList = null;
+    Path dump = Paths.get(archive.getPath() + ".tmp");
+    try {
+      classList = Files.createTempFile(archive.getParentFile().toPath(), "classes", ".lst");
+      Files.write(classList, listClasses(), StandardCharsets.UTF_8);
+      Files.deleteIfExists(dump);
+      List<String> command = new ArrayList<String>();
+      command.add(getJavaExecutable());
+      command.addAll(getUnlockOptions());
+      command.add("-Xshare:dump");
+      command.add("-XX:SharedClassListFile=" + classList);
+      command.add("-XX:SharedArchiveFile=" + dump);
+      command.add("-cp");
+      command.add(jar.getPath());
+      Process process = new ProcessBuilder(command).redirectErrorStream(true)
+          .redirectOutput(ProcessBuilder.Redirect.appendTo(
+              new File(archive.getParentFile(), "cds.log"))).start();
+      if (!process.waitFor(DUMP_TIMEOUT, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+        throw new IOException("Timeout after " + DUMP_TIMEOUT + " s");
+      }
+      if (process.exitValue() != 0 || !Files.isRegularFile(dump)) {
+        throw new IOException("Exit Value " + process.exitValue());
+      }
+      /*
+       * The JVM creates Archives read-only, so an outdated one couldn't be replaced on Windows.
+       */
+      archive.setWritable(true);
+      Files.move(dump, archive.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Created " + archive.getName()
+          + " in " + (System.currentTimeMillis() - begin) + " ms");
+      return true;
+    } catch (IOException | InterruptedException e) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+          "Couldn't create " + archive.getName() + ": " + e.getMessage());
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return false;
+    } finally {
+      try {
+        Files.deleteIfExists(dump);
+        if (classList != null) {
+          Files.deleteIfExists(classList);
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Lists all Classes, that will be dumped into the Archive: the default Classes of the Java
+   * Platform, followed by all Classes of the Jar.
+
+   * @return  The Names of the Classes in the Format of a Class-List.
+   * @throws IOException  If the Jar couldn't be read.
+   * @since 1.22
+   */
+  private List<String> listClasses() throws IOException {
+    List<String> classes = new ArrayList<String>();
+    for (String folder : new String[] {"lib", "jre/lib"}) {
+      Path platformList = Paths.get(System.getProperty("java.home"), folder, "classlist");
+      if (Files.isRegularFile(platformList)) {
+        classes.addAll(Files.readAllLines(platformList, StandardCharsets.UTF_8));
+        break;
+      }
+    }
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.endsWith(".class") && !name.startsWith("META-INF/")
+            && !name.endsWith("module-info.class")) {
+          classes.add(name.substring(0, name.length() - ".class".length()));
+        }
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Determines, if the running JVM can create and use Archives of Applications.
+
+   * @return  {@code true}, if Archives of Applications are supported, {@code false} if not.
+   * @since 1.22
+   */
+  private static boolean isSupported() {
+    int version = getJavaVersion();
+    if (version >= 10) {
+      return true;
+    }
+    try {
+      HotSpotDiagnosticMXBean hotSpot =
+          ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+      hotSpot.getVMOption("UseAppCDS");
+      hotSpot.getVMOption("UnlockCommercialFeatures");
+      return true;
+    } catch (RuntimeException | LinkageError e) {
+      /*
+       * The Option doesn't exist, if this isn't an Oracle JDK with commercial Features.
+       */
+      return false;
+    }
+  }
+
+  /**
+   * Returns the Options, that enable Archives of Applications in the running JVM.
+
+   * @return  The Options for Java 8 to 10 or an empty List, since they are enabled by default.
+   * @since 1.22
+   */
+  private static List<String> getUnlockOptions() {
+    List<String> options = new ArrayList<String>();
+    int version = getJavaVersion();
+    if (version < 10) {
+      options.add("-XX:+UnlockCommercialFeatures");
+    }
+    if (version <= 10) {
+      options.add("-XX:+UseAppCDS");
+    }
+    return options;
+  }
+
+  /**
+   * Returns the Java Executable of the running JVM. A JVM can only use Archives, that were created
+   * by the same Java Installation.
+
+   * @return  The Path of the Java Executable.
+   * @since 1.22
+   */
+  static String getJavaExecutable() {
+    return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+  }
+
+  /**
+   * Returns the Feature-Version of the running JVM, e.g. {@code 8} for Java 1.8.
+
+   * @return  The Feature-Version of the running JVM.
+   * @since 1.22
+   */
+  private static int getJavaVersion() {
+    String version = System.getProperty("java.specification.version");
+    if (version.startsWith("1.")) {
+      version = version.substring(2);
+    }
+    try {
+      return Integer.parseInt(version);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
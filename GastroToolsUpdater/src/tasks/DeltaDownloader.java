@@ -0,0 +1,618 @@
+package tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import loggingtool.LoggingTool;
+
+/**
+ * Updates a Jar-File by downloading only the Entries, that changed since the installed Version.
+ * The Central Directory of the published Jar is read with Range-Requests and serves as the
+ * Manifest of the new Version, since it contains the Name, Sizes and CRC of every Entry. It's
+ * compared to the Central Directory of the installed Jar. Changed Entries are requested from the
+ * Server. Of an unchanged Entry, only the Local Header and Descriptor are requested, since their
+ * Timestamps and Extra Fields may differ from the installed Jar, and its Data is copied from the
+ * installed Jar. Every Byte is written to its Offset in the published Jar, so the new Jar is
+ * byte-identical to it and matches its published SHA-256.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class DeltaDownloader {
+
+  /**
+   * The Signature of the End of Central Directory Record.
+   */
+  private static final int END_SIGNATURE = 0x06054b50;
+
+  /**
+   * The Signature of a Central Directory Entry.
+   */
+  private static final int ENTRY_SIGNATURE = 0x02014b50;
+
+  /**
+   * The minimal Size of the End of Central Directory Record.
+   */
+  private static final int END_SIZE = 22;
+
+  /**
+   * The Amount of Bytes at the End of a Jar, that contain the End of Central Directory Record,
+   * even with the longest possible Comment.
+   */
+  private static final int TAIL_SIZE = END_SIZE + 0xFFFF;
+
+  /**
+   * The Signature of a Local Header.
+   */
+  private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+  /**
+   * The Size of a Local Header without its Name and Extra Field.
+   */
+  private static final int LOCAL_SIZE = 30;
+
+  /**
+   * The maximal Gap between two Spans, that are requested at once. Requesting a small Gap costs
+   * less than another Request.
+   */
+  private static final int MERGE_GAP = 16384;
+
+  /**
+   * The URL of the published Jar.
+   */
+  private final String downloadUrl;
+
+  /**
+   * The installed Jar, whose unchanged Entries will be reused.
+   */
+  private final File installedFile;
+
+  /**
+   * The File, where the new Jar will be written to.
+   */
+  private final File outputFile;
+
+  /**
+   * The Constructor for this Downloader. Sets all Fields to the given Parameters.
+
+   * @param downloadUrl The URL of the published Jar.
+   * @param installedFile The installed Jar, whose unchanged Entries will be reused.
+   * @param outputFile  The File, where the new Jar will be written to.
+   * @since 1.22
+   */
+  DeltaDownloader(String downloadUrl, File installedFile, File outputFile) {
+    this.downloadUrl = downloadUrl;
+    this.installedFile = installedFile;
+    this.outputFile = outputFile;
+  }
+
+  /**
+   * Builds the new Jar in the outputFile. If this isn't possible, e.g. because the Server doesn't
+   * support Ranges or one of the Jars can't be read, the outputFile is emptied and a full Download
+   * has to be done instead.
+
+   * @param cancelled Determines, if the Download was cancelled.
+   * @param started Will be informed about the amount of Bytes, that have to be downloaded, before
+   *      the first changed Entry is requested.
+   * @param progress  Will be informed about the amount of Bytes downloaded with each Chunk.
+   * @return  {@code true}, if the new Jar was built and verified, {@code false} if not.
+   * @since 1.22
+   */
+  boolean download(BooleanSupplier cancelled, LongConsumer started, LongConsumer progress) {
+    try {
+      /*
+       * Reads the Central Directory of the published and the installed Jar.
+       */
+      ByteBuffer remoteTail = request(-1, TAIL_SIZE);
+      long remoteEnd = findEnd(remoteTail);
+      long remoteLength = remoteTail.getLong(0);
+      ByteBuffer remoteEndRecord = slice(remoteTail, (int) remoteEnd,
+          remoteTail.limit() - (int) remoteEnd);
+      long remoteDirOffset = remoteEndRecord.getInt(16) & 0xFFFFFFFFL;
+      int remoteDirSize = remoteEndRecord.getInt(12);
+      long tailStart = remoteLength - (remoteTail.limit() - 8);
+      /*
+       * The Central Directory and the End Record are written unchanged at the End of the new Jar.
+       */
+      int suffixLength = (int) (remoteLength - remoteDirOffset);
+      ByteBuffer suffix;
+      if (remoteDirOffset >= tailStart) {
+        suffix = slice(remoteTail, (int) (remoteDirOffset - tailStart) + 8, suffixLength);
+      } else {
+        suffix = slice(request(remoteDirOffset, suffixLength), 8, suffixLength);
+      }
+      List<Entry> remoteEntries = readEntries(slice(suffix, 0, remoteDirSize), remoteDirOffset);
+
+      Map<String, Entry> installedEntries = new HashMap<String, Entry>();
+      try (RandomAccessFile raf = new RandomAccessFile(installedFile, "r")) {
+        for (Entry e : readEntries(raf)) {
+          installedEntries.put(e.name, e);
+        }
+      }
+
+      /*
+       * Compares both Directories. An Entry can be reused, if its Name, Method, Sizes and CRC are
+       * the same. Of a reused Entry, the Local Header at its Start and the Descriptor at its End
+       * are requested. Both are shorter than the Record without its Data.
+       */
+      List<Entry> byOffset = new ArrayList<Entry>(remoteEntries);
+      byOffset.sort(Comparator.comparingLong(e -> e.offset));
+      List<long[]> spans = new ArrayList<long[]>();
+      if (!byOffset.isEmpty() && byOffset.get(0).offset > 0) {
+        spans.add(new long[] {0, byOffset.get(0).offset});
+      }
+      int changed = 0;
+      for (Entry e : byOffset) {
+        e.source = installedEntries.get(e.name);
+        long overhead = e.recordLength - e.compressedSize;
+        if (e.source != null && (!e.source.matches(e) || overhead < LOCAL_SIZE)) {
+          e.source = null;
+        }
+        if (e.source == null) {
+          changed++;
+          addSpan(spans, e.offset, e.offset + e.recordLength);
+        } else {
+          addSpan(spans, e.offset, e.offset + overhead);
+          addSpan(spans, e.offset + e.recordLength - overhead, e.offset + e.recordLength);
+        }
+      }
+      long requestedBytes = 0;
+      for (long[] span : spans) {
+        requestedBytes += span[1] - span[0];
+      }
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), changed + " of "
+          + remoteEntries.size() + " Entries changed, downloading " + requestedBytes + " of "
+          + remoteLength + "B in " + spans.size() + " Requests");
+      started.accept(requestedBytes);
+
+      try (FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+          FileChannel installed = FileChannel.open(installedFile.toPath(),
+              StandardOpenOption.READ)) {
+        /*
+         * Writes every requested Span and the Central Directory to its Offset in the new Jar.
+         */
+        for (long[] span : spans) {
+          if (cancelled.getAsBoolean()) {
+            discard();
+            return false;
+          }
+          transfer(span[0], span[1] - span[0], out, span[0], cancelled, progress);
+        }
+        if (cancelled.getAsBoolean()) {
+          discard();
+          return false;
+        }
+        writeFully(out, suffix, remoteDirOffset);
+
+        /*
+         * Copies the Data of every reused Entry behind its requested Local Header, unless it was
+         * requested with a neighbouring Span anyway.
+         */
+        int s = 0;
+        for (Entry e : byOffset) {
+          if (e.source == null) {
+            continue;
+          }
+          long dataStart = e.offset + readHeaderLength(out, e.offset);
+          long dataEnd = dataStart + e.compressedSize;
+          if (dataEnd > e.offset + e.recordLength) {
+            throw new IOException("Damaged Local Header of " + e.name);
+          }
+          while (s < spans.size() - 1 && spans.get(s)[1] <= dataStart) {
+            s++;
+          }
+          if (spans.get(s)[0] <= dataStart && spans.get(s)[1] >= dataEnd) {
+            continue;
+          }
+          long sourceStart = e.source.offset + readHeaderLength(installed, e.source.offset);
+          long copied = 0;
+          while (copied < e.compressedSize) {
+            copied += installed.transferTo(sourceStart + copied, e.compressedSize - copied,
+                out.position(dataStart + copied));
+          }
+        }
+      }
+
+      /*
+       * Verifies the Length of the new Jar and the CRC of all Entries.
+       */
+      if (outputFile.length() != remoteLength || !verify(remoteEntries)) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Delta-Update failed to verify");
+        discard();
+        return false;
+      }
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Delta-Update finished");
+      return true;
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Delta-Update not possible: " + e.getMessage());
+      e.printStackTrace();
+      discard();
+      return false;
+    }
+  }
+
+  /**
+   * Empties the outputFile. It's kept as an empty File, so a later Download will resume into it 
+   * and not into the installed Jar.
+
+   * @since 1.22
+   */
+  private void discard() {
+    try (RandomAccessFile raf = new RandomAccessFile(outputFile, "rw")) {
+      raf.setLength(0);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Adds the given Span to the Spans, that will be requested. It's merged with the last Span, if
+   * both overlap or the Gap between them is small.
+
+   * @param spans The Spans, that will be requested, ordered by their Start.
+   * @param from  The first Byte of the Span.
+   * @param to  The first Byte after the Span.
+   * @since 1.22
+   */
+  private static void addSpan(List<long[]> spans, long from, long to) {
+    long[] last = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+    if (last != null && from - last[1] <= MERGE_GAP) {
+      last[1] = Math.max(last[1], to);
+    } else {
+      spans.add(new long[] {from, to});
+    }
+  }
+
+  /**
+   * Reads the Length of the Local Header at the given Offset of a Jar, including its Name and
+   * Extra Field.
+
+   * @param jar The Channel of the Jar.
+   * @param offset  The Offset of the Local Header.
+   * @return  The Length of the Local Header.
+   * @throws IOException  If there is no Local Header at the Offset.
+   * @since 1.22
+   */
+  private static long readHeaderLength(FileChannel jar, long offset) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(LOCAL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (header.hasRemaining()) {
+      if (jar.read(header, offset + header.position()) < 0) {
+        throw new IOException("No Local Header at " + offset);
+      }
+    }
+    if (header.getInt(0) != LOCAL_SIGNATURE) {
+      throw new IOException("No Local Header at " + offset);
+    }
+    return LOCAL_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+  }
+
+  /**
+   * Requests the given Range of the published Jar and stores it in a Buffer. The first 8 Bytes of
+   * the Buffer contain the total Length of the published Jar.
+
+   * @param from  The first Byte to be requested or {@code -1} to request the last Bytes.
+   * @param length  The amount of Bytes to be requested.
+   * @return  The Buffer with the total Length followed by the requested Bytes.
+   * @throws IOException  If the Server didn't answer with the requested Range.
+   * @throws URISyntaxException If the downloadUrl was malformed.
+   * @since 1.22
+   */
+  private ByteBuffer request(long from, int length) throws IOException, URISyntaxException {
+    HttpURLConnection con = open(from < 0 ? "bytes=-" + length
+        : "bytes=" + from + "-" + (from + length - 1));
+    try (InputStream is = con.getInputStream()) {
+      long total = DownloadTask.parseTotalLength(con.getHeaderField("Content-Range"));
+      int size = (int) con.getContentLengthLong();
+      if (total < 0 || size < 0 || size > length) {
+        throw new IOException("Unexpected Content-Range " + con.getHeaderField("Content-Range"));
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(8 + size).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putLong(0, total);
+      int read = 8;
+      while (read < buffer.limit()) {
+        int count = is.read(buffer.array(), read, buffer.limit() - read);
+        if (count < 0) {
+          throw new IOException("Range ended after " + (read - 8) + "B");
+        }
+        read += count;
+      }
+      return buffer;
+    } finally {
+      HttpConnections.release(con);
+    }
+  }
+
+  /**
+   * Requests the given Range of the published Jar and writes it to the given Position of the
+   * output.
+
+   * @param from  The first Byte to be requested.
+   * @param length  The amount of Bytes to be requested.
+   * @param out The Channel of the new Jar.
+   * @param position  The Position in the new Jar, the Bytes will be written to.
+   * @param cancelled Determines, if the Download was cancelled.
+   * @param progress  Will be informed about the amount of Bytes downloaded with each Chunk.
+   * @return  The Position in the new Jar after the last written Byte.
+   * @throws IOException  If the Server didn't deliver the whole Range.
+   * @throws URISyntaxException If the downloadUrl was malformed.
+   * @since 1.22
+   */
+  private long transfer(long from, long length, FileChannel out, long position,
+      BooleanSupplier cancelled, LongConsumer progress) throws IOException, URISyntaxException {
+    HttpURLConnection con = open("bytes=" + from + "-" + (from + length - 1));
+    try (ReadableByteChannel source = Channels.newChannel(con.getInputStream())) {
+      long end = new TransferPipeline(source, out, length)
+          .transfer(position, position + length, cancelled, progress);
+      if (end != position + length && !cancelled.getAsBoolean()) {
+        throw new IOException("Range ended after " + (end - position) + "B");
+      }
+      return end;
+    } finally {
+      HttpConnections.release(con);
+    }
+  }
+
+  /**
+   * Opens a Connection to the published Jar with the given Range.
+
+   * @param range The Value of the Range Header.
+   * @return  The opened Connection, that answered with partial Content.
+   * @throws IOException  If the Server didn't answer with partial Content.
+   * @throws URISyntaxException If the downloadUrl was malformed.
+   * @since 1.22
+   */
+  private HttpURLConnection open(String range) throws IOException, URISyntaxException {
+    HttpURLConnection con = (HttpURLConnection) new URI(downloadUrl).toURL().openConnection();
+    con.setRequestProperty("Range", range);
+    if (con.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+      HttpConnections.release(con);
+      throw new IOException("Server answered " + range + " with " + con.getResponseCode());
+    }
+    return con;
+  }
+
+  /**
+   * Reads all Entries of the Central Directory of the given Jar.
+
+   * @param raf The Jar to be read.
+   * @return  All Entries of the Jar.
+   * @throws IOException  If the Jar couldn't be read.
+   * @since 1.22
+   */
+  private List<Entry> readEntries(RandomAccessFile raf) throws IOException {
+    int tailSize = (int) Math.min(raf.length(), TAIL_SIZE);
+    ByteBuffer tail = ByteBuffer.allocate(8 + tailSize).order(ByteOrder.LITTLE_ENDIAN);
+    raf.seek(raf.length() - tailSize);
+    raf.readFully(tail.array(), 8, tailSize);
+    int end = findEnd(tail);
+    long dirOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+    ByteBuffer dir = ByteBuffer.allocate(tail.getInt(end + 12)).order(ByteOrder.LITTLE_ENDIAN);
+    raf.seek(dirOffset);
+    raf.readFully(dir.array());
+    return readEntries(dir, dirOffset);
+  }
+
+  /**
+   * Finds the End of Central Directory Record in the given Buffer, which contains the last Bytes
+   * of a Jar after 8 leading Bytes.
+
+   * @param tail  The Buffer with the last Bytes of a Jar.
+   * @return  The Index of the End Record in the Buffer.
+   * @throws IOException  If no End Record was found or the Jar needs the Zip64-Format.
+   * @since 1.22
+   */
+  private static int findEnd(ByteBuffer tail) throws IOException {
+    for (int i = tail.limit() - END_SIZE; i >= 8; i--) {
+      if (tail.getInt(i) == END_SIGNATURE
+          && i + END_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tail.limit()) {
+        if ((tail.getShort(i + 10) & 0xFFFF) == 0xFFFF || tail.getInt(i + 16) == -1) {
+          throw new IOException("Zip64 is not supported");
+        }
+        return i;
+      }
+    }
+    throw new IOException("No End of Central Directory found");
+  }
+
+  /**
+   * Reads all Entries of the given Central Directory. The Length of each Entry's Record (Local
+   * Header, Data and Descriptor) is calculated from the Offset of the following Record.
+
+   * @param dir The Central Directory.
+   * @param dirOffset The Offset of the Central Directory in the Jar.
+   * @return  All Entries in the Order of the Central Directory.
+   * @throws IOException  If the Central Directory is damaged.
+   * @since 1.22
+   */
+  private static List<Entry> readEntries(ByteBuffer dir, long dirOffset) throws IOException {
+    List<Entry> entries = new ArrayList<Entry>();
+    int i = 0;
+    while (i < dir.limit()) {
+      if (dir.getInt(i) != ENTRY_SIGNATURE) {
+        throw new IOException("Damaged Central Directory at " + i);
+      }
+      Entry e = new Entry();
+      e.method = dir.getShort(i + 10);
+      e.crc = dir.getInt(i + 16);
+      e.compressedSize = dir.getInt(i + 20) & 0xFFFFFFFFL;
+      e.size = dir.getInt(i + 24) & 0xFFFFFFFFL;
+      int nameLength = dir.getShort(i + 28) & 0xFFFF;
+      int extraLength = dir.getShort(i + 30) & 0xFFFF;
+      int commentLength = dir.getShort(i + 32) & 0xFFFF;
+      e.offset = dir.getInt(i + 42) & 0xFFFFFFFFL;
+      byte[] name = new byte[nameLength];
+      for (int n = 0; n < nameLength; n++) {
+        name[n] = dir.get(i + 46 + n);
+      }
+      e.name = new String(name, "UTF-8");
+      e.dirLength = 46 + nameLength + extraLength + commentLength;
+      entries.add(e);
+      i += e.dirLength;
+    }
+    List<Entry> byOffset = new ArrayList<Entry>(entries);
+    byOffset.sort(Comparator.comparingLong(e -> e.offset));
+    for (int n = 0; n < byOffset.size(); n++) {
+      long next = n + 1 < byOffset.size() ? byOffset.get(n + 1).offset : dirOffset;
+      byOffset.get(n).recordLength = next - byOffset.get(n).offset;
+    }
+    return entries;
+  }
+
+  /**
+   * Verifies the new Jar. It has to be readable and every Entry has to match the CRC of the
+   * published Jar, including the copied ones.
+
+   * @param entries All Entries of the published Jar.
+   * @return  {@code true}, if the new Jar is valid, {@code false} if not.
+   * @throws IOException  If the new Jar couldn't be read.
+   * @since 1.22
+   */
+  private boolean verify(List<Entry> entries) throws IOException {
+    try (ZipFile zip = new ZipFile(outputFile)) {
+      if (zip.size() != entries.size()) {
+        return false;
+      }
+      byte[] buffer = new byte[8192];
+      for (Entry e : entries) {
+        ZipEntry entry = zip.getEntry(e.name);
+        if (entry == null) {
+          return false;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream is = zip.getInputStream(entry)) {
+          int count;
+          while ((count = is.read(buffer)) > 0) {
+            crc.update(buffer, 0, count);
+          }
+        }
+        if ((int) crc.getValue() != e.crc) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Creates a little-endian Copy of the given Range of the given Buffer.
+
+   * @param buffer  The Buffer to be copied.
+   * @param index The first Byte to be copied.
+   * @param length  The amount of Bytes to be copied.
+   * @return  The new Buffer.
+   * @since 1.22
+   */
+  private static ByteBuffer slice(ByteBuffer buffer, int index, int length) {
+    ByteBuffer copy = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    System.arraycopy(buffer.array(), index, copy.array(), 0, length);
+    return copy;
+  }
+
+  /**
+   * Writes the whole given Buffer to the given Position of the Channel.
+
+   * @param out The Channel to be written to.
+   * @param buffer  The Buffer to be written.
+   * @param position  The Position in the Channel.
+   * @return  The amount of Bytes written.
+   * @throws IOException  If the Buffer couldn't be written.
+   * @since 1.22
+   */
+  private static int writeFully(FileChannel out, ByteBuffer buffer, long position)
+      throws IOException {
+    int written = 0;
+    while (buffer.hasRemaining()) {
+      written += out.write(buffer, position + written);
+    }
+    return written;
+  }
+
+  /**
+   * A single Entry of a Central Directory.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  private static class Entry {
+
+    /**
+     * The Name of this Entry.
+     */
+    private String name;
+
+    /**
+     * The Compression-Method of this Entry.
+     */
+    private short method;
+
+    /**
+     * The CRC of the uncompressed Data.
+     */
+    private int crc;
+
+    /**
+     * The Size of the compressed Data.
+     */
+    private long compressedSize;
+
+    /**
+     * The Size of the uncompressed Data.
+     */
+    private long size;
+
+    /**
+     * The Offset of the Local Header in the Jar.
+     */
+    private long offset;
+
+    /**
+     * The Length of the Local Header, Data and Descriptor in the Jar.
+     */
+    private long recordLength;
+
+    /**
+     * The Length of this Entry in the Central Directory.
+     */
+    private int dirLength;
+
+    /**
+     * The matching Entry of the installed Jar or {@code null}, if this Entry has to be downloaded.
+     */
+    private Entry source;
+
+    /**
+     * Checks, if the given Entry has the same Content as this Entry.
+
+     * @param other The Entry to be compared.
+     * @return  {@code true}, if both Entries have the same Content, {@code false} if not.
+     * @since 1.22
+     */
+    private boolean matches(Entry other) {
+      return method == other.method && crc == other.crc
+          && compressedSize == other.compressedSize && size == other.size;
+    }
+  }
+}
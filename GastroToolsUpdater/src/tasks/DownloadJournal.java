@@ -0,0 +1,595 @@
+package tasks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import loggingtool.LoggingTool;
+
+/**
+ * The Journal of a Download, that makes resuming it exact. It records the URL, the Version, the
+ * ETag and the total Size of the Download together with the committed Byte-Range of every
+ * Segment and, for a Download in a single Stream, the SHA-256 of the committed Bytes. <br>
+ * A Byte only counts as committed, if the downloaded File was synced to the Drive before the
+ * Journal recorded it. Bytes behind the committed Position are never trusted, but they are the
+ * only Bytes, that are downloaded again. <br>
+ * The Journal is a small binary File, that ends with a CRC32 of its Content. It's replaced
+ * atomically with every Checkpoint, so a Crash leaves either the old or the new Journal behind.
+ * Every Checkpoint is measured and the next one is delayed by a Multiple of its Duration, so
+ * syncing the Journal never takes a noticeable Part of the Download.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class DownloadJournal {
+
+  /**
+   * The Magic, every Journal starts with.
+   */
+  private static final int MAGIC = 0x47544A31;
+
+  /**
+   * The State of a Journal, whose Download isn't finished.
+   */
+  private static final byte DOWNLOADING = 0;
+
+  /**
+   * The State of a Journal, whose Download was prefetched completely and waits to be installed.
+   */
+  private static final byte STAGED = 1;
+
+  /**
+   * The minimal Time between two Checkpoints in Nanoseconds.
+   */
+  private static final long MIN_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * The Factor, the Duration of a Checkpoint is multiplied with to get the minimal Time until the
+   * next Checkpoint. This keeps the Time spent in Checkpoints below 1% of the Download.
+   */
+  private static final int INTERVAL_FACTOR = 100;
+
+  /**
+   * The File, the Journal is stored in.
+   */
+  private final File file;
+
+  /**
+   * The URL of the Download.
+   */
+  private final String url;
+
+  /**
+   * The Version of the Download.
+   */
+  private final String version;
+
+  /**
+   * The Name of the File, the Data is downloaded into. It's located next to the Journal.
+   */
+  private final String fileName;
+
+  /**
+   * The ETag of the downloaded File or {@code null}, if the Server didn't send one.
+   */
+  private String etag;
+
+  /**
+   * The total Size of the Download or {@code -1}, if it's unknown.
+   */
+  private long length;
+
+  /**
+   * The State of the Download.
+   */
+  private byte state;
+
+  /**
+   * Determines, if the Download is done in multiple Segments.
+   */
+  private boolean segmented;
+
+  /**
+   * All Byte-Ranges of the Download.
+   */
+  private List<Range> ranges;
+
+  /**
+   * The amount of Bytes, that are contained in {@link #hash}.
+   */
+  private long hashLength;
+
+  /**
+   * The SHA-256 of the first {@link #hashLength} Bytes or {@code null}, if it's unknown.
+   */
+  private byte[] hash;
+
+  /**
+   * The Time of the last Checkpoint in Nanoseconds.
+   */
+  private volatile long lastCheckpoint;
+
+  /**
+   * The minimal Time until the next Checkpoint in Nanoseconds.
+   */
+  private volatile long interval;
+
+  /**
+   * The amount of Checkpoints, that were written.
+   */
+  private int checkpoints;
+
+  /**
+   * The Time spent in all Checkpoints in Nanoseconds.
+   */
+  private long checkpointTime;
+
+  /**
+   * The Constructor for a new Journal. The Download starts without any committed Bytes.
+
+   * @param file  The File, the Journal will be stored in.
+   * @param url The URL of the Download.
+   * @param version The Version of the Download.
+   * @param fileName  The Name of the File, the Data is downloaded into.
+   * @since 1.22
+   */
+  DownloadJournal(File file, String url, String version, String fileName) {
+    this.file = file;
+    this.url = url;
+    this.version = version;
+    this.fileName = fileName;
+    this.length = -1;
+    this.state = DOWNLOADING;
+    this.ranges = new ArrayList<Range>();
+    this.lastCheckpoint = System.nanoTime();
+    this.interval = MIN_INTERVAL;
+  }
+
+  /**
+   * Reads the Journal from the given File.
+
+   * @param file  The File, the Journal is stored in.
+   * @return  The Journal or {@code null}, if no valid Journal exists.
+   * @since 1.22
+   */
+  static DownloadJournal read(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      if (bytes.length < Integer.BYTES) {
+        throw new IOException("Journal too short");
+      }
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length - Integer.BYTES);
+      if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES,
+          Integer.BYTES).getInt()) {
+        throw new IOException("Damaged Journal");
+      }
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Unknown Journal-Format");
+      }
+      DownloadJournal journal = new DownloadJournal(file, in.readUTF(), in.readUTF(),
+          in.readUTF());
+      String etag = in.readUTF();
+      journal.etag = etag.isEmpty() ? null : etag;
+      journal.length = in.readLong();
+      journal.state = in.readByte();
+      journal.segmented = in.readBoolean();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        journal.ranges.add(new Range(in.readLong(), in.readLong(), in.readLong()));
+      }
+      journal.hashLength = in.readLong();
+      int hashSize = in.readInt();
+      if (hashSize > 0) {
+        journal.hash = new byte[hashSize];
+        in.readFully(journal.hash);
+      }
+      return journal;
+    } catch (IOException | RuntimeException e) {
+      /*
+       * A damaged Journal can't be trusted, so the Download will be started from scratch.
+       */
+      LoggingTool.logError(DownloadJournal.class, LoggingTool.getLineNumber(),
+          "Journal " + file.getPath() + " can't be used: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Determines, if this Journal belongs to a Download of the given URL and Version.
+
+   * @param url The URL of the Download.
+   * @param version The Version of the Download.
+   * @return  {@code true}, if this Journal can be used to resume the Download, {@code false} if
+   *      not.
+   * @since 1.22
+   */
+  boolean matches(String url, String version) {
+    return this.url.equals(url) && this.version.equals(version);
+  }
+
+  /**
+   * Returns the Name of the File, the Data is downloaded into.
+
+   * @return  The Name of the File.
+   * @since 1.22
+   */
+  String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * Returns the Version of the Download.
+
+   * @return  The Version of the Download.
+   * @since 1.22
+   */
+  String getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the ETag of the downloaded File.
+
+   * @return  The ETag or {@code null}, if the Server didn't send one.
+   * @since 1.22
+   */
+  String getETag() {
+    return etag;
+  }
+
+  /**
+   * Sets the ETag of the downloaded File.
+
+   * @param etag  The ETag or {@code null}, if the Server didn't send one.
+   * @since 1.22
+   */
+  void setETag(String etag) {
+    this.etag = etag;
+  }
+
+  /**
+   * Returns the total Size of the Download.
+
+   * @return  The total Size or {@code -1}, if it's unknown.
+   * @since 1.22
+   */
+  long getLength() {
+    return length;
+  }
+
+  /**
+   * Determines, if the Download is done in multiple Segments.
+
+   * @return  {@code true}, if the Download is segmented, {@code false} if it's done in a single
+   *      Stream.
+   * @since 1.22
+   */
+  boolean isSegmented() {
+    return segmented;
+  }
+
+  /**
+   * Determines, if the Download was prefetched completely and waits to be installed.
+
+   * @return  {@code true}, if the Download is staged, {@code false} if not.
+   * @since 1.22
+   */
+  boolean isStaged() {
+    return state == STAGED;
+  }
+
+  /**
+   * Determines, if every Byte of the Download was written. This is the Case, if the total Size is 
+   * known and every Range reached its End, where the last Range ends at the total Size.
+
+   * @return  {@code true}, if the Download is complete, {@code false} if not.
+   * @since 1.22
+   */
+  synchronized boolean isComplete() {
+    if (length <= 0 || ranges.isEmpty()) {
+      return false;
+    }
+    long end = 0;
+    for (Range range : ranges) {
+      if (range.position < range.end) {
+        return false;
+      }
+      end = Math.max(end, range.end);
+    }
+    return end == length;
+  }
+
+  /**
+   * Determines, if every Byte of the Download was committed. The Journal is read again from its 
+   * File for this, so only Bytes, that were synced to the Drive by a Checkpoint, count.
+
+   * @return  {@code true}, if the whole Download was committed, {@code false} if not.
+   * @since 1.22
+   */
+  boolean isCommitted() {
+    DownloadJournal committed = read(file);
+    return committed != null && committed.isComplete();
+  }
+
+  /**
+   * Returns all Byte-Ranges of a segmented Download. Their Positions are recorded with the next
+   * Checkpoint.
+
+   * @return  All Byte-Ranges of the Download.
+   * @since 1.22
+   */
+  List<Range> getRanges() {
+    return ranges;
+  }
+
+  /**
+   * Returns the amount of committed Bytes of a Download in a single Stream.
+
+   * @return  The amount of Bytes from the Start of the File, that were committed.
+   * @since 1.22
+   */
+  long getCommitted() {
+    return segmented || ranges.isEmpty() ? 0 : ranges.get(0).position;
+  }
+
+  /**
+   * Returns the SHA-256 of the given amount of Bytes from the Start of the File.
+
+   * @param length  The amount of Bytes.
+   * @return  The SHA-256 or {@code null}, if it's unknown for the given amount of Bytes.
+   * @since 1.22
+   */
+  byte[] getHash(long length) {
+    return hashLength == length ? hash : null;
+  }
+
+  /**
+   * Starts a Download in a single Stream at the given Position.
+
+   * @param length  The total Size of the Download or {@code -1}, if it's unknown.
+   * @param position  The Position in the File, the Download starts at.
+   * @return  The Range of the Download. Its Position is recorded with the next Checkpoint.
+   * @since 1.22
+   */
+  synchronized Range startStream(long length, long position) {
+    this.length = length;
+    this.segmented = false;
+    Range range = new Range(0, length < 0 ? Long.MAX_VALUE : length, position);
+    this.ranges = new ArrayList<Range>();
+    this.ranges.add(range);
+    return range;
+  }
+
+  /**
+   * Starts a segmented Download with the given Byte-Ranges.
+
+   * @param length  The total Size of the Download.
+   * @param ranges  The Byte-Ranges of the Download. Their Positions are recorded with the next
+   *      Checkpoint.
+   * @since 1.22
+   */
+  synchronized void startSegments(long length, List<Range> ranges) {
+    this.length = length;
+    this.segmented = true;
+    this.ranges = ranges;
+    this.hash = null;
+    this.hashLength = 0;
+  }
+
+  /**
+   * Sets the SHA-256 of the given amount of Bytes from the Start of the File. It's recorded with
+   * the next Checkpoint.
+
+   * @param length  The amount of Bytes, the SHA-256 was computed from.
+   * @param hash  The SHA-256 or {@code null}, if it's unknown.
+   * @since 1.22
+   */
+  synchronized void setHash(long length, byte[] hash) {
+    this.hashLength = length;
+    this.hash = hash;
+  }
+
+  /**
+   * Discards all committed Bytes, so the Download starts from scratch.
+
+   * @since 1.22
+   */
+  synchronized void reset() {
+    this.length = -1;
+    this.etag = null;
+    this.segmented = false;
+    this.ranges = new ArrayList<Range>();
+    this.hash = null;
+    this.hashLength = 0;
+    save();
+  }
+
+  /**
+   * Determines, if the next Checkpoint is due.
+
+   * @return  {@code true}, if enough Time passed since the last Checkpoint, {@code false} if not.
+   * @since 1.22
+   */
+  boolean isDue() {
+    return System.nanoTime() - lastCheckpoint >= interval;
+  }
+
+  /**
+   * Commits all Bytes, that were written so far. The Positions of all Ranges are read first, then
+   * the downloaded File is synced to the Drive and the Journal is written afterwards, so the
+   * Journal never records a Byte, that isn't on the Drive.
+
+   * @param data  The Channel of the downloaded File.
+   * @since 1.22
+   */
+  synchronized void checkpoint(FileChannel data) {
+    long begin = System.nanoTime();
+    try {
+      byte[] bytes = serialize();
+      data.force(false);
+      write(bytes);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    long end = System.nanoTime();
+    checkpoints++;
+    checkpointTime += end - begin;
+    lastCheckpoint = end;
+    interval = Math.max(MIN_INTERVAL, (end - begin) * INTERVAL_FACTOR);
+  }
+
+  /**
+   * Marks the Download as completely prefetched, so it will be installed with the next Start.
+
+   * @param length  The Size of the prefetched File.
+   * @since 1.22
+   */
+  synchronized void stage(long length) {
+    this.length = length;
+    this.state = STAGED;
+    save();
+  }
+
+  /**
+   * Writes the Journal without syncing the downloaded File. This is only used, when no Bytes
+   * are committed by the Change.
+
+   * @since 1.22
+   */
+  synchronized void save() {
+    try {
+      write(serialize());
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Deletes the Journal, since the Download was finished or discarded.
+
+   * @since 1.22
+   */
+  void delete() {
+    file.delete();
+  }
+
+  /**
+   * Logs the amount of Checkpoints and the Time spent in them.
+
+   * @since 1.22
+   */
+  void logStatistics() {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Journal committed " + checkpoints
+        + " times in " + TimeUnit.NANOSECONDS.toMillis(checkpointTime) + " ms");
+  }
+
+  /**
+   * Converts the Journal into its binary Form, that ends with a CRC32 of its Content.
+
+   * @return  The binary Form of the Journal.
+   * @throws IOException  If the Journal couldn't be converted.
+   * @since 1.22
+   */
+  private byte[] serialize() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeUTF(url);
+    out.writeUTF(version);
+    out.writeUTF(fileName);
+    out.writeUTF(etag == null ? "" : etag);
+    out.writeLong(length);
+    out.writeByte(state);
+    out.writeBoolean(segmented);
+    out.writeInt(ranges.size());
+    for (Range range : ranges) {
+      out.writeLong(range.start);
+      out.writeLong(range.end);
+      out.writeLong(range.position);
+    }
+    out.writeLong(hashLength);
+    out.writeInt(hash == null ? 0 : hash.length);
+    if (hash != null) {
+      out.write(hash);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    out.writeInt((int) crc.getValue());
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Writes the given binary Form into a temporary File, syncs it to the Drive and moves it over
+   * the Journal afterwards.
+
+   * @param bytes The binary Form of the Journal.
+   * @throws IOException  If the Journal couldn't be written.
+   * @since 1.22
+   */
+  private void write(byte[] bytes) throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * A single Byte-Range of the Download.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  static class Range {
+
+    /**
+     * The first Byte of this Range.
+     */
+    final long start;
+
+    /**
+     * The first Byte after this Range.
+     */
+    final long end;
+
+    /**
+     * The next Byte of this Range, that has to be downloaded.
+     */
+    volatile long position;
+
+    /**
+     * The Constructor for a Range. Sets all Fields to the given Parameters.
+
+     * @param start The first Byte of this Range.
+     * @param end The first Byte after this Range.
+     * @param position  The next Byte of this Range, that has to be downloaded.
+     * @since 1.22
+     */
+    Range(long start, long end, long position) {
+      this.start = start;
+      this.end = end;
+      this.position = position;
+    }
+  }
+}
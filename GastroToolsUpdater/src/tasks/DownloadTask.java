@@ -1,26 +1,29 @@
 package tasks;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
-import java.net.ProtocolException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.scene.control.Label;
 import loggingtool.LoggingTool;
+import tasks.DownloadJournal.Range;
 
 /**
  * The Task, that will control the Download of the Launcher, if it should be updated or freshly 
@@ -68,12 +71,92 @@ public class DownloadTask extends Task<Void> {
    */
   private long start;
   
+  /**
+   * The latest amount of Bytes downloaded. This is written once per Chunk and read by the 
+   * {@link #publisher} once per Frame.
+   */
+  private volatile long latestBytes;
+  
+  /**
+   * The Publisher, that will display the Progress of this Download to the User at a fixed 
+   * Frame-Rate.
+   */
+  private ProgressPublisher publisher;
+  
   /**
    * The String, that defines the version-Number. This is used to ensure, that the file-Download 
    * can be resumed after canceling it.
    */
   private String version;
   
+  /**
+   * Determines, if the Server announced to support Range-Requests for the File to be downloaded. 
+   * Only if this is {@code true}, the File will be downloaded in multiple Segments at once.
+   */
+  private boolean rangesSupported;
+  
+  /**
+   * The amount of Segments, that will be downloaded at once, if the Server supports Ranges.
+   */
+  private static final int SEGMENTS = 4;
+  
+  /**
+   * The minimal Size of a File, that will be downloaded in Segments. Smaller Files are downloaded 
+   * in a single Stream, since the additional Connections wouldn't pay off.
+   */
+  private static final long MIN_SEGMENTED_LENGTH = 1048576;
+  
+  /**
+   * The Name of the DownloadJournal, that is stored next to the Launcher.
+   */
+  private static final String JOURNAL = "download.journal";
+  
+  /**
+   * The Journal, that records the Progress of the Download to make resuming it possible.
+   */
+  private DownloadJournal journal;
+  
+  /**
+   * Determines, if this Task only prefetches the Launcher into the temporary File in the 
+   * Background. A prefetched Launcher isn't installed, but staged for the next Start.
+   */
+  private boolean prefetch;
+  
+  /**
+   * The RateLimiter, that limits the Bandwidth of the Download, or {@code null}, if it isn't 
+   * limited.
+   */
+  private RateLimiter limiter;
+  
+  /**
+   * The SHA-256 of the File to be downloaded, as published in the Version-Manifest, or 
+   * {@code null}, if it's unknown.
+   */
+  private String expectedHash;
+  
+  /**
+   * The Digest of the File, that was computed while it was downloaded in a single Stream, or 
+   * {@code null}, if it has to be computed from the whole File.
+   */
+  private FileDigest digest;
+  
+  /**
+   * The maximal amount of Downloads of the File. If the downloaded File doesn't match the 
+   * published SHA-256, it's discarded and downloaded again from the Start.
+   */
+  private static final int MAX_DOWNLOADS = 2;
+  
+  /**
+   * The Starter, that starts the installed Launcher after the Download.
+   */
+  private LauncherStarter starter;
+  
+  /**
+   * Determines, if the Class-Data-Sharing Archive of the Launcher is created after the new 
+   * Launcher was started.
+   */
+  private boolean classDataSharing;
+  
   /**
    * The Constructor for this Task. Sets all Fields to the given Parameters.
 
@@ -82,14 +165,93 @@ public class DownloadTask extends Task<Void> {
    * @param updates The Label, that will display Messages to the User.
    * @param length The Label, that will display Messages about the remaining time to the User.
    * @param version The Version-String, that defines the version to be downloaded.
+   * @param scheduler The Scheduler, the Progress will be published on.
    * @since 1.0
    */
-  public DownloadTask(String downloadUrl, File file, Label updates, Label length, String version) {
+  public DownloadTask(String downloadUrl, File file, Label updates, Label length, String version,
+      ScheduledExecutorService scheduler) {
+    this(downloadUrl, file, updates, length, version, scheduler, Platform::runLater);
+  }
+  
+  /**
+   * The Constructor for this Task, that posts the Progress with the given Consumer instead of 
+   * {@link Platform#runLater(Runnable)}.
+
+   * @param downloadUrl The URL to download the Launcher from.
+   * @param file The File, where the Download will be stored in.
+   * @param updates The Label, that will display Messages to the User.
+   * @param length The Label, that will display Messages about the remaining time to the User.
+   * @param version The Version-String, that defines the version to be downloaded.
+   * @param scheduler The Scheduler, the Progress will be published on.
+   * @param poster  Posts the Progress to the FX-Thread.
+   * @since 1.22
+   */
+  DownloadTask(String downloadUrl, File file, Label updates, Label length, String version,
+      ScheduledExecutorService scheduler, Consumer<Runnable> poster) {
     this.outputFile = file;
     this.downloadUrl = downloadUrl;
     this.updates = updates;
     this.length = length;
     this.version = version;
+    this.publisher = new ProgressPublisher(this::showProgress, scheduler, poster);
+    this.starter = new LauncherStarter(file, false, null);
+  }
+  
+  /**
+   * Sets this Task to prefetch the Launcher in the Background. The Launcher is always downloaded 
+   * into the temporary File in a single Stream. It won't be installed, but staged for the next 
+   * Start of the Updater.
+
+   * @see #installStaged(File)
+   * @since 1.22
+   */
+  public void setPrefetch() {
+    this.prefetch = true;
+  }
+  
+  /**
+   * Sets the RateLimiter, that limits the Bandwidth of the Download.
+
+   * @param limiter The RateLimiter or {@code null}, if the Download isn't limited.
+   * @since 1.22
+   */
+  public void setRateLimiter(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+  
+  /**
+   * Sets the SHA-256 of the File to be downloaded. The downloaded File has to match it, before it 
+   * replaces the installed Launcher.
+
+   * @param expectedHash  The SHA-256 as a hex String or {@code null}, if it's unknown and the 
+   *     File can't be verified.
+   * @since 1.22
+   */
+  public void setExpectedHash(String expectedHash) {
+    this.expectedHash = expectedHash == null ? null : expectedHash.toLowerCase();
+  }
+  
+  /**
+   * Sets the Starter, that starts the installed Launcher after the Download. By default, the 
+   * Launcher is started in a separate Process.
+
+   * @param starter The Starter of the Launcher.
+   * @since 1.22
+   */
+  public void setLauncherStarter(LauncherStarter starter) {
+    this.starter = starter;
+  }
+  
+  /**
+   * Sets, if the Class-Data-Sharing Archive of the Launcher is created after the new Launcher was 
+   * started, so its next Starts are faster.
+
+   * @param classDataSharing  {@code true}, if the Archive will be created, {@code false} if not.
+   * @see ClassDataSharing
+   * @since 1.22
+   */
+  public void setClassDataSharing(boolean classDataSharing) {
+    this.classDataSharing = classDataSharing;
   }
   
   @Override
@@ -121,151 +283,151 @@ public class DownloadTask extends Task<Void> {
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "App Name: " + name);
     
     /*
-     * Creates a new File, that will be used to create a temporary File, which will replace the old 
-     * File after downloading. If a jar-File already exists at the given path of outputFile, this 
-     * will create a new temporary File, if no File exists, then newFile only references outputFile.
+     * The Journal, that records the Progress of the Download to make resuming it possible. 
+     * Resume-Files of older Updaters are discarded, since they don't know, which Bytes were 
+     * actually written to the Drive.
      */
-    File tmpFile;
+    File journalFile = new File(p + JOURNAL);
+    new File(p + "tmp.txt").delete();
+    new File(p + "segments.txt").delete();
+    journal = DownloadJournal.read(journalFile);
     /*
-     * Creates a temporary Text-File at the saved path to make resuming the Download possible.
+     * The File, the Data is downloaded into. If the Journal belongs to this Download, its File is 
+     * used to resume the Download. A prefetched Launcher is never downloaded into the installed 
+     * one, since it's running meanwhile.
      */
-    File f = new File(p + "tmp.txt");
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Created temporary Text File at " + f.getPath());
+    File tmpFile = null;
+    if (journal != null && journal.matches(downloadUrl, version) 
+        && !(prefetch && journal.getFileName().equals(name))) {
+      tmpFile = new File(p + journal.getFileName());
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Journal found, resuming Download into " + tmpFile.getPath());
+      if (!resume(tmpFile)) {
+        tmpFile = null;
+      }
+    }
     /*
-     * If the OutputFile already exists, it has to be checked, if it contains the correct Version 
-     * or if an older Version was downloaded. Also, if no temporary File exists, the OutputFile is 
-     * a fully downloaded older Version, which will be replaced by this Task.
+     * If the Download can't be resumed, it's started from scratch. If a Launcher is already 
+     * installed, the Download is done into a temporary File, which will replace the installed 
+     * Launcher after downloading. Else, it's done into outputFile directly.
      */
-    if (outputFile.exists()) {
-      /*
-       * If the temporary File doesn't exist, a new download was started, since outputFile is an 
-       * older Version of the Application and thus has to be replaced after the download, but not 
-       * beforehand.
-       */
-      if (!f.exists()) {
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "Creating new temporary File at " + (p + name.replace(".jar", "(tmp).jar")));
+    boolean resumed = tmpFile != null;
+    if (!resumed) {
+      if (outputFile.exists() || prefetch) {
         tmpFile = new File(p + name.replace(".jar", "(tmp).jar"));
-        /*
-         * If the temporary File exists, then a downloadTask was cancelled before since it couldn't 
-         * delete the temporary File after completion. Therefore, to continue the download, the 
-         * correct File has to be used.
-         */
       } else {
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "No new temporary File has to be created since download was cancelled!");
-        /*
-         * If the (tmp)-File exists, it has to be used to continue the download. If not, the first 
-         * download of the Application was cancelled, since the incomplete download is saved in 
-         * "appname.jar", so this File has to be used and not a temporary one.
-         */
-        if (new File(p + name.replace(".jar", "(tmp).jar")).exists()) {
-          tmpFile = new File(p + name.replace(".jar", "(tmp).jar"));
-        } else {
-          tmpFile = outputFile;
-        }
+        tmpFile = outputFile;
       }
-      /*
-       * If no outputFile exists, this Task is the first donwload of the Application and thus can 
-       * directly download into outputFile.
-       */
-    } else {
       LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-          "No temporary File has to be created");
-      tmpFile = outputFile;
+          "Starting new Download into " + tmpFile.getPath());
+      tmpFile.delete();
+      journal = new DownloadJournal(journalFile, downloadUrl, version, tmpFile.getName());
+      journal.save();
     }
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Downloading into File: " + tmpFile.getPath());
     /*
-     * Boolean Value, that will determine, if the current File has to be deleted or not.
+     * Sets start to the current time to be able to determine remaining time later on.
      */
-    boolean deleteFile;
+    start = System.currentTimeMillis();
+    
     /*
-     * Checks, if a Text-File with the given path of f already exists. In this case, the content 
-     * has to be compared to the version to be downloaded to ensure that the already existing part 
-     * of the download is up to date.
+     * If an older Version is installed and a new Download is started, a Patch for the installed 
+     * Version is applied or only the changed Entries of the Launcher are downloaded, if possible. 
+     * Else, the whole File is downloaded. A Download, that failed, e.g. because the Connection was 
+     * lost, is incomplete: its committed Data and the Journal are kept, so the next Download 
+     * resumes it. Only a complete File is verified against the published SHA-256. If it doesn't 
+     * match, it's discarded and the whole File is downloaded again.
      */
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Checking, if Text File already exists...");
-    if (f.exists()) {
-      try {
-        /*
-         * Creates a BufferedReader, that will read the single line in the File. Afterwards, it 
-         * compares this Line to the given version-String to determine, if the File has to be 
-         * deleted (both are equal means no deletion, different means deletion of the File).
-         */
-        BufferedReader br = new BufferedReader(new FileReader(f));
-        String readVers = br.readLine();
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "TextFile exists, read Version is " + readVers);
-        deleteFile = !readVers.equals(version);
-        br.close();
-      } catch (IOException e) {
-        /*
-         * If an error was caused when reading the File, this Task will default back to deleting 
-         * the File for safety measures.
-         */
-        deleteFile = true;
-        e.printStackTrace();
-      }
-    } else {
-      try {
-        /*
-         * If there is no existing File, the Data has to be deleted by default, since there is no 
-         * possible check for compatibility in this case. Also, a new File will be created, where 
-         * the version of the download is stored in.
-         */
-        BufferedWriter bw = new BufferedWriter(new FileWriter(f));
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "No TextFile exists, creating new File with Version " + version);
-        deleteFile = true;
-        bw.write(version);
-        bw.close();
-      } catch (IOException e) {
+    boolean complete = false;
+    boolean verified = false;
+    try {
+      for (int download = 0; !verified && !isCancelled() && download < MAX_DOWNLOADS; 
+          download++) {
+        if (download > 0) {
+          LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+              "Downloaded File doesn't match the published SHA-256, downloading it again!");
+          tmpFile.delete();
+          journal.reset();
+          digest = null;
+          start = System.currentTimeMillis();
+        }
+        try {
+          boolean delta = download == 0 && !resumed && tmpFile != outputFile 
+              && outputFile.isFile() && (transferDataAsPatch(outputFile, tmpFile, p, name) 
+              || transferDataAsDelta(outputFile, tmpFile));
+          if (delta) {
+            commitBuilt(tmpFile);
+          } else {
+            transferFile(tmpFile);
+          }
+        } catch (IOException e) {
+          LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+              "Download interrupted: " + e.getMessage());
+          e.printStackTrace();
+          break;
+        }
         /*
-         * If an error was caused when writing the File, this Task will default back to deleting 
-         * the File for safety measures.
+         * Only a File, whose every Byte was committed to the Journal, is complete.
          */
-        deleteFile = true;
-        e.printStackTrace();
+        complete = !isCancelled() && journal.isCommitted() 
+            && tmpFile.length() == journal.getLength();
+        if (!complete) {
+          break;
+        }
+        verified = verify(tmpFile);
       }
+    } finally {
+      /*
+       * Stops publishing the Progress and shows the final State to the User.
+       */
+      publisher.close();
+      journal.logStatistics();
     }
-
+    
     /*
-     * Deletes the temporary File from the Drive.
+     * Checks if this Task was cancelled by the User (by closing the Application or other means) 
+     * and returns null in that case to stop the further execution of the Task.
      */
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Temporary File has to be deleted? " + deleteFile);
-    if (deleteFile) {
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Deleting temporary File...");
-      tmpFile.delete();
+    if (isCancelled()) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), "Download Cancelled!");
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Download Cancelled!");
+      return null;
     }
+    
     /*
-     * Sets start to the current time to be able to determine remaining time later on.
+     * An incomplete File is never installed or staged. It's kept together with the Journal, so 
+     * the next Download resumes it.
      */
-    start = System.currentTimeMillis();
+    if (!complete) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+          "Download incomplete, it will be resumed with the next Download");
+      Platform.runLater(() -> {
+        updates.setText("Download unvollständig! Bitte erneut versuchen.");
+      });
+      return null;
+    }
     
     /*
-     * Opens a URLConnection to the given URL, adds functionality to resume the download and 
-     * downloads the Data from the URL.
+     * A File, that still doesn't match the published SHA-256, is discarded and never installed.
      */
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Starting Download to " + tmpFile.getPath());
-    URLConnection downloadFileConnection = addFileResumeFunctionality(downloadUrl, tmpFile);
-    try {
-      transferDataAndGetBytesDownloaded(downloadFileConnection, tmpFile);
-    } catch (IOException e) {
-      e.printStackTrace();
+    if (!verified) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+          "Downloaded File is damaged, it won't be installed!");
+      tmpFile.delete();
+      journal.delete();
+      Platform.runLater(() -> {
+        updates.setText("Download beschädigt! Bitte erneut versuchen.");
+      });
+      return null;
     }
     
     /*
-     * Checks if this Task was cancelled by the User (by closing the Application or other means) 
-     * and returns null in that case to stop the further execution of the Task.
+     * A prefetched Launcher isn't installed now. Instead, the Journal is marked as staged, so the 
+     * next Start of the Updater installs it.
      */
-    if (isCancelled()) {
-      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), "Download Cancelled!");
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Download Cancelled!");
+    if (prefetch) {
+      journal.stage(tmpFile.length());
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Prefetched Version " + version + " staged in " + tmpFile.getPath());
       return null;
     }
 
@@ -275,38 +437,229 @@ public class DownloadTask extends Task<Void> {
      */
     try {
       /*
-       * Deletes the temporary File, where the version was stored, since it's not needed after 
-       * completing the Download.
+       * Installs the downloaded File together with its Version, to replace the older executable. 
+       * If this fails, the older executable stays installed and the Journal is kept, so the next 
+       * Start can check and resume the Download instead of starting it from scratch.
        */
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Deleting temporary Text File...");
-      f.delete();
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Replacing older File");
+      if (!new LauncherInstaller(outputFile).install(tmpFile, version)) {
+        Platform.runLater(() -> {
+          updates.setText("Installation fehlgeschlagen! Bitte erneut versuchen.");
+        });
+        return null;
+      }
       /*
-       * Renames the downloaded File, to replace the older executable.
+       * Deletes the Journal, since it's not needed after installing the Download.
+       */
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Deleting Journal...");
+      journal.delete();
+      /*
+       * Starts the Launcher. If it was handed off inside this JVM, the Updater mustn't exit.
        */
-      if (outputFile != tmpFile) {
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Replacing older File");
-        outputFile.delete();
-        tmpFile.renameTo(outputFile);
-      }
-      // Run a java application in a separate system process
-      //Process proc = Runtime.getRuntime().exec("java -jar " + outputFile.getPath());
       LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Starting the Launcher...");
-      Runtime.getRuntime().exec("java -jar " + outputFile.getPath(), null, 
-          new File(outputFile.getPath().substring(0, outputFile.getPath()
-              .lastIndexOf(File.separator))));
-      // Then retrieve the process output
+      boolean handedOff = starter.start();
       /*
-        InputStream in = proc.getInputStream();
-        InputStream err = proc.getErrorStream();
-        OutputStream out = proc.getOutputStream();
-      */
-      System.exit(0);
+       * Creates the Class-Data-Sharing Archive for the next Start of the new Launcher. This is 
+       * done after the Launcher was started, so it never delays the Start.
+       */
+      if (classDataSharing) {
+        Platform.runLater(() -> {
+          updates.setText("Optimiere nächsten Start...");
+        });
+        new ClassDataSharing(outputFile).refresh();
+      }
+      if (!handedOff) {
+        System.exit(0);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
     return null;
   }
 
+  /**
+   * Downloads the whole File into the given tmpFile. If the Server supports Ranges, the File is 
+   * downloaded in multiple Segments at once, else in a single Stream.
+
+   * @param tmpFile The File, where the Data will be stored in.
+   * @throws IOException  If there was an Error in downloading the Data or writing it to the File.
+   * @throws URISyntaxException If the downloadURL was malformed.
+   * @since 1.22
+   */
+  private void transferFile(File tmpFile) 
+      throws IOException, URISyntaxException {
+    /*
+     * Opens a URLConnection to the given URL, adds functionality to resume the download and 
+     * downloads the Data from the URL.
+     */
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Starting Download to " + tmpFile.getPath());
+    HttpURLConnection downloadFileConnection = null;
+    /*
+     * A segmented Download preallocates the whole File, so its Size can't be used to resume the 
+     * Download. Instead, the Server is asked for the Size of the File without any Content. If the 
+     * Segments can't be resumed, they are discarded.
+     */
+    boolean resumeSegments = journal.isSegmented() && requestFileInfo(downloadUrl) 
+        && rangesSupported;
+    if (!resumeSegments) {
+      if (journal.isSegmented()) {
+        discardSegments(tmpFile);
+      }
+      downloadFileConnection = addFileResumeFunctionality(downloadUrl, tmpFile);
+    }
+    /*
+     * If the Server supports Ranges, the File is downloaded in multiple Segments at once. The 
+     * Connection, that was already opened, is used for the first Segment. If this isn't 
+     * possible, the Download falls back to a single Stream.
+     */
+    boolean segmented = false;
+    if (resumeSegments || (downloadFileConnection != null && rangesSupported && !prefetch
+        && downloadLength - tmpFile.length() >= MIN_SEGMENTED_LENGTH)) {
+      segmented = transferDataInSegments(tmpFile, downloadFileConnection);
+      if (!segmented) {
+        discardSegments(tmpFile);
+        downloadFileConnection = addFileResumeFunctionality(downloadUrl, tmpFile);
+      }
+    }
+    if (!segmented && downloadFileConnection != null) {
+      transferDataAndGetBytesDownloaded(downloadFileConnection, tmpFile);
+    }
+  }
+
+  /**
+   * Restores the committed Data of the {@link #journal} in the given File. A segmented Download 
+   * is kept as it is, since every Segment is resumed from its committed Position. A Download in a 
+   * single Stream is cut to its committed Bytes, since the Bytes behind them might not have been 
+   * written to the Drive. If the Journal contains the SHA-256 of the committed Bytes, they are 
+   * verified and the Digest is continued from them.
+
+   * @param tmpFile The File, the Data was downloaded into.
+   * @return  {@code true}, if the Download can be resumed, {@code false}, if it has to be started 
+   *      from scratch.
+   * @since 1.22
+   */
+  private boolean resume(File tmpFile) {
+    if (!tmpFile.exists()) {
+      return false;
+    }
+    if (journal.isSegmented()) {
+      return true;
+    }
+    long committed = journal.getCommitted();
+    try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+      if (raf.length() < committed) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+            "File is shorter than its committed Data!");
+        return false;
+      }
+      raf.setLength(committed);
+      byte[] hash = journal.getHash(committed);
+      if (hash != null) {
+        digest = new FileDigest();
+        digest.seed(tmpFile, committed);
+        if (!MessageDigest.isEqual(hash, digest.snapshot())) {
+          LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+              "Committed Data is damaged!");
+          digest = null;
+          return false;
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      digest = null;
+      return false;
+    }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Resuming after " + committed + "B of committed Data");
+    return true;
+  }
+
+  /**
+   * Commits a File, that was built from the installed Launcher by a Patch or a Delta-Update, to 
+   * the Journal, so it counts as complete.
+
+   * @param tmpFile The built File.
+   * @throws IOException  If the File couldn't be synced to the Drive.
+   * @since 1.22
+   */
+  private void commitBuilt(File tmpFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE)) {
+      journal.startStream(tmpFile.length(), tmpFile.length());
+      journal.checkpoint(channel);
+    }
+  }
+
+  /**
+   * Builds the new Version of the Launcher in the given tmpFile by applying a binary Patch to the 
+   * installed Version. The Patch is published next to the Launcher as 
+   * {@code Launcher-<installed version>.patch}, where the installed Version is read from the 
+   * Version-File in the Folder of the Launcher.
+
+   * @param installedFile The installed Launcher.
+   * @param tmpFile The File, where the new Launcher will be stored in.
+   * @param p The Path of the Folder, the Launcher is located in.
+   * @param name  The Name of the Launcher.
+   * @return  {@code true}, if the new Launcher was built, {@code false}, if no Patch exists or it 
+   *      couldn't be applied.
+   * @see PatchDownloader
+   * @since 1.22
+   */
+  private boolean transferDataAsPatch(File installedFile, File tmpFile, String p, String name) {
+    String installedVersion;
+    try (BufferedReader br = new BufferedReader(new FileReader(p + "Version.txt"))) {
+      installedVersion = br.readLine();
+    } catch (IOException e) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "No installed Version found, no Patch possible");
+      return false;
+    }
+    if (installedVersion == null || installedVersion.trim().isEmpty()) {
+      return false;
+    }
+    String patchUrl = downloadUrl.substring(0, downloadUrl.lastIndexOf('/') + 1) 
+        + name.replace(".jar", "-" + installedVersion.trim() + ".patch");
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Trying Patch from " + patchUrl);
+    PatchDownloader downloader = new PatchDownloader(patchUrl, installedFile, tmpFile);
+    long[] downloaded = {0};
+    return downloader.download(this::isCancelled, patchLength -> {
+      downloadLength = patchLength;
+      startingLength = 0;
+      updateProgress(0, downloadLength);
+    }, bytesDownloaded -> {
+      update(bytesDownloaded);
+      limit(bytesDownloaded - downloaded[0]);
+      downloaded[0] = bytesDownloaded;
+    });
+  }
+
+  /**
+   * Builds the new Version of the Launcher in the given tmpFile by downloading only the Entries, 
+   * that changed since the installed Version.
+
+   * @param installedFile The installed Launcher.
+   * @param tmpFile The File, where the new Launcher will be stored in.
+   * @return  {@code true}, if the new Launcher was built, {@code false}, if the whole File has to 
+   *      be downloaded.
+   * @see DeltaDownloader
+   * @since 1.22
+   */
+  private boolean transferDataAsDelta(File installedFile, File tmpFile) {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Trying Delta-Update of " + installedFile.getPath());
+    DeltaDownloader downloader = new DeltaDownloader(downloadUrl, installedFile, tmpFile);
+    long[] downloaded = {0};
+    return downloader.download(this::isCancelled, changedBytes -> {
+      downloadLength = changedBytes;
+      startingLength = 0;
+      updateProgress(0, downloadLength);
+    }, bytesCount -> {
+      downloaded[0] += bytesCount;
+      update(downloaded[0]);
+      limit(bytesCount);
+    });
+  }
+
   /**
    * Downloads the File from the given URLConnection to the given outputFile. 
    * Also updates the Progress while doing so to be able to show this progress to the User.
@@ -344,124 +697,272 @@ public class DownloadTask extends Task<Void> {
      */
     updateProgress(bytesDownloaded, downloadLength);
     /*
-     * Tries to get the Input-Stream from the URLConnection and a new FileOutputStream to the 
-     * OuputFile. Throws an IOException, if these can't be obtained/created.
-     * Since these Streams has to be closed after this block has finished, a try-with-resources 
+     * Tries to get a Channel from the URLConnection's Input-Stream and a FileChannel to the 
+     * OutputFile. Throws an IOException, if these can't be obtained/created.
+     * Since these Channels have to be closed after this block has finished, a try-with-resources 
      * statement is used.
      */
-    try (InputStream is = downloadFileConnection.getInputStream(); 
-        OutputStream os = new FileOutputStream(outputFile, true)) {
-
+    try (ReadableByteChannel source = Channels.newChannel(downloadFileConnection.getInputStream());
+        FileChannel target = FileChannel.open(p, StandardOpenOption.CREATE, 
+            StandardOpenOption.WRITE)) {
       /*
-       * Creates a new Byte-Array, which will store the Data read in each Download-Cycle.
+       * Transfers the Data in Chunks, that are sized from the Length of the Download. The 
+       * Progress is updated once per Chunk and the Transfer stops at the next Chunk, if this Task 
+       * was cancelled.
        */
-      byte[] buffer = new byte[1024];
-
+      TransferPipeline pipeline = new TransferPipeline(source, target, 
+          downloadLength - bytesDownloaded);
+      pipeline.setRateLimiter(limiter);
       /*
-       * Creates a new Integer, which will store the amount of downloaded bytes in this Cycle.
+       * Hashes the Data while it's written. If the Digest wasn't continued from the committed 
+       * Bytes of the Journal already, the existing Data is read once from the File.
        */
-      int bytesCount;
+      if (digest == null || digest.getLength() != bytesDownloaded) {
+        digest = new FileDigest();
+        digest.seed(outputFile, bytesDownloaded);
+      }
+      pipeline.setDigest(digest);
       /*
-       * While there is still Data to read in is, this Loop will continue. The size of the data 
-       * read will be stored in bytesCount for each iteration.
+       * Commits the written Data to the Journal, whenever the next Checkpoint is due, and once 
+       * more at the end of the Transfer.
        */
-      while ((bytesCount = is.read(buffer)) > 0) {
+      Range range = journal.startStream(downloadLength, bytesDownloaded);
+      try {
+        bytesDownloaded = pipeline.transfer(bytesDownloaded, Long.MAX_VALUE, this::isCancelled, 
+            bytesCount -> {
+              range.position += bytesCount;
+              update(range.position);
+              if (journal.isDue()) {
+                commit(target, range.position);
+              }
+            });
         /*
-         * Checks, if this Task was cancelled since the last iteration.
+         * If the Server didn't send the Size of the File, the End of the Stream determines it.
          */
-        if (!isCancelled()) {
-          /*
-           * Writes the content of buffer into the FileOutputStream.
-           */
-          os.write(buffer, 0, bytesCount);
-          /*
-           * Adds the size of the Data read this cycle to bytesDownloaded.
-           */
-          bytesDownloaded += bytesCount;
-          /*
-           * Updates the Progress with the new data.
-           */
-          updateProgress(bytesDownloaded, downloadLength);
-          /*
-           * Updates the User about the estimated remaining time.
-           */
-          update(bytesDownloaded);
-        } else {
-          /*
-           * If the Task was cancelled, this Loop will break and thus the Task will finish.
-           */
-          LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "DownloadTask was cancelled!");
-          break;
+        if (downloadLength < 0 && !isCancelled()) {
+          downloadLength = bytesDownloaded;
+          journal.startStream(downloadLength, downloadLength);
         }
+      } finally {
+        commit(target, range.position);
+      }
+      if (isCancelled()) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "DownloadTask was cancelled!");
       }
     }
     return bytesDownloaded;
   }
 
   /**
-   * Updates the User about the estimated time remaining to download the Data.
+   * Commits the Data of a Download in a single Stream up to the given Position to the Journal, 
+   * together with the Digest of this Data.
+
+   * @param target  The Channel of the downloaded File.
+   * @param position  The Position in the File after the last written Byte.
+   * @since 1.22
+   */
+  private void commit(FileChannel target, long position) {
+    journal.setHash(position, digest.snapshot());
+    journal.checkpoint(target);
+  }
+
+  /**
+   * Downloads the File in multiple Segments at once into the given outputFile. Each Segment is 
+   * requested with its own Range and can be resumed on its own via the {@link #journal}.
+
+   * @param outputFile  The File, where the Data will be stored in.
+   * @param connection  The Connection, that was already opened with a Range from the current end 
+   *      of the outputFile, or {@code null}, if the Segments are resumed from the Journal.
+   * @return  {@code true}, if the File was downloaded in Segments, {@code false}, if the Server 
+   *      didn't answer with partial Content and the File has to be downloaded in a single Stream.
+   * @throws IOException  If there was an Error in downloading a Segment or writing the Data to 
+   *      the File.
+   * @see SegmentedDownloader
+   * @since 1.22
+   */
+  private boolean transferDataInSegments(File outputFile, HttpURLConnection connection) 
+      throws IOException {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Download File in Segments to " + outputFile.getAbsolutePath());
+    SegmentedDownloader downloader = new SegmentedDownloader(downloadUrl, outputFile, 
+        journal, downloadLength, SEGMENTS, this::isCancelled, bytesDownloaded -> {
+          update(bytesDownloaded);
+        });
+    downloader.setRateLimiter(limiter);
+    /*
+     * Restores the Segments and initializes the Progress with the Bytes already downloaded.
+     */
+    startingLength = downloader.prepare();
+    if (connection != null) {
+      downloader.useConnection(connection, outputFile.length());
+    }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "bytesDownloaded is " + startingLength);
+    updateProgress(startingLength, downloadLength);
+    return downloader.download();
+  }
+
+  /**
+   * Verifies the complete File against the SHA-256 of the Version-Manifest. If the File was 
+   * downloaded completely in a single Stream, the Digest computed while downloading is used. 
+   * Else, the whole File is hashed once. Completeness isn't checked here, it's checked against 
+   * the Journal before.
+
+   * @param tmpFile The downloaded File.
+   * @return  {@code true}, if the File matches the SHA-256 or no SHA-256 was published, 
+   *      {@code false} if not.
+   * @since 1.22
+   */
+  private boolean verify(File tmpFile) {
+    if (expectedHash == null) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "No SHA-256 published, File can't be verified");
+      return true;
+    }
+    long begin = System.currentTimeMillis();
+    String actualHash;
+    try {
+      if (digest != null && digest.getLength() == tmpFile.length()) {
+        actualHash = digest.finish();
+      } else {
+        actualHash = FileDigest.of(tmpFile);
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    } finally {
+      digest = null;
+    }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "SHA-256 of the downloaded File is " 
+        + actualHash + ", verified in " + (System.currentTimeMillis() - begin) + " ms");
+    return expectedHash.equals(actualHash);
+  }
+
+  /**
+   * Stores the given amount of Bytes downloaded so far. The User will be updated with the next 
+   * Frame of the {@link #publisher}.
 
    * @param bytesDownloaded The size of the Data downloaded so far.
+   * @see #showProgress()
    * @since 1.0
    */
   private void update(long bytesDownloaded) {
+    latestBytes = bytesDownloaded;
+    publisher.changed();
+  }
+  
+  /**
+   * Takes the given amount of Bytes from the RateLimiter, if the Download is limited.
+
+   * @param bytesCount  The amount of Bytes, that were downloaded with the last Chunk.
+   * @since 1.22
+   */
+  private void limit(long bytesCount) {
+    if (limiter != null) {
+      limiter.acquire(bytesCount);
+    }
+  }
+  
+  /**
+   * Installs a Launcher, that was prefetched and completely staged in the temporary File by an 
+   * earlier Updater. The staged File is verified against the Size, that was recorded when it was 
+   * staged, and has to be a readable Jar. Afterwards, it replaces the installed Launcher.
+
+   * @param outputFile  The installed Launcher.
+   * @return  {@code true}, if a staged Launcher was installed, {@code false} if not.
+   * @see LauncherInstaller
+   * @since 1.22
+   */
+  public static boolean installStaged(File outputFile) {
+    DownloadJournal journal = DownloadJournal.read(new File(outputFile.getParentFile(), JOURNAL));
+    if (journal == null || !journal.isStaged()) {
+      return false;
+    }
+    File tmpFile = new File(outputFile.getParentFile(), journal.getFileName());
+    long begin = System.currentTimeMillis();
+    /*
+     * Verifies the staged File. If it's damaged, it's discarded, so it will be downloaded again.
+     */
+    boolean valid = !tmpFile.equals(outputFile) && journal.isComplete() 
+        && tmpFile.length() == journal.getLength() 
+        && LauncherInstaller.isReadable(tmpFile.toPath());
+    if (!valid) {
+      LoggingTool.logError(DownloadTask.class, LoggingTool.getLineNumber(), 
+          "Staged Launcher damaged, discarding it!");
+      tmpFile.delete();
+      journal.delete();
+      return false;
+    }
+    /*
+     * The Journal is only deleted after the Installation, so a failed one is retried with the 
+     * next Start.
+     */
+    if (!new LauncherInstaller(outputFile).install(tmpFile, journal.getVersion())) {
+      LoggingTool.logError(DownloadTask.class, LoggingTool.getLineNumber(), 
+          "Staged Launcher couldn't be installed!");
+      return false;
+    }
+    journal.delete();
+    LoggingTool.log(DownloadTask.class, LoggingTool.getLineNumber(), "Installed staged Version " 
+        + journal.getVersion() + " in " + (System.currentTimeMillis() - begin) + " ms");
+    return true;
+  }
+
+
+  /**
+   * Updates the Progress and the User about the estimated time remaining to download the Data. 
+   * This is run on the FX-Thread by the {@link #publisher}, so all changes since the last Frame 
+   * are shown at once.
+
+   * @since 1.22
+   */
+  private void showProgress() {
+    long bytesDownloaded = latestBytes;
+    updateProgress(bytesDownloaded, downloadLength);
     /*
      * Since the download might start with an existing File, the size of this existing File must be 
      * subtracted from the current File size, that is bytesDownloaded to ensure correct values for 
      * performance.
      */
-    bytesDownloaded -= startingLength;
+    long downloaded = bytesDownloaded - startingLength;
     /*
-     * Calculates the difference between the current Time and the Time, this Task started.
+     * Calculates the difference between the current Time and the Time, this Task started. At 
+     * least 1 ms is used to prevent a Division by zero.
      */
-    long diff = System.currentTimeMillis() - start;
+    long diff = Math.max(1, System.currentTimeMillis() - start);
     /*
      * Calculates the performance of this Download. The double Value describes bytes downloaded per 
      * ms.
      */
-    double perf = bytesDownloaded / diff;
+    double perf = (double) downloaded / diff;
     /*
      * Calculates the estimated time left to download the rest of the data based on the current 
      * performance.
      */
-    double needed = (downloadLength - bytesDownloaded) / perf;
-    /*
-     * Stores the perf-Value as a String, that describes it in kbit/s instead of B/s.
-     */
-    String performance = "" + (7.8125 * perf);
-    /*
-     * Stores the bytesDownloaded-Value as a String, that describes it in MB instead of bytes.
-     */
-    String downloaded = "" + ((bytesDownloaded + startingLength) / 1048576.0);
-    /*
-     * Stores the downloadLength-Value as a String, that describes it in MB instead of bytes.
-     */
-    String max = "" + (downloadLength / 1048576.0);
-    /*
-     * Stores the needed-Value as a String, that descibes it in seconds instead of ms.
-     */
-    String rest = "" + (needed / 1000);
-    /*
-     * Stores the index of the '.' in the Strings. This is used to cut off the numbers displayed 
-     * after two decimals to reduce information overflow.
-     */
-    int indexPerformance = performance.indexOf('.');
-    int indexMax = max.indexOf('.');
-    int indexDownloaded = downloaded.indexOf('.');
-    int indexRest = rest.indexOf('.');
+    double needed = perf > 0 ? (downloadLength - bytesDownloaded) / perf : 0;
     /*
-     * Sets the Labels to display the newly calculated data.
+     * Sets the Labels to display the newly calculated data. The performance is shown in kbit/s, 
+     * the sizes in MB and the remaining time in seconds, each cut off after one decimal to reduce 
+     * information overflow.
      */
-    Platform.runLater(new Runnable() {
-      @Override
-      public void run() {
-        updates.setText("Heruntergeladen: " + downloaded.substring(0, indexDownloaded + 2) + "/" 
-            + max.substring(0, indexMax + 2) + "MB (" + performance.substring(0, indexPerformance 
-                + 2) + " kBit/s)");
-        length.setText("Voraussichtliche Restzeit: " + rest.substring(0, indexRest + 2) + "s");
-      }
-    });
+    updates.setText("Heruntergeladen: " + oneDecimal(bytesDownloaded / 1048576.0) + "/" 
+        + oneDecimal(downloadLength / 1048576.0) + "MB (" + oneDecimal(7.8125 * perf) 
+        + " kBit/s)");
+    length.setText("Voraussichtliche Restzeit: " + oneDecimal(needed / 1000) + "s");
   }
+
+  /**
+   * Cuts off the given Value after one decimal.
+
+   * @param value The Value to be displayed.
+   * @return  The Value as a String with one decimal.
+   * @since 1.22
+   */
+  private static String oneDecimal(double value) {
+    long tenths = (long) (value * 10);
+    return (tenths / 10) + "." + Math.abs(tenths % 10);
+  }
+  
   //Stored, since this might be needed in future implementations.
   /*
   private long downloadFile(String downloadUrl, String saveAsFileName) 
@@ -474,30 +975,46 @@ public class DownloadTask extends Task<Void> {
 
   /**
    * Adds the Functionality to resume the Download to the File and calculates the Size of the 
-   * Download.
+   * Download. This is done with a single Request, that asks for the Data from the current end of 
+   * the outputFile on. The total Size is taken from the Content-Range of the Response. If the 
+   * Server ignores the Range, the outputFile is discarded, since the Response starts with the 
+   * first Byte of the File.
 
    * @param downloadUrl The URL, that will be downloaded as a String.
    * @param outputFile  The File, the data will be saved in.
-   * @return  A new URLConnection to the given URL with the ability to resume the download.
+   * @return  A new HttpURLConnection to the given URL, that will deliver the remaining Data, or 
+   *      {@code null}, if the outputFile was already completely downloaded.
    * @throws IOException  If the Connection to the URL couldn't be established correctly or 
    *      the downloadURL doesn't support the 'GET'-Request.
    * @throws URISyntaxException If the downloadURL was malformed, so no new URI could be created 
    *      from it.
-   * @throws ProtocolException  If the downloadURL doesn't support the 'GET'-Request. Since it's 
-   *      not possible to determine, which Exception will be called first from the 
-   *      requestMethod-Method, both Exceptions are needed (IO and Protocol).
    * @see URI
    * @since 1.0
    */
-  private URLConnection addFileResumeFunctionality(String downloadUrl, File outputFile) 
-      throws IOException, URISyntaxException, ProtocolException {
-    
-    /*
-     * Creates a new URLConnection to the given downloadUrl.
-     */
-    URLConnection downloadFileConnection = new URI(downloadUrl).toURL()
-        .openConnection();
+  private HttpURLConnection addFileResumeFunctionality(String downloadUrl, File outputFile) 
+      throws IOException, URISyntaxException {
+    return addFileResumeFunctionality(downloadUrl, outputFile, false);
+  }
 
+  /**
+   * Adds the Functionality to resume the Download to the File. If the Server rejects the Range, 
+   * since the outputFile doesn't match, the outputFile is discarded and the Request is retried 
+   * once from the first Byte.
+
+   * @param downloadUrl The URL, that will be downloaded as a String.
+   * @param outputFile  The File, the data will be saved in.
+   * @param retried {@code true}, if this is the Retry after a rejected Range, {@code false} if 
+   *      not.
+   * @return  A new HttpURLConnection to the given URL, that will deliver the remaining Data, or 
+   *      {@code null}, if the outputFile was already completely downloaded.
+   * @throws IOException  If the Connection to the URL couldn't be established correctly, the 
+   *      downloadURL doesn't support the 'GET'-Request or the Server rejected the Range again.
+   * @throws URISyntaxException If the downloadURL was malformed, so no new URI could be created 
+   *      from it.
+   * @since 1.22
+   */
+  private HttpURLConnection addFileResumeFunctionality(String downloadUrl, File outputFile, 
+      boolean retried) throws IOException, URISyntaxException {
     /*
      * Stores the Path of the directory, the outputFile will be saved in.
      */
@@ -518,51 +1035,151 @@ public class DownloadTask extends Task<Void> {
       path.mkdirs();
     }
     
+    long existingFileSize = outputFile.length();
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Existing File Size is " + existingFileSize + "B");
     /*
-     * Creates a HTTP URL Connection to the given downloadUrl, to request the property to resume 
-     * the download.
-     */
-    HttpURLConnection httpFileConnection = (HttpURLConnection) downloadFileConnection;
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "HttpUrlConnection established");
-    /*
-     * Creates a temporary HTTP URL Connection, that is needed to get the total Size of the Data.
+     * Creates a HTTP URL Connection to the given downloadUrl, that requests the Data from the end 
+     * of the existing File on.
      */
-    HttpURLConnection tmpFileConn = (HttpURLConnection) new URI(downloadUrl).toURL()
+    HttpURLConnection httpFileConnection = (HttpURLConnection) new URI(downloadUrl).toURL()
         .openConnection();
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "TmpFileConnection established");
-    /*
-     * Sets the RequestMethod of the temporary Connection and gets the Length of it's Content as a 
-     * long.
-     */
-    tmpFileConn.setRequestMethod("GET");
-    long fileLength = tmpFileConn.getContentLengthLong();
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "FileLength to be downloaded is " + fileLength + "B");
+    httpFileConnection.setRequestProperty("Range", "bytes=" + existingFileSize + "-");
     /*
-     * Stores the Length of the Content in downloadLength and the length of the OutputFile in a new 
-     * long to compare these two values.
+     * If the File changed on the Server since the Download was started, the Server answers with 
+     * the whole new File instead of the remaining Data.
      */
-    downloadLength = fileLength;
-    long existingFileSize = outputFile.length();
-
+    if (existingFileSize > 0 && journal.getETag() != null) {
+      httpFileConnection.setRequestProperty("If-Range", journal.getETag());
+    }
+    int code = httpFileConnection.getResponseCode();
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Existing File Size is " + existingFileSize + "B");
-    /*
-     * Checks, if the existing File's size is smaller than the Length of the File to be downloaded.
-     * If yes, it requests the Download Range from there on, if not it updates the Progress to 
-     * display the finished state.
-     */
-    if (existingFileSize < fileLength) {
-      httpFileConnection.setRequestProperty("Range", "bytes=" + existingFileSize + "-" 
-          + fileLength);
+        "HttpUrlConnection established, Server answered with " + code);
+    
+    if (code == HttpURLConnection.HTTP_PARTIAL) {
+      /*
+       * The Server delivers the remaining Data. The total Size is part of the Content-Range.
+       */
+      rangesSupported = true;
+      journal.setETag(httpFileConnection.getHeaderField("ETag"));
+      downloadLength = parseTotalLength(httpFileConnection.getHeaderField("Content-Range"));
+      if (downloadLength < 0) {
+        downloadLength = existingFileSize + httpFileConnection.getContentLengthLong();
+      }
+    } else if (code == 416) {
+      /*
+       * The Range starts behind the end of the File. If the existing File has exactly the Size of 
+       * the File to be downloaded, it's already complete. Else, it's damaged and has to be 
+       * downloaded again.
+       */
+      HttpConnections.release(httpFileConnection);
+      downloadLength = parseTotalLength(httpFileConnection.getHeaderField("Content-Range"));
+      if (downloadLength == existingFileSize) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "File already downloaded");
+        updateProgress(downloadLength, downloadLength);
+        return null;
+      }
+      /*
+       * A Server, that rejects the Range of the Retry as well, would be asked forever.
+       */
+      if (retried || existingFileSize == 0) {
+        throw new IOException("Server rejected the Range from " + existingFileSize 
+            + " of " + downloadLength + "B");
+      }
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Existing File doesn't match, downloading it again");
+      if (!outputFile.delete()) {
+        throw new IOException("Couldn't discard " + outputFile.getName());
+      }
+      return addFileResumeFunctionality(downloadUrl, outputFile, true);
+    } else if (code == HttpURLConnection.HTTP_OK) {
+      /*
+       * The Server ignored the Range and delivers the whole File, so the existing Data has to be 
+       * discarded.
+       */
+      rangesSupported = false;
+      journal.setETag(httpFileConnection.getHeaderField("ETag"));
+      downloadLength = httpFileConnection.getContentLengthLong();
+      if (existingFileSize > 0) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Server doesn't support Ranges, discarding existing File");
+        outputFile.delete();
+      }
     } else {
-      updateProgress(fileLength, fileLength);
-      httpFileConnection.setRequestProperty("Range", "bytes=" + existingFileSize + "-" 
-          + fileLength);
+      HttpConnections.release(httpFileConnection);
+      throw new IOException("Server answered with " + code);
     }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "FileLength to be downloaded is " + downloadLength + "B");
     /*
-     * Returns the newly created Connection with the Property to resume the Download.
+     * Returns the newly created Connection, that delivers the remaining Data.
      */
-    return downloadFileConnection;
+    return httpFileConnection;
+  }
+
+  /**
+   * Asks the Server for the Size of the File and, if it supports Ranges, without downloading any 
+   * Content. This is needed to resume a segmented Download, since the preallocated File has the 
+   * full Size already.
+
+   * @param downloadUrl The URL, that will be downloaded as a String.
+   * @return  {@code true}, if the Server answered the Request, {@code false} if not.
+   * @since 1.22
+   */
+  private boolean requestFileInfo(String downloadUrl) {
+    try {
+      HttpURLConnection con = (HttpURLConnection) new URI(downloadUrl).toURL().openConnection();
+      con.setRequestMethod("HEAD");
+      int code = con.getResponseCode();
+      /*
+       * Releases the Connection, so the following Request reuses its Socket.
+       */
+      HttpConnections.release(con);
+      if (code != HttpURLConnection.HTTP_OK) {
+        return false;
+      }
+      downloadLength = con.getContentLengthLong();
+      rangesSupported = "bytes".equalsIgnoreCase(con.getHeaderField("Accept-Ranges"));
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "FileLength to be downloaded is " + downloadLength + "B, Server supports Ranges? " 
+          + rangesSupported);
+      return downloadLength > 0;
+    } catch (IOException | URISyntaxException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Reads the total Size of the File from the given Content-Range. The Content-Range has the 
+   * Form {@code bytes start-end/total} or {@code bytes *}{@code /total}.
+
+   * @param contentRange  The Value of the Content-Range Header. Might be {@code null}.
+   * @return  The total Size of the File or {@code -1}, if it's unknown.
+   * @since 1.22
+   */
+  static long parseTotalLength(String contentRange) {
+    if (contentRange == null || contentRange.indexOf('/') < 0) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1).trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Deletes the preallocated File and the Progress of its Segments, so the Download can be 
+   * started again in a single Stream.
+
+   * @param tmpFile The preallocated File.
+   * @since 1.22
+   */
+  private void discardSegments(File tmpFile) {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Discarding segmented Download, falling back to a single Stream");
+    tmpFile.delete();
+    journal.reset();
   }
 }
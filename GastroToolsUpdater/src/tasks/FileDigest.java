@@ -0,0 +1,149 @@
+package tasks;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The SHA-256 of a downloaded File, that is computed while the File is written. Data, that was
+ * already written before, e.g. by a cancelled Download, is read once from the File, so the Digest
+ * can be continued with the Bytes, that are still to be downloaded. The File isn't mapped into
+ * Memory, since a mapped File can't be moved or deleted on Windows, until the Mapping is garbage
+ * collected.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class FileDigest {
+
+  /**
+   * The Size of the Buffer, the File is read through.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The Digest, that contains all Bytes from the Start of the File up to {@link #length}.
+   */
+  private final MessageDigest digest;
+
+  /**
+   * The amount of Bytes, that were added to the Digest so far.
+   */
+  private long length;
+
+  /**
+   * The Constructor for this Digest. Creates an empty SHA-256 Digest.
+
+   * @since 1.22
+   */
+  FileDigest() {
+    try {
+      this.digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      /*
+       * Every Java Platform has to support SHA-256.
+       */
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Adds the first Bytes of the given File to the Digest. The File is read through a Buffer of
+   * {@link #BUFFER_SIZE} Bytes, so it's never read completely into the Heap.
+
+   * @param file  The File, that will be read.
+   * @param size  The amount of Bytes, that will be read from the Start of the File.
+   * @throws IOException  If the File couldn't be read or is shorter than the given Size.
+   * @since 1.22
+   */
+  void seed(File file, long size) throws IOException {
+    if (size <= 0) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, size));
+      long position = 0;
+      while (position < size) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), size - position));
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new EOFException("File ends after " + position + " of " + size + " Bytes");
+        }
+        digest.update(buffer.array(), 0, read);
+        position += read;
+      }
+    }
+    length += size;
+  }
+
+  /**
+   * Adds the given Bytes to the Digest. The Bytes have to follow directly on the Bytes, that were
+   * added before.
+
+   * @param bytes The Buffer, whose remaining Bytes will be added. Its Position is moved to its
+   *      Limit.
+   * @since 1.22
+   */
+  void update(ByteBuffer bytes) {
+    length += bytes.remaining();
+    digest.update(bytes);
+  }
+
+  /**
+   * Returns the amount of Bytes, that were added to the Digest so far.
+
+   * @return  The amount of Bytes in the Digest.
+   * @since 1.22
+   */
+  long getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the SHA-256 of all Bytes added so far. The Digest can be continued afterwards.
+
+   * @return  The SHA-256 of all Bytes added so far or {@code null}, if the Digest can't be copied.
+   * @since 1.22
+   */
+  byte[] snapshot() {
+    try {
+      return ((MessageDigest) digest.clone()).digest();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finishes the Digest and returns it as a hex String. The Digest can't be continued afterwards.
+
+   * @return  The SHA-256 as a lower case hex String.
+   * @since 1.22
+   */
+  String finish() {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Computes the SHA-256 of the whole given File.
+
+   * @param file  The File, that will be read.
+   * @return  The SHA-256 as a lower case hex String.
+   * @throws IOException  If the File couldn't be read.
+   * @since 1.22
+   */
+  static String of(File file) throws IOException {
+    FileDigest digest = new FileDigest();
+    digest.seed(file, file.length());
+    return digest.finish();
+  }
+}
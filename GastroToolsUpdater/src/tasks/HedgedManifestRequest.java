@@ -0,0 +1,323 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import loggingtool.LoggingTool;
+
+/**
+ * Requests the Version-Manifest from the primary URL and its Mirrors as a hedged Request. The 
+ * primary URL is requested first. If it doesn't answer within the Hedge-Delay of the RetryPolicy 
+ * or fails, the next Mirror is requested as well, and so on. The first valid Manifest is taken 
+ * and all other Requests are cancelled, so a single slow Server can't delay the Check.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class HedgedManifestRequest {
+
+  /**
+   * The maximal amount of Bytes, that will be read from a Version-Manifest.
+   */
+  private static final long MAX_MANIFEST_BYTES = 65536;
+
+  /**
+   * The URLs of the Manifest, the primary URL first.
+   */
+  private final List<String> urls;
+
+  /**
+   * The Cache of the last Manifest, that is used for conditional Requests.
+   */
+  private final ManifestCache cache;
+
+  /**
+   * The RetryPolicy, that sets the Timeouts and the Hedge-Delay.
+   */
+  private final RetryPolicy policy;
+
+  /**
+   * The Scheduler, that starts the next Request after the Hedge-Delay.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * The Threads, the Requests are run on. They block on the Network, so they aren't run on the 
+   * Scheduler.
+   */
+  private final ExecutorService workers;
+
+  /**
+   * The first valid Manifest.
+   */
+  private final CompletableFuture<VersionManifest> first;
+
+  /**
+   * The amount of Requests started so far.
+   */
+  private final AtomicInteger started;
+
+  /**
+   * The amount of Requests failed so far.
+   */
+  private final AtomicInteger failed;
+
+  /**
+   * All Connections, that are still open.
+   */
+  private final List<HttpURLConnection> connections;
+
+  /**
+   * All scheduled Starts of further Requests.
+   */
+  private final List<ScheduledFuture<?>> hedges;
+
+  /**
+   * Determines, if this Request is finished. Connections opened afterwards are closed at once.
+   */
+  private boolean finished;
+
+  /**
+   * The Constructor for this Request. Sets all Fields to the given Parameters.
+
+   * @param urls  The URLs of the Manifest, the primary URL first.
+   * @param cache The Cache of the last Manifest, that is used for conditional Requests.
+   * @param policy  The RetryPolicy, that sets the Timeouts and the Hedge-Delay.
+   * @param scheduler The Scheduler, that starts the next Request after the Hedge-Delay.
+   * @since 1.22
+   */
+  HedgedManifestRequest(List<String> urls, ManifestCache cache, RetryPolicy policy, 
+      ScheduledExecutorService scheduler) {
+    this.urls = urls;
+    this.cache = cache;
+    this.policy = policy;
+    this.scheduler = scheduler;
+    this.workers = Executors.newCachedThreadPool(new NamedThreadFactory("Mirror"));
+    this.first = new CompletableFuture<VersionManifest>();
+    this.started = new AtomicInteger();
+    this.failed = new AtomicInteger();
+    this.connections = new ArrayList<HttpURLConnection>();
+    this.hedges = new ArrayList<ScheduledFuture<?>>();
+  }
+
+  /**
+   * Starts the Request and waits for the first valid Manifest, but not longer than the Timeout of 
+   * the first Check. All other Requests are cancelled afterwards.
+
+   * @return  The first valid Manifest.
+   * @throws IOException  If no URL returned a valid Manifest in time or the Thread was 
+   *     interrupted.
+   * @since 1.22
+   */
+  VersionManifest request() throws IOException {
+    startNext();
+    long timeout = policy.getCheckTimeout(0);
+    try {
+      return first.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new IOException("No Manifest received within " + timeout + " ms");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() 
+          : new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      finish();
+    }
+  }
+
+  /**
+   * Starts the Request to the next URL, that wasn't requested yet, and schedules the Start of the 
+   * following one after the Hedge-Delay.
+
+   * @since 1.22
+   */
+  private synchronized void startNext() {
+    if (finished || first.isDone()) {
+      return;
+    }
+    int i = started.getAndIncrement();
+    if (i >= urls.size()) {
+      return;
+    }
+    String url = urls.get(i);
+    if (i > 0) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Requesting Mirror " + url);
+    }
+    workers.execute(() -> {
+      try {
+        first.complete(fetch(url));
+      } catch (IOException | RuntimeException e) {
+        /*
+         * Unchecked Exceptions, e.g. a ClassCastException for a URL, that isn't HTTP, or an 
+         * IllegalArgumentException for an invalid Port, count as a failed Mirror as well, so the 
+         * last Failure always completes the Request.
+         */
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Manifest couldn't be read from " + url + ": " + e);
+        if (failed.incrementAndGet() == urls.size()) {
+          first.completeExceptionally(e);
+        } else {
+          startNext();
+        }
+      }
+    });
+    if (i + 1 < urls.size()) {
+      hedges.add(scheduler.schedule(this::startNext, policy.getHedgeDelay(), 
+          TimeUnit.MILLISECONDS));
+    }
+  }
+
+  /**
+   * Requests the Manifest from the given URL. If a Manifest was cached, the Request is 
+   * conditional and a {@code 304 Not Modified} is answered from the Cache.
+
+   * @param url The URL of the Manifest.
+   * @return  The Manifest.
+   * @throws IOException  If the Manifest couldn't be read or isn't valid.
+   * @since 1.22
+   */
+  private VersionManifest fetch(String url) throws IOException {
+    HttpURLConnection con = open(url);
+    try {
+      if (cache.isValidatable()) {
+        if (cache.getETag() != null) {
+          con.setRequestProperty("If-None-Match", cache.getETag());
+        }
+        if (cache.getLastModified() != null) {
+          con.setRequestProperty("If-Modified-Since", cache.getLastModified());
+        }
+      }
+      long sent = policy.now();
+      int code = con.getResponseCode();
+      policy.finishRoundTrip(sent);
+      if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        try {
+          VersionManifest manifest = cache.getManifest();
+          LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+              "Manifest not modified, using cached Manifest.");
+          return manifest;
+        } catch (IOException e) {
+          /*
+           * The cached Manifest is damaged. Deletes it and requests the Manifest again, this time 
+           * unconditionally.
+           */
+          LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+              "Cached Manifest damaged, requesting it again: " + e.getMessage());
+          cache.invalidate();
+          close(con);
+          con = open(url);
+          code = con.getResponseCode();
+        }
+      }
+      if (code != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Server answered " + code);
+      }
+      String body = readBody(con);
+      VersionManifest manifest = VersionManifest.parse(new BufferedReader(
+          new StringReader(body)));
+      cache.store(con.getHeaderField(ManifestCache.ETAG), 
+          con.getHeaderField(ManifestCache.LAST_MODIFIED), body);
+      return manifest;
+    } finally {
+      close(con);
+    }
+  }
+
+  /**
+   * Opens a Connection to the given URL and sets its Timeouts. If this Request is already 
+   * finished, the Connection is closed at once.
+
+   * @param url The URL to be opened.
+   * @return  The opened Connection.
+   * @throws IOException  If the Connection couldn't be opened or this Request is finished.
+   * @since 1.22
+   */
+  private HttpURLConnection open(String url) throws IOException {
+    HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+    policy.applyTimeouts(con);
+    synchronized (this) {
+      if (finished) {
+        throw new IOException("Request already finished");
+      }
+      connections.add(con);
+    }
+    return con;
+  }
+
+  /**
+   * Releases the given Connection, so its Socket can be reused. If this Request was finished in 
+   * the meantime, the Connection was already disconnected.
+
+   * @param con The Connection to be released.
+   * @see HttpConnections#release(HttpURLConnection)
+   * @since 1.22
+   */
+  private void close(HttpURLConnection con) {
+    boolean open;
+    synchronized (this) {
+      open = connections.remove(con);
+    }
+    if (open) {
+      HttpConnections.release(con);
+    }
+  }
+
+  /**
+   * Finishes this Request. Cancels all scheduled Requests and disconnects all open Connections, 
+   * so the slower Servers don't send any more Data.
+
+   * @since 1.22
+   */
+  private void finish() {
+    List<HttpURLConnection> open;
+    synchronized (this) {
+      finished = true;
+      for (ScheduledFuture<?> hedge : hedges) {
+        hedge.cancel(false);
+      }
+      open = new ArrayList<HttpURLConnection>(connections);
+      connections.clear();
+      workers.shutdownNow();
+    }
+    for (HttpURLConnection con : open) {
+      con.disconnect();
+    }
+  }
+
+  /**
+   * Reads the Body of the given Connection, but never more than MAX_MANIFEST_BYTES. The Lines of
+   * the Body are separated by Line Feeds afterwards, independent of the Server.
+
+   * @param con The Connection, the Body will be read from.
+   * @return  The Body of the Connection.
+   * @throws IOException  If the Body couldn't be read or is too big.
+   * @since 1.22
+   */
+  private static String readBody(HttpURLConnection con) throws IOException {
+    StringBuilder body = new StringBuilder();
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(
+        new BoundedInputStream(con.getInputStream(), MAX_MANIFEST_BYTES), "UTF-8"))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        body.append(line).append('\n');
+      }
+    }
+    return body.toString();
+  }
+}
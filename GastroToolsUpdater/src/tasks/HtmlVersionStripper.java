@@ -0,0 +1,162 @@
+package tasks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Extracts the Text between the Version Markers from the rendered HTML of the Version File. The
+ * HTML is read once in Chunks and every Character is only looked at once: a small State-Machine
+ * drops everything between {@code <} and {@code >} and collects the remaining Text line by line.
+ * Reading stops as soon as the End Marker was found, so the rest of the Page isn't read at all.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class HtmlVersionStripper {
+
+  /**
+   * The Marker, that is always at the start of the Version Information.
+   */
+  static final String BEGIN_MARKER = "#Begin Version File";
+
+  /**
+   * The Marker, that is always at the end of the Version Information.
+   */
+  static final String END_MARKER = "#End Version File";
+
+  /**
+   * The Size of the Chunks, the HTML is read in.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  /**
+   * The maximal Length of a Line before the Begin Marker, that will be stored.
+   */
+  private static final int MAX_SKIPPED_LINE = 1024;
+
+  /**
+   * The Reader, the HTML will be read from.
+   */
+  private final Reader reader;
+
+  /**
+   * Determines, if the Task, that uses this Stripper, was cancelled. Checked once per Chunk.
+   */
+  private final BooleanSupplier cancelled;
+
+  /**
+   * Will be run, when the Begin Marker was found.
+   */
+  private final Runnable onBegin;
+
+  /**
+   * Will be run, when the End Marker was found.
+   */
+  private final Runnable onEnd;
+
+  /**
+   * The Constructor for this Stripper. Sets all Fields to the given Parameters.
+
+   * @param reader  The Reader, the HTML will be read from.
+   * @param cancelled Determines, if the Task, that uses this Stripper, was cancelled.
+   * @param onBegin Will be run, when the Begin Marker was found.
+   * @param onEnd Will be run, when the End Marker was found.
+   * @since 1.22
+   */
+  HtmlVersionStripper(Reader reader, BooleanSupplier cancelled, Runnable onBegin,
+      Runnable onEnd) {
+    this.reader = reader;
+    this.cancelled = cancelled;
+    this.onBegin = onBegin;
+    this.onEnd = onEnd;
+  }
+
+  /**
+   * Reads the HTML until the End Marker and returns the Lines of Text between both Markers. Every
+   * Line is trimmed and empty Lines are left out.
+
+   * @return  The Lines between both Markers or {@code null}, if the Task was cancelled.
+   * @throws IOException  If the HTML couldn't be read.
+   * @since 1.22
+   */
+  List<String> strip() throws IOException {
+    /*
+     * Reads into an Array, since Reader.read(CharBuffer) allocates a new Array per Chunk in Java 8.
+     */
+    char[] chunk = new char[CHUNK_SIZE];
+    StringBuilder line = new StringBuilder();
+    List<String> text = new ArrayList<String>();
+    boolean inTag = false;
+    boolean inVersion = false;
+    int read;
+    while ((read = reader.read(chunk, 0, CHUNK_SIZE)) >= 0) {
+      if (cancelled.getAsBoolean()) {
+        return null;
+      }
+      for (int i = 0; i < read; i++) {
+        char c = chunk[i];
+        if (inTag) {
+          inTag = c != '>';
+        } else if (c == '<') {
+          inTag = true;
+        } else if (c == '\n') {
+          /*
+           * A Line of Text is complete. Checks for the Markers and stores the Line, if it's
+           * part of the Version Information.
+           */
+          if (inVersion) {
+            if (line.indexOf(END_MARKER) >= 0) {
+              onEnd.run();
+              return text;
+            }
+            appendTrimmed(text, line);
+          } else if (line.indexOf(BEGIN_MARKER) >= 0) {
+            inVersion = true;
+            onBegin.run();
+          }
+          line.setLength(0);
+        } else if (c != '\r') {
+          line.append(c);
+          /*
+           * Before the Begin Marker, only the last Characters of a Line are needed to find the
+           * Marker, so long Lines of the Page don't have to be stored completely.
+           */
+          if (!inVersion && line.length() > MAX_SKIPPED_LINE) {
+            line.delete(0, line.length() - BEGIN_MARKER.length());
+          }
+        }
+      }
+    }
+    /*
+     * The last Line might not end with a Line Break.
+     */
+    if (inVersion && line.indexOf(END_MARKER) < 0) {
+      appendTrimmed(text, line);
+    }
+    return text;
+  }
+
+  /**
+   * Adds the trimmed Line to the List of Lines, if it isn't empty.
+
+   * @param text  The List, the Line will be added to.
+   * @param line  The Line to be appended.
+   * @since 1.22
+   */
+  private static void appendTrimmed(List<String> text, StringBuilder line) {
+    int start = 0;
+    int end = line.length();
+    while (start < end && line.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && line.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (start < end) {
+      text.add(line.substring(start, end));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package tasks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import loggingtool.LoggingTool;
+
+/**
+ * Releases the HTTP-Connections of the Updater, so they can be reused. Java keeps the Socket of a
+ * Connection open for a few Seconds after its Response was closed (Keep-Alive), unless the
+ * Connection was disconnected. The next Request to the same Server reuses that Socket, so neither
+ * the DNS-Lookup nor the TCP- and TLS-Handshakes are repeated. After the Socket was closed, the
+ * cached DNS-Entry and TLS-Session still shorten the next Connection to that Server. <br>
+ * To make use of this, {@link #warmUp(String)} connects to a Server, before it's needed.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public final class HttpConnections {
+
+  /**
+   * The Timeout of a Warm-Up in ms.
+   */
+  private static final int WARM_UP_TIMEOUT = 5000;
+
+  /**
+   * This Class only contains static Methods.
+   */
+  private HttpConnections() {
+  }
+
+  /**
+   * Releases the given Connection instead of disconnecting it. Its Response is closed, so its
+   * Socket can be reused. Java reads a small Rest of the Response in the Background before, a
+   * big Rest closes the Socket instead, so a cancelled Download doesn't continue.
+
+   * @param con The Connection to be released.
+   * @since 1.22
+   */
+  static void release(HttpURLConnection con) {
+    try {
+      InputStream body = con.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST
+          ? con.getInputStream() : con.getErrorStream();
+      if (body != null) {
+        body.close();
+      }
+    } catch (IOException e) {
+      con.disconnect();
+    }
+  }
+
+  /**
+   * Connects to the Server of the given URL with a HEAD-Request and follows its Redirects, so the
+   * DNS-Entries and TLS-Sessions of all Servers are cached and their Sockets are kept alive for
+   * the following Request. Failures are only logged, since the following Request will report
+   * them.
+
+   * @param url The URL, that will be requested soon.
+   * @since 1.22
+   */
+  public static void warmUp(String url) {
+    long begin = System.currentTimeMillis();
+    try {
+      HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+      con.setRequestMethod("HEAD");
+      con.setConnectTimeout(WARM_UP_TIMEOUT);
+      con.setReadTimeout(WARM_UP_TIMEOUT);
+      int code = con.getResponseCode();
+      release(con);
+      LoggingTool.log(HttpConnections.class, LoggingTool.getLineNumber(), "Warmed up "
+          + con.getURL().getHost() + " in " + (System.currentTimeMillis() - begin)
+          + " ms, Server answered with " + code);
+    } catch (IOException e) {
+      LoggingTool.log(HttpConnections.class, LoggingTool.getLineNumber(),
+          "Warm-Up of " + url + " failed: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,347 @@
+package tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.ZipFile;
+import loggingtool.LoggingTool;
+
+/**
+ * Installs a new Version of the Launcher as a Transaction, so a Crash at any Time leaves either
+ * the old or the new Launcher behind. The Installation is done in these Steps: <br>
+ * - The new Launcher and its Version.txt are written into the Stage-Folder and synced to the
+ * Drive. Afterwards, the {@link #READY}-Marker is created, which commits the Transaction. <br>
+ * - The installed Launcher and its Version.txt are kept in the Previous-Folder for a Rollback.
+ * <br>
+ * - Both Files of the Stage-Folder replace the installed ones with an atomic Move and the
+ * Stage-Folder is removed. <br>
+ * If the Updater crashed during an Installation, {@link #recover()} finishes it with the next
+ * Start: a committed Stage is installed, an incomplete one is discarded. If the installed
+ * Launcher is missing or damaged afterwards, the previous Version is restored.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class LauncherInstaller {
+
+  /**
+   * The Name of the Folder, the new Version is staged in.
+   */
+  static final String STAGE = "stage";
+
+  /**
+   * The Name of the Folder, the previous Version is kept in.
+   */
+  static final String PREVIOUS = "previous";
+
+  /**
+   * The Name of the Marker, that shows a completely staged Version.
+   */
+  static final String READY = "READY";
+
+  /**
+   * The Name of the Version-File of the Launcher.
+   */
+  private static final String VERSION_FILE = "Version.txt";
+
+  /**
+   * The installed Launcher.
+   */
+  private final Path launcher;
+
+  /**
+   * The Version-File of the installed Launcher.
+   */
+  private final Path versionFile;
+
+  /**
+   * The Folder, the new Version is staged in.
+   */
+  private final Path stage;
+
+  /**
+   * The Folder, the previous Version is kept in.
+   */
+  private final Path previous;
+
+  /**
+   * Will be informed about every finished Step of an Installation.
+   */
+  private final Consumer<String> checkpoint;
+
+  /**
+   * The Constructor for this Installer.
+
+   * @param launcher  The installed Launcher.
+   * @since 1.22
+   */
+  public LauncherInstaller(File launcher) {
+    this(launcher, step -> { });
+  }
+
+  /**
+   * The Constructor for this Installer, that informs about every finished Step of an
+   * Installation.
+
+   * @param launcher  The installed Launcher.
+   * @param checkpoint  Will be informed about the Name of every finished Step.
+   * @since 1.22
+   */
+  LauncherInstaller(File launcher, Consumer<String> checkpoint) {
+    this.launcher = launcher.getAbsoluteFile().toPath();
+    Path folder = this.launcher.getParent();
+    this.versionFile = folder.resolve(VERSION_FILE);
+    this.stage = folder.resolve(STAGE);
+    this.previous = folder.resolve(PREVIOUS);
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * Installs the given downloaded File as the new Version of the Launcher. The downloaded File
+   * is moved into the Stage-Folder, so it doesn't exist anymore afterwards. A File, that isn't a
+   * readable Jar, is never staged and stays where it is.
+
+   * @param downloadedFile  The downloaded Launcher.
+   * @param version The Version of the downloaded Launcher.
+   * @return  {@code true}, if the new Version was installed, {@code false} if the old Version is
+   *      still installed or the Installation has to be finished by the next Recovery.
+   * @since 1.22
+   */
+  public boolean install(File downloadedFile, String version) {
+    if (!isReadable(downloadedFile.toPath())) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+          "Downloaded Launcher isn't readable, keeping the installed Version");
+      return false;
+    }
+    long begin = System.currentTimeMillis();
+    boolean committed = false;
+    try {
+      /*
+       * Stages the new Version. Until the Marker exists, the Stage is discarded by a Recovery.
+       */
+      clear(stage);
+      Files.createDirectories(stage);
+      Path stagedLauncher = stage.resolve(launcher.getFileName());
+      Files.move(downloadedFile.toPath(), stagedLauncher, StandardCopyOption.ATOMIC_MOVE);
+      sync(stagedLauncher);
+      write(stage.resolve(VERSION_FILE), version);
+      checkpoint.accept("staged");
+      write(stage.resolve(READY), version);
+      syncFolder(stage);
+      committed = true;
+      checkpoint.accept("committed");
+      /*
+       * Keeps the installed Version for a Rollback and installs the staged one.
+       */
+      keepPrevious();
+      checkpoint.accept("kept");
+      finish();
+    } catch (IOException e) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+          "Installation failed: " + e.getMessage());
+      e.printStackTrace();
+      /*
+       * A committed Installation is finished at once, an incomplete one is discarded.
+       */
+      return recover() && committed && !Files.exists(stage.resolve(READY));
+    }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Installed Version " + version
+        + " in " + (System.currentTimeMillis() - begin) + " ms");
+    return true;
+  }
+
+  /**
+   * Finishes an Installation, that was interrupted by a Crash. A committed Stage is installed, an
+   * incomplete one is discarded. If the installed Launcher is missing or damaged afterwards, the
+   * previous Version is restored. This has to be called before the Launcher is used.
+
+   * @return  {@code true}, if the Launcher is installed and readable, {@code false} if not.
+   * @since 1.22
+   */
+  public boolean recover() {
+    try {
+      if (Files.exists(stage.resolve(READY))) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+            "Finishing interrupted Installation");
+        if (Files.exists(stage.resolve(launcher.getFileName()))) {
+          keepPrevious();
+        }
+        finish();
+      } else if (Files.exists(stage)) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+            "Discarding incomplete Installation");
+        clear(stage);
+      }
+      if (!isReadable(launcher) && isReadable(previous.resolve(launcher.getFileName()))) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+            "Installed Launcher damaged, restoring previous Version");
+        restore(previous.resolve(VERSION_FILE), versionFile);
+        restore(previous.resolve(launcher.getFileName()), launcher);
+        syncFolder(launcher.getParent());
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return isReadable(launcher);
+  }
+
+  /**
+   * Moves all Files of the committed Stage to their installed Location. Files, that were already
+   * moved by an interrupted Installation, are skipped, so this can be repeated at any Time.
+
+   * @throws IOException  If a File couldn't be moved.
+   * @since 1.22
+   */
+  private void finish() throws IOException {
+    Path stagedVersion = stage.resolve(VERSION_FILE);
+    Path stagedLauncher = stage.resolve(launcher.getFileName());
+    if (Files.exists(stagedLauncher)) {
+      Files.move(stagedLauncher, launcher, StandardCopyOption.ATOMIC_MOVE);
+      checkpoint.accept("launcher");
+    }
+    if (Files.exists(stagedVersion)) {
+      Files.move(stagedVersion, versionFile, StandardCopyOption.ATOMIC_MOVE);
+      checkpoint.accept("version");
+    }
+    syncFolder(launcher.getParent());
+    clear(stage);
+    checkpoint.accept("finished");
+  }
+
+  /**
+   * Keeps the installed Launcher and its Version-File in the Previous-Folder. The Launcher is
+   * linked, if possible, so it doesn't have to be copied.
+
+   * @throws IOException  If the Files couldn't be kept.
+   * @since 1.22
+   */
+  private void keepPrevious() throws IOException {
+    if (!isReadable(launcher)) {
+      return;
+    }
+    clear(previous);
+    Files.createDirectories(previous);
+    Path previousLauncher = previous.resolve(launcher.getFileName());
+    try {
+      Files.createLink(previousLauncher, launcher);
+    } catch (IOException | UnsupportedOperationException e) {
+      Files.copy(launcher, previousLauncher);
+      sync(previousLauncher);
+    }
+    if (Files.exists(versionFile)) {
+      Files.copy(versionFile, previous.resolve(VERSION_FILE));
+      sync(previous.resolve(VERSION_FILE));
+    }
+    syncFolder(previous);
+  }
+
+  /**
+   * Copies the given kept File back to its installed Location. The Copy is moved into Place
+   * atomically, so the kept File stays available for another Recovery.
+
+   * @param kept  The File, that was kept in the Previous-Folder.
+   * @param installed The installed Location of the File.
+   * @throws IOException  If the File couldn't be restored.
+   * @since 1.22
+   */
+  private void restore(Path kept, Path installed) throws IOException {
+    if (!Files.exists(kept)) {
+      return;
+    }
+    Path copy = installed.resolveSibling(installed.getFileName() + ".restore");
+    Files.copy(kept, copy, StandardCopyOption.REPLACE_EXISTING);
+    sync(copy);
+    Files.move(copy, installed, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Writes the given Text into the given File and syncs it to the Drive.
+
+   * @param file  The File to be written.
+   * @param text  The Text, that will be written.
+   * @throws IOException  If the File couldn't be written.
+   * @since 1.22
+   */
+  private static void write(Path file, String text) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Syncs the Content of the given File to the Drive.
+
+   * @param file  The File to be synced.
+   * @throws IOException  If the File couldn't be synced.
+   * @since 1.22
+   */
+  private static void sync(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Syncs the Entries of the given Folder to the Drive, so created and moved Files survive a
+   * Crash. Not every System supports this for Folders, so it's only tried.
+
+   * @param folder  The Folder to be synced.
+   * @since 1.22
+   */
+  private static void syncFolder(Path folder) {
+    try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      /*
+       * Windows can't open Folders as a Channel. It syncs the Entries of a Folder on its own.
+       */
+    }
+  }
+
+  /**
+   * Deletes the given Folder with all Files in it.
+
+   * @param folder  The Folder to be deleted.
+   * @throws IOException  If a File couldn't be deleted.
+   * @since 1.22
+   */
+  private static void clear(Path folder) throws IOException {
+    File[] files = folder.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+    Files.deleteIfExists(folder);
+  }
+
+  /**
+   * Determines, if the given File is a readable Jar.
+
+   * @param jar The File to be checked.
+   * @return  {@code true}, if the File is a readable Jar, {@code false} if not.
+   * @since 1.22
+   */
+  static boolean isReadable(Path jar) {
+    if (!Files.isRegularFile(jar)) {
+      return false;
+    }
+    try (ZipFile zip = new ZipFile(jar.toFile())) {
+      return zip.getEntry("META-INF/MANIFEST.MF") != null;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,358 @@
+package tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import loggingtool.LoggingTool;
+
+/**
+ * Starts the installed Launcher. If enabled, the Launcher is handed off inside this JVM: it's
+ * loaded by its own URLClassLoader and its main-Method is called with the running FX-Toolkit, so
+ * neither a second JVM nor a second Toolkit has to be started. Only if the Launcher didn't show
+ * a Window, because its main-Method failed or nothing was shown in time, it's started in a
+ * separate Process, as it was done before, so it's never started twice. A Launcher, whose
+ * main-Method calls {@code Application.launch}, fails at once, since a JVM can launch only one
+ * JavaFX Application, and is always started in a separate Process. <br>
+ * The Time needed for both Modes is logged, so they can be compared.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class LauncherStarter {
+
+  /**
+   * The Manifest-Attribute, that contains the Application-Class of a packaged JavaFX Application.
+   */
+  private static final String FX_APPLICATION_CLASS = "JavaFX-Application-Class";
+
+  /**
+   * The Time in ms, the Launcher has to show a Window after its main-Method was called.
+   */
+  private static final long HAND_OFF_TIMEOUT = 10000;
+
+  /**
+   * The Interval in ms, in which the showing Windows are checked during the Hand-Off.
+   */
+  private static final long POLL_INTERVAL = 50;
+
+  /**
+   * The installed Launcher.
+   */
+  private final File launcher;
+
+  /**
+   * Determines, if the Launcher will be handed off inside this JVM.
+   */
+  private final boolean inProcess;
+
+  /**
+   * The Stage of the Updater, that will be hidden after the Hand-Off, or {@code null}, if no Stage
+   * has to be hidden.
+   */
+  private final Stage updaterStage;
+
+  /**
+   * The Constructor for this Starter. Sets all Fields to the given Parameters.
+
+   * @param launcher  The installed Launcher.
+   * @param inProcess Determines, if the Launcher will be handed off inside this JVM.
+   * @param updaterStage  The Stage of the Updater, that will be hidden after the Hand-Off, or
+   *      {@code null}, if no Stage has to be hidden.
+   * @since 1.22
+   */
+  public LauncherStarter(File launcher, boolean inProcess, Stage updaterStage) {
+    this.launcher = launcher;
+    this.inProcess = inProcess;
+    this.updaterStage = updaterStage;
+  }
+
+  /**
+   * Starts the Launcher. If it was handed off inside this JVM, the Updater mustn't exit the JVM
+   * afterwards, since the Launcher is running in it.
+
+   * @return  {@code true}, if the Launcher runs inside this JVM, {@code false}, if it was started
+   *      in a separate Process.
+   * @throws IOException  If the separate Process couldn't be started.
+   * @since 1.22
+   */
+  public boolean start() throws IOException {
+    long begin = System.currentTimeMillis();
+    if (inProcess) {
+      try {
+        startInProcess();
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Launcher handed off in "
+            + (System.currentTimeMillis() - begin) + " ms");
+        return true;
+      } catch (Exception e) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+            "Hand-Off failed and nothing was shown, starting a separate Process: " + e);
+      }
+    }
+    /*
+     * Runs the Launcher in a separate system Process in the Folder of the Launcher. If its 
+     * Class-Data-Sharing Archive exists, it's started by the Java Installation, that created it.
+     */
+    List<String> command = new ArrayList<String>();
+    List<String> options = new ClassDataSharing(launcher).getOptions();
+    command.add(options.isEmpty() ? "java" : ClassDataSharing.getJavaExecutable());
+    command.addAll(options);
+    command.add("-jar");
+    command.add(launcher.getAbsolutePath());
+    new ProcessBuilder(command).directory(launcher.getAbsoluteFile().getParentFile()).start();
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Launcher Process started in "
+        + (System.currentTimeMillis() - begin) + " ms"
+        + (options.isEmpty() ? "" : " with Class-Data-Sharing"));
+    return false;
+  }
+
+  /**
+   * Loads the Main-Class of the Launcher with its own URLClassLoader and calls its main-Method on
+   * a Thread of its own, since it might not return, until the Launcher is closed. Waits, until the
+   * Launcher shows a new Window, and hides the Updater afterwards.
+
+   * @throws Exception  If the Launcher couldn't be loaded, its main-Method failed or it didn't
+   *     show a Window within {@link #HAND_OFF_TIMEOUT} ms.
+   * @since 1.22
+   */
+  private void startInProcess() throws Exception {
+    String mainClass;
+    try (JarFile jar = new JarFile(launcher)) {
+      Manifest manifest = jar.getManifest();
+      if (manifest == null) {
+        throw new IOException("Launcher contains no Manifest");
+      }
+      Attributes attributes = manifest.getMainAttributes();
+      mainClass = attributes.getValue(Attributes.Name.MAIN_CLASS);
+      if (mainClass == null) {
+        mainClass = attributes.getValue(FX_APPLICATION_CLASS);
+      }
+    }
+    if (mainClass == null) {
+      throw new IOException("Launcher contains no Main-Class");
+    }
+    /*
+     * The ClassLoader of the Updater is the Parent, so the Launcher uses the running FX-Toolkit.
+     */
+    URLClassLoader loader = new URLClassLoader(new URL[] {launcher.toURI().toURL()},
+        getClass().getClassLoader());
+    Method main;
+    try {
+      main = Class.forName(mainClass, false, loader).getMethod("main", String[].class);
+      if (!Modifier.isStatic(main.getModifiers())) {
+        throw new NoSuchMethodException(mainClass + ".main isn't static");
+      }
+    } catch (ReflectiveOperationException e) {
+      loader.close();
+      throw e;
+    }
+    List<Window> before = onFxThread(LauncherStarter::getShowingWindows);
+    CompletableFuture<Void> ended = new CompletableFuture<Void>();
+    Thread thread = new Thread(() -> {
+      try {
+        main.invoke(null, (Object) new String[0]);
+        ended.complete(null);
+      } catch (InvocationTargetException e) {
+        ended.completeExceptionally(e.getCause());
+      } catch (IllegalAccessException | RuntimeException e) {
+        ended.completeExceptionally(e);
+      }
+    }, "Launcher");
+    thread.setContextClassLoader(loader);
+    thread.start();
+    /*
+     * The Windows are watched by another Thread, so the FX-Thread can show the Launcher, even if
+     * the Hand-Off was started on it.
+     */
+    CompletableFuture<Void> shown = new CompletableFuture<Void>();
+    new NamedThreadFactory("Hand-Off").newThread(() -> watch(before, ended, shown)).start();
+    try {
+      await(shown);
+    } catch (Exception e) {
+      /*
+       * The Loader is only closed, if the Launcher isn't running anymore.
+       */
+      if (ended.isDone()) {
+        loader.close();
+      } else {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(),
+            "Launcher showed nothing in time, but its main-Method is still running");
+      }
+      throw e;
+    }
+    if (updaterStage != null) {
+      onFxThread(() -> {
+        updaterStage.hide();
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Watches the showing Windows, until the Launcher shows a new one. The Hand-Off fails, if the
+   * main-Method of the Launcher failed and nothing was shown, or if nothing was shown within
+   * {@link #HAND_OFF_TIMEOUT} ms. A main-Method, that returns without a Window, is given the
+   * same Time, since it might show its Window later on the FX-Thread.
+
+   * @param before  The Windows, that were showing before the Launcher was started.
+   * @param ended The Result of the main-Method of the Launcher.
+   * @param shown Will be completed, if the Launcher showed a Window, and completed exceptionally,
+   *     if the Hand-Off failed.
+   * @since 1.22
+   */
+  private static void watch(List<Window> before, CompletableFuture<Void> ended,
+      CompletableFuture<Void> shown) {
+    long deadline = System.currentTimeMillis() + HAND_OFF_TIMEOUT;
+    try {
+      while (true) {
+        /*
+         * The State of the main-Method is read before the Windows, so a Window, that was shown
+         * right before it failed, is still found.
+         */
+        boolean failed = ended.isCompletedExceptionally();
+        List<Window> showing = onFxThread(LauncherStarter::getShowingWindows);
+        showing.removeAll(before);
+        if (!showing.isEmpty()) {
+          shown.complete(null);
+          return;
+        }
+        if (failed) {
+          ended.get();
+        }
+        if (System.currentTimeMillis() >= deadline) {
+          throw new TimeoutException("Launcher showed no Window within " + HAND_OFF_TIMEOUT
+              + " ms");
+        }
+        Thread.sleep(POLL_INTERVAL);
+      }
+    } catch (ExecutionException e) {
+      shown.completeExceptionally(e.getCause());
+    } catch (Exception e) {
+      shown.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Waits for the given Future. On the FX-Thread, a nested Event-Loop is entered meanwhile, so
+   * the FX-Thread keeps handling Events and can show the Launcher.
+
+   * @param future  The Future to be awaited.
+   * @throws Exception  The Exception, the Future was completed with.
+   * @since 1.22
+   */
+  private static void await(CompletableFuture<Void> future) throws Exception {
+    if (Platform.isFxApplicationThread() && !future.isDone()) {
+      Object key = new Object();
+      future.whenComplete((result, e) -> Platform.runLater(() -> {
+        try {
+          nestedEventLoop("exitNestedEventLoop", key, null);
+        } catch (ReflectiveOperationException ex) {
+          ex.printStackTrace();
+        }
+      }));
+      nestedEventLoop("enterNestedEventLoop", key);
+    }
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Runs the given Callable on the FX-Thread and returns its Result. If this is the FX-Thread
+   * already, it's run at once.
+
+   * @param <T> The Type of the Result.
+   * @param callable  The Callable to be run.
+   * @return  The Result of the Callable.
+   * @throws Exception  If the Callable failed or the FX-Thread didn't run it in time.
+   * @since 1.22
+   */
+  private static <T> T onFxThread(Callable<T> callable) throws Exception {
+    if (Platform.isFxApplicationThread()) {
+      return callable.call();
+    }
+    CompletableFuture<T> result = new CompletableFuture<T>();
+    Platform.runLater(() -> {
+      try {
+        result.complete(callable.call());
+      } catch (Exception e) {
+        result.completeExceptionally(e);
+      }
+    });
+    try {
+      return result.get(HAND_OFF_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Returns all Windows, that are showing. Has to be called on the FX-Thread. JavaFX 8 lists the
+   * Windows with {@code Window.impl_getWindows()}, later Versions with
+   * {@code Window.getWindows()}, so both are looked up reflectively.
+
+   * @return  All showing Windows.
+   * @throws ReflectiveOperationException  If neither Method exists.
+   * @since 1.22
+   */
+  private static List<Window> getShowingWindows() throws ReflectiveOperationException {
+    Object windows;
+    try {
+      windows = Window.class.getMethod("getWindows").invoke(null);
+    } catch (NoSuchMethodException e) {
+      windows = Window.class.getMethod("impl_getWindows").invoke(null);
+    }
+    Iterator<?> iterator = windows instanceof Iterable ? ((Iterable<?>) windows).iterator()
+        : (Iterator<?>) windows;
+    List<Window> showing = new ArrayList<Window>();
+    while (iterator.hasNext()) {
+      Window window = (Window) iterator.next();
+      if (window.isShowing()) {
+        showing.add(window);
+      }
+    }
+    return showing;
+  }
+
+  /**
+   * Enters or exits a nested Event-Loop of the FX-Thread. JavaFX 8 only offers this in its
+   * Toolkit, later Versions in the Platform, so both are looked up reflectively.
+
+   * @param name  The Name of the Method, {@code enterNestedEventLoop} or
+   *     {@code exitNestedEventLoop}.
+   * @param args  The Arguments of the Method.
+   * @throws ReflectiveOperationException  If neither Method exists or it failed.
+   * @since 1.22
+   */
+  private static void nestedEventLoop(String name, Object... args)
+      throws ReflectiveOperationException {
+    Class<?>[] types = new Class<?>[args.length];
+    Arrays.fill(types, Object.class);
+    try {
+      Platform.class.getMethod(name, types).invoke(null, args);
+    } catch (NoSuchMethodException e) {
+      Class<?> toolkit = Class.forName("com.sun.javafx.tk.Toolkit");
+      toolkit.getMethod(name, types).invoke(toolkit.getMethod("getToolkit").invoke(null), args);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The Cache of the last Version-Manifest, that was downloaded. It's stored next to the 
+ * Version.txt of the Launcher and contains the Body of the Manifest together with the 
+ * {@code ETag} and {@code Last-Modified} Headers of the Response. These are sent with the next 
+ * Request, so the Server can answer with {@code 304 Not Modified} and no Body, if the Manifest 
+ * didn't change. <br>
+ * The File starts with the Headers as {@code Name: Value} Lines, followed by an empty Line and the 
+ * Body of the Manifest.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class ManifestCache {
+
+  /**
+   * The Name of the ETag Header.
+   */
+  static final String ETAG = "ETag";
+
+  /**
+   * The Name of the Last-Modified Header.
+   */
+  static final String LAST_MODIFIED = "Last-Modified";
+
+  /**
+   * The File, the Cache is stored in.
+   */
+  private final File file;
+
+  /**
+   * The ETag of the cached Manifest or {@code null}, if the Server didn't send one.
+   */
+  private String etag;
+
+  /**
+   * The Last-Modified Date of the cached Manifest or {@code null}, if the Server didn't send one.
+   */
+  private String lastModified;
+
+  /**
+   * The Body of the cached Manifest or {@code null}, if nothing is cached.
+   */
+  private String body;
+
+  /**
+   * The Constructor for this Cache. Reads the cached Manifest from the given File, if it exists.
+   * A damaged Cache is treated like an empty one.
+
+   * @param file  The File, the Cache is stored in.
+   * @since 1.22
+   */
+  ManifestCache(File file) {
+    this.file = file;
+    if (!file.exists()) {
+      return;
+    }
+    try {
+      String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+      int split = content.indexOf("\n\n");
+      if (split < 0) {
+        return;
+      }
+      for (String line : content.substring(0, split).split("\n")) {
+        int colon = line.indexOf(':');
+        if (colon > 0) {
+          String name = line.substring(0, colon).trim();
+          String value = line.substring(colon + 1).trim();
+          if (name.equals(ETAG)) {
+            etag = value;
+          } else if (name.equals(LAST_MODIFIED)) {
+            lastModified = value;
+          }
+        }
+      }
+      body = content.substring(split + 2);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Returns, if a Manifest is cached, that can be validated by the Server.
+
+   * @return  {@code true}, if a Manifest with an ETag or Last-Modified Date is cached.
+   * @since 1.22
+   */
+  synchronized boolean isValidatable() {
+    return body != null && (etag != null || lastModified != null);
+  }
+
+  /**
+   * Returns the ETag of the cached Manifest.
+
+   * @return  The ETag or {@code null}, if the Server didn't send one.
+   * @since 1.22
+   */
+  synchronized String getETag() {
+    return etag;
+  }
+
+  /**
+   * Returns the Last-Modified Date of the cached Manifest.
+
+   * @return  The Last-Modified Date or {@code null}, if the Server didn't send one.
+   * @since 1.22
+   */
+  synchronized String getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Parses the cached Manifest.
+
+   * @return  The cached Manifest.
+   * @throws IOException  If nothing is cached or the cached Manifest is damaged.
+   * @since 1.22
+   */
+  synchronized VersionManifest getManifest() throws IOException {
+    if (body == null) {
+      throw new IOException("No Manifest cached");
+    }
+    return VersionManifest.parse(new BufferedReader(new StringReader(body)));
+  }
+
+  /**
+   * Stores the given Manifest together with its Headers. If the Server sent neither an ETag nor a 
+   * Last-Modified Date, the Manifest can't be validated and the Cache is deleted instead. The 
+   * File is written to a temporary File first and moved atomically afterwards, like the 
+   * DownloadJournal, so an interrupted Write never leaves a damaged Cache.
+
+   * @param etag  The ETag of the Manifest or {@code null}.
+   * @param lastModified  The Last-Modified Date of the Manifest or {@code null}.
+   * @param body  The Body of the Manifest.
+   * @since 1.22
+   */
+  synchronized void store(String etag, String lastModified, String body) {
+    if (etag == null && lastModified == null) {
+      invalidate();
+      return;
+    }
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.body = body;
+    StringBuilder content = new StringBuilder();
+    if (etag != null) {
+      content.append(ETAG).append(": ").append(etag).append('\n');
+    }
+    if (lastModified != null) {
+      content.append(LAST_MODIFIED).append(": ").append(lastModified).append('\n');
+    }
+    content.append('\n').append(body);
+    File tmp = new File(file.getPath() + ".tmp");
+    try {
+      Files.write(tmp.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      e.printStackTrace();
+      tmp.delete();
+    }
+  }
+
+  /**
+   * Deletes the Cache, so the next Request will download the Manifest unconditionally.
+
+   * @since 1.22
+   */
+  synchronized void invalidate() {
+    etag = null;
+    lastModified = null;
+    body = null;
+    file.delete();
+  }
+}
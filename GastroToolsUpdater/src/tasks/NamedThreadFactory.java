@@ -0,0 +1,43 @@
+package tasks;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ThreadFactory, that creates numbered Daemon-Threads with the given Name, so they can be 
+ * identified in Thread-Dumps and never keep the JVM from shutting down.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+  /**
+   * The Name of all Threads created by this Factory.
+   */
+  private final String name;
+
+  /**
+   * The Number of the next Thread.
+   */
+  private final AtomicInteger count;
+
+  /**
+   * The Constructor for this Factory.
+
+   * @param name  The Name of all Threads created by this Factory. The Number of the Thread will 
+   *     be appended.
+   * @since 1.22
+   */
+  public NamedThreadFactory(String name) {
+    this.name = name;
+    this.count = new AtomicInteger();
+  }
+
+  @Override
+  public Thread newThread(Runnable r) {
+    Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+    t.setDaemon(true);
+    return t;
+  }
+}
@@ -0,0 +1,374 @@
+package tasks;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.zip.InflaterInputStream;
+import loggingtool.LoggingTool;
+
+/**
+ * Builds the new Version of a File by applying a binary Patch to the installed Version. The Patch
+ * follows the Idea of bsdiff: it's a Sequence of Control-Tuples {@code (add, copy, seek)}. For
+ * each Tuple, {@code add} Bytes of the installed File are added bytewise to the next Bytes of the
+ * Patch, then {@code copy} Bytes are taken from the Patch as they are and afterwards the Position
+ * in the installed File is moved by {@code seek} Bytes. <br>
+ * In contrast to bsdiff, the Control-, Diff- and Extra-Data are interleaved and compressed as a
+ * single Deflate-Stream, so the Patch can be applied while it's downloaded, with bounded Memory.
+ * The Patch starts with an uncompressed Header: <br>
+ * - 8 Bytes Magic {@code GTPATCH1} <br>
+ * - 8 Bytes Size of the new File <br>
+ * - 32 Bytes SHA-256 of the new File <br>
+ * The installed File is read through a Window of {@link #BUFFER_SIZE} Bytes, so it's never read
+ * completely into the Heap. It isn't mapped into Memory, since a mapped File can't be replaced
+ * on Windows, until the Mapping is garbage collected.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class PatchDownloader {
+
+  /**
+   * The Magic, every Patch starts with.
+   */
+  private static final byte[] MAGIC = {'G', 'T', 'P', 'A', 'T', 'C', 'H', '1'};
+
+  /**
+   * The Size of the Buffer, that collects the Output before it's written to the new File, and of
+   * the Window into the installed File.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The URL of the Patch.
+   */
+  private final String patchUrl;
+
+  /**
+   * The installed File, the Patch will be applied to.
+   */
+  private final File installedFile;
+
+  /**
+   * The File, where the new Version will be written to.
+   */
+  private final File outputFile;
+
+  /**
+   * The Constructor for this Downloader. Sets all Fields to the given Parameters.
+
+   * @param patchUrl  The URL of the Patch.
+   * @param installedFile The installed File, the Patch will be applied to.
+   * @param outputFile  The File, where the new Version will be written to.
+   * @since 1.22
+   */
+  PatchDownloader(String patchUrl, File installedFile, File outputFile) {
+    this.patchUrl = patchUrl;
+    this.installedFile = installedFile;
+    this.outputFile = outputFile;
+  }
+
+  /**
+   * Downloads the Patch and applies it to the installed File. If no Patch was published or the
+   * Result doesn't match the SHA-256 of the Patch, the outputFile is emptied and a full Download
+   * has to be done instead.
+
+   * @param cancelled Determines, if the Download was cancelled.
+   * @param started Will be informed about the Size of the Patch, before it's applied.
+   * @param progress  Will be informed about the amount of Patch-Bytes downloaded so far.
+   * @return  {@code true}, if the new File was built and verified, {@code false} if not.
+   * @since 1.22
+   */
+  boolean download(BooleanSupplier cancelled, LongConsumer started, LongConsumer progress) {
+    HttpURLConnection con = null;
+    long begin = System.currentTimeMillis();
+    try {
+      con = (HttpURLConnection) new URI(patchUrl).toURL().openConnection();
+      if (con.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+            "No Patch found at " + patchUrl + ", Server answered " + con.getResponseCode());
+        return false;
+      }
+      long patchLength = con.getContentLengthLong();
+      started.accept(patchLength);
+      CountingInputStream counter = new CountingInputStream(con.getInputStream(), progress);
+      try (DataInputStream header = new DataInputStream(counter);
+          FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+          RandomAccessFile raf = new RandomAccessFile(installedFile, "r")) {
+        /*
+         * Reads the Header of the Patch.
+         */
+        byte[] magic = new byte[MAGIC.length];
+        header.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+          throw new IOException("Unknown Patch-Format");
+        }
+        long newLength = header.readLong();
+        byte[] expectedHash = new byte[32];
+        header.readFully(expectedHash);
+
+        /*
+         * Applies the Patch to the installed File and hashes the Output while writing it.
+         */
+        Window old = new Window(raf.getChannel(), raf.length());
+        DataInputStream patch = new DataInputStream(new BufferedInputStream(
+            new InflaterInputStream(counter), BUFFER_SIZE));
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] block = new byte[BUFFER_SIZE];
+        long oldPos = 0;
+        long newPos = 0;
+        while (newPos < newLength) {
+          if (cancelled.getAsBoolean()) {
+            discard();
+            return false;
+          }
+          long add = patch.readLong();
+          long copy = patch.readLong();
+          long seek = patch.readLong();
+          if (add < 0 || copy < 0 || newPos + add + copy > newLength) {
+            throw new IOException("Damaged Patch at " + newPos);
+          }
+          /*
+           * Adds the Diff-Bytes to the installed File. Bytes outside of the installed File count
+           * as 0.
+           */
+          for (long n = 0; n < add; n += BUFFER_SIZE) {
+            int len = (int) Math.min(BUFFER_SIZE, add - n);
+            patch.readFully(block, 0, len);
+            for (int i = 0; i < len; i++) {
+              block[i] += old.get(oldPos + n + i);
+            }
+            put(buffer, block, len, out, digest);
+          }
+          /*
+           * Copies the Extra-Bytes as they are.
+           */
+          for (long n = 0; n < copy; n += BUFFER_SIZE) {
+            int len = (int) Math.min(BUFFER_SIZE, copy - n);
+            patch.readFully(block, 0, len);
+            put(buffer, block, len, out, digest);
+          }
+          newPos += add + copy;
+          oldPos += add + seek;
+        }
+        flush(buffer, out, digest);
+
+        /*
+         * Compares the Result with the SHA-256 of the Patch.
+         */
+        if (!MessageDigest.isEqual(expectedHash, digest.digest())) {
+          LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Patched File doesn't match");
+          discard();
+          return false;
+        }
+      }
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Applied Patch of " + patchLength
+          + "B in " + (System.currentTimeMillis() - begin) + " ms");
+      return true;
+    } catch (IOException | URISyntaxException | NoSuchAlgorithmException | RuntimeException e) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Patch not possible: " + e.getMessage());
+      e.printStackTrace();
+      discard();
+      return false;
+    } finally {
+      if (con != null) {
+        HttpConnections.release(con);
+      }
+    }
+  }
+
+  /**
+   * Adds the given Bytes to the Buffer and writes the Buffer, whenever it's full.
+
+   * @param buffer  The Buffer, that collects the Output.
+   * @param bytes The Bytes to be added.
+   * @param len The amount of Bytes to be added.
+   * @param out The Channel of the new File.
+   * @param digest  The Digest of the new File.
+   * @throws IOException  If the Buffer couldn't be written.
+   * @since 1.22
+   */
+  private static void put(ByteBuffer buffer, byte[] bytes, int len, FileChannel out,
+      MessageDigest digest) throws IOException {
+    int off = 0;
+    while (off < len) {
+      int n = Math.min(buffer.remaining(), len - off);
+      buffer.put(bytes, off, n);
+      off += n;
+      if (!buffer.hasRemaining()) {
+        flush(buffer, out, digest);
+      }
+    }
+  }
+
+  /**
+   * Writes the Content of the Buffer to the new File and adds it to the Digest.
+
+   * @param buffer  The Buffer, that collects the Output.
+   * @param out The Channel of the new File.
+   * @param digest  The Digest of the new File.
+   * @throws IOException  If the Buffer couldn't be written.
+   * @since 1.22
+   */
+  private static void flush(ByteBuffer buffer, FileChannel out, MessageDigest digest)
+      throws IOException {
+    buffer.flip();
+    digest.update(buffer.array(), 0, buffer.limit());
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Empties the outputFile. It's kept as an empty File, so a later Download will resume into it
+   * and not into the installed File.
+
+   * @since 1.22
+   */
+  private void discard() {
+    try (RandomAccessFile raf = new RandomAccessFile(outputFile, "rw")) {
+      raf.setLength(0);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * A Window into the installed File. The Window is moved along with the Position in the installed
+   * File, so each Part of the File is usually read only once.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  private static class Window {
+
+    /**
+     * The Channel of the installed File.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The Length of the installed File.
+     */
+    private final long length;
+
+    /**
+     * The Buffer, that contains the Bytes of the Window.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The Position of the first Byte of the Window in the installed File or {@code -1}, if nothing
+     * was read yet.
+     */
+    private long start;
+
+    /**
+     * The Constructor for this Window.
+
+     * @param channel The Channel of the installed File.
+     * @param length  The Length of the installed File.
+     * @since 1.22
+     */
+    private Window(FileChannel channel, long length) {
+      this.channel = channel;
+      this.length = length;
+      this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      this.start = -1;
+    }
+
+    /**
+     * Returns the Byte at the given Position of the installed File. Bytes outside of the installed
+     * File count as 0.
+
+     * @param pos The Position in the installed File.
+     * @return  The Byte at this Position.
+     * @throws IOException  If the installed File couldn't be read.
+     * @since 1.22
+     */
+    private byte get(long pos) throws IOException {
+      if (pos < 0 || pos >= length) {
+        return 0;
+      }
+      if (start < 0 || pos < start || pos >= start + buffer.limit()) {
+        buffer.clear();
+        start = pos;
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+          /*
+           * Fills the Window, until the End of the installed File.
+           */
+        }
+        buffer.flip();
+      }
+      return buffer.get((int) (pos - start));
+    }
+  }
+
+  /**
+   * An InputStream, that counts the Bytes read from the Patch to show the Progress.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    /**
+     * Will be informed about the amount of Bytes read so far.
+     */
+    private final LongConsumer progress;
+
+    /**
+     * The amount of Bytes read so far.
+     */
+    private long count;
+
+    /**
+     * The Constructor for this Stream.
+
+     * @param in  The Stream to be counted.
+     * @param progress  Will be informed about the amount of Bytes read so far.
+     * @since 1.22
+     */
+    private CountingInputStream(InputStream in, LongConsumer progress) {
+      super(in);
+      this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        progress.accept(++count);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count += read;
+        progress.accept(count);
+      }
+      return read;
+    }
+  }
+}
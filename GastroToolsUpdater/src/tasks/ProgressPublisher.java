@@ -0,0 +1,136 @@
+package tasks;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Publishes the Progress of a Task to the FX-Thread at a fixed Frame-Rate. The Task stores its
+ * latest State in its own Fields and only marks it as changed here. A Sampler checks this Mark
+ * once per Frame and posts a single Runnable, that renders the latest State. All Changes between
+ * two Frames are coalesced into one Update and there is never more than one Update waiting in the
+ * Event-Queue of the FX-Thread.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class ProgressPublisher {
+
+  /**
+   * The amount of Frames per second, the Progress will be published with.
+   */
+  private static final int FRAME_RATE = 20;
+
+  /**
+   * The Runnable, that renders the latest State. Will always be run on the FX-Thread.
+   */
+  private final Runnable render;
+
+  /**
+   * Determines, if the State was changed since the last Frame.
+   */
+  private final AtomicBoolean dirty;
+
+  /**
+   * Determines, if an Update was posted to the FX-Thread, that hasn't run yet.
+   */
+  private final AtomicBoolean posted;
+
+  /**
+   * The Scheduler, the Sampler will be run on.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Posts the Updates to the FX-Thread.
+   */
+  private final Consumer<Runnable> poster;
+
+  /**
+   * The Sampler, that checks the State once per Frame. Will be scheduled with the first Change.
+   */
+  private ScheduledFuture<?> sampler;
+
+  /**
+   * Determines, if this Publisher was closed. Changes after closing will be posted directly.
+   */
+  private boolean closed;
+
+  /**
+   * The Constructor for this Publisher. Sets the Runnable, that renders the latest State.
+
+   * @param render  The Runnable, that renders the latest State on the FX-Thread.
+   * @param scheduler The Scheduler, the Sampler will be run on.
+   * @since 1.22
+   */
+  ProgressPublisher(Runnable render, ScheduledExecutorService scheduler) {
+    this(render, scheduler, Platform::runLater);
+  }
+
+  /**
+   * The Constructor for this Publisher, that posts its Updates with the given Consumer instead of
+   * {@link Platform#runLater(Runnable)}.
+
+   * @param render  The Runnable, that renders the latest State.
+   * @param scheduler The Scheduler, the Sampler will be run on.
+   * @param poster  Posts the Updates to the FX-Thread.
+   * @since 1.22
+   */
+  ProgressPublisher(Runnable render, ScheduledExecutorService scheduler, 
+      Consumer<Runnable> poster) {
+    this.render = render;
+    this.scheduler = scheduler;
+    this.poster = poster;
+    this.dirty = new AtomicBoolean();
+    this.posted = new AtomicBoolean();
+  }
+
+  /**
+   * Marks the State as changed. The Change will be rendered with the next Frame.
+
+   * @since 1.22
+   */
+  synchronized void changed() {
+    dirty.set(true);
+    if (closed) {
+      post();
+    } else if (sampler == null) {
+      sampler = scheduler.scheduleAtFixedRate(this::post, 0, 1000 / FRAME_RATE, 
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops the Sampler and renders the latest State, if it was changed since the last Frame.
+   * Later Changes will be posted directly to the FX-Thread.
+
+   * @since 1.22
+   */
+  synchronized void close() {
+    closed = true;
+    if (sampler != null) {
+      sampler.cancel(false);
+      sampler = null;
+    }
+    post();
+  }
+
+  /**
+   * Posts the Runnable to render the latest State to the FX-Thread, if the State was changed and
+   * no earlier Update is still waiting to be run.
+
+   * @since 1.22
+   */
+  private void post() {
+    if (dirty.get() && posted.compareAndSet(false, true)) {
+      dirty.set(false);
+      poster.accept(() -> {
+        posted.set(false);
+        render.run();
+      });
+    }
+  }
+}
@@ -5,14 +5,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import javafx.application.Platform;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javafx.concurrent.Task;
 import javafx.scene.control.Label;
 import loggingtool.LoggingTool;
 import settingstool.Settings;
 import settingstool.SettingsTool;
 import updater.Updater;
+import updatersettings.UpdaterSettingsTool;
 
 /**
  * The Task, that will start the CheckerTask to check for Updates. This Task will also update the 
@@ -35,14 +40,9 @@ public class ProgressTask extends Task<Void> {
   private Updater primary;
   
   /**
-   * The latest published Version of the Launcher as a String.
+   * The UpdaterSettingsTool, that will be handed to the CheckerTask.
    */
-  private String publishedVersion;
-  
-  /**
-   * All older published Versions of the Launcher as an ArrayList of Strings.
-   */
-  private ArrayList<String> olderVersions;
+  private UpdaterSettingsTool updaterSettings;
   
   /**
    * The maximal value of the ProgressIndicator.
@@ -55,10 +55,35 @@ public class ProgressTask extends Task<Void> {
   private int index;
   
   /**
-   * The amount of ms, before this Task gets a timeout. This is based on the amount of tries, 
-   * the Updater tried to reach the Server and a base 5 seconds from the beginning.
+   * The amount of tries, the User tried to reach the Server. The Timeout of each Check is 
+   * multiplied with it.
+   */
+  private int iteration;
+  
+  /**
+   * The RetryPolicy, that decides about the Timeouts and Retries of the Checks.
+   */
+  private RetryPolicy policy;
+  
+  /**
+   * The latest Value of the ProgressIndicator. Read by the {@link #publisher} once per Frame.
+   */
+  private volatile int shownValue;
+  
+  /**
+   * The latest Text of the updates-Label. Read by the {@link #publisher} once per Frame.
    */
-  private int timeout;
+  private volatile String shownText;
+  
+  /**
+   * The Publisher, that will display the latest Progress to the User at a fixed Frame-Rate.
+   */
+  private ProgressPublisher publisher;
+  
+  /**
+   * The Check, that was started with the Updater, or {@code null}, if there is none.
+   */
+  private StartupCheck startup;
   
   /**
    * The Constructor for this Task. Sets all immediately needed Fields to the given Values.
@@ -67,18 +92,54 @@ public class ProgressTask extends Task<Void> {
    * @param updates The Label, that will display update Message to the User.
    * @param iteration The current try to reach the Server.
    * @param settings  The SettingsTool to read the Settings File.
+   * @param updaterSettings The UpdaterSettingsTool to read the Settings of the Updater.
    * @since 1.0
    */
-  public ProgressTask(Updater primary, Label updates, int iteration, SettingsTool settings) {
+  public ProgressTask(Updater primary, Label updates, int iteration, SettingsTool settings, 
+      UpdaterSettingsTool updaterSettings) {
     this.updates = updates;
     this.primary = primary;
-    this.timeout = iteration * Integer.parseInt(settings.getValue(Settings.timeout));
+    this.updaterSettings = updaterSettings;
+    this.iteration = iteration;
+    this.policy = new RetryPolicy(updaterSettings, 
+        Integer.parseInt(settings.getValue(Settings.timeout)));
     max = 10;
     index = 1;
+    shownText = "";
+    publisher = new ProgressPublisher(this::showProgress, primary.getScheduler());
+  }
+  
+  /**
+   * Sets the Check, that was started with the Updater. The first Check of this Task takes its 
+   * Request of the Version-Manifest and installed Version, if they weren't taken yet.
+
+   * @param startup The Check, that was started with the Updater.
+   * @since 1.22
+   */
+  public void setStartupCheck(StartupCheck startup) {
+    this.startup = startup;
   }
   
   @Override
   protected Void call() {
+    try {
+      check();
+    } finally {
+      /*
+       * Stops publishing the Progress and shows the final State to the User, even if the Check 
+       * failed with an Exception.
+       */
+      publisher.close();
+    }
+    return null;
+  }
+  
+  /**
+   * Checks for the latest Version and decides, if an Update is needed.
+
+   * @since 1.22
+   */
+  private void check() {
     /*
      * Updates the Indicator with 1 and a Message, that the Files needed are loading. Increments 
      * index afterwards.
@@ -87,146 +148,218 @@ public class ProgressTask extends Task<Void> {
     updateIndicator(index, "Lade Dateien...");
     index++;
     /*
-     * Loads the version File. If the File doesn't exist, the following try-Block will cause an 
-     * FileNotFoundException, which will be caught and the User gets informed about this Error.
+     * Updates the Indicator with 2 and a Message, that the latest published Version is checked.
+     * Increments index afterwards.
      */
-    String versionPath = System.getProperty("user.dir").concat(File.separator + "app" 
-        + File.separator + "Version.txt");
-    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "versionFile at " + versionPath);
-    File version = new File(versionPath);
-    try {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Checking latest published version...");
+    updateIndicator(index, "Überprüfe aktuellste Version...");
+    index++;
+    /*
+     * Checks for the latest Version. Failed Checks are retried automatically after a Backoff, 
+     * with a longer Timeout each Time. Only if all Attempts failed, the User is asked to retry.
+     */
+    int checkIndex = index;
+    CompletableFuture<VersionManifest> earlyManifest = 
+        startup == null ? null : startup.takeManifest();
+    String vers = null;
+    VersionInfo info = null;
+    Throwable error = null;
+    for (int attempt = 0; info == null && attempt < RetryPolicy.MAX_ATTEMPTS; attempt++) {
+      if (attempt > 0) {
+        long backoff = policy.getBackoff(attempt);
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Check failed, retrying in " + backoff + " ms");
+        updateIndicator(checkIndex, "Erneuter Versuch (" + (attempt + 1) + "/" 
+            + RetryPolicy.MAX_ATTEMPTS + ")...");
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
       /*
-       * Updates the Indicator with 2 and a Message, that the currently installed Version is 
-       * checked. Increments index afterwards.
+       * Creates a new CheckerTask and starts it. This Task will check for the latest Version, 
+       * while the installed Version is read. If the Check doesn't finish in time, its Result is 
+       * completed with a TimeoutException and the CheckerTask is cancelled.
        */
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Checking installed Version...");
-      updateIndicator(index, "berprfe installierte Version...");
-      index++;
+      CheckerTask task = new CheckerTask(updates, this, checkIndex, updaterSettings, policy, 
+          primary.getScheduler());
+      task.setEarlyManifest(attempt == 0 ? earlyManifest : null);
+      CompletableFuture<VersionInfo> check = task.getResult();
+      long timeout = iteration * policy.getCheckTimeout(attempt);
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "starting CheckerTask, timeout is: " + timeout + " ms");
+      primary.getScheduler().execute(task);
+      ScheduledFuture<?> timer = orTimeout(check, timeout, primary.getScheduler(), task::cancel);
+      
       /*
-       * A String to store the currently installed Version.
+       * Reads the installed Version, while the first CheckerTask is running.
        */
-      String vers;
-      try {
-        /*
-         * Creates a Reader for the Version-File, reads the first Line, where the Version is 
-         * written to and closes the Reader afterwards.
-         */
-        BufferedReader br = new BufferedReader(new FileReader(version.toString()));
-        vers = br.readLine();
-        br.close();
-      } catch (FileNotFoundException e) {
-        /*
-         * If the Version-File doesn't exist, vers will be set to "" to show that the File is 
-         * missing and an Update is recommended.
-         */
-        System.err.println(LoggingTool.getTime() + ": Version File not Found!");
-        vers = "";    
+      if (vers == null) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Checking installed Version...");
+        vers = earlyManifest != null ? startup.getInstalledVersion() : readInstalledVersion();
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "installed version: " + vers);
       }
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "installed version: " + vers);
+      
       /*
-       * Updates the Indicator with 3 and a Message, that the latest published Version is checked.
-       * Increments index afterwards.
+       * Waits for the Result of the CheckerTask. The Decision is made as soon as it's completed.
        */
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-          "Checking latest published version...");
-      updateIndicator(index, "berprfe aktuellste Version...");
-      index++;
+      try {
+        info = check.get();
+      } catch (ExecutionException e) {
+        error = e.getCause();
+      } catch (InterruptedException e) {
+        error = e;
+        break;
+      } finally {
+        timer.cancel(false);
+      }
+    }
+    /*
+     * Stores the Round-Trips of all Attempts at once.
+     */
+    policy.store();
+    
+    /*
+     * If all Checks failed or had a timeout, the User will be informed. Else, the latestVersion 
+     * will be set in the primary Updater.
+     */
+    if (info == null) {
+      if (error instanceof TimeoutException) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+            "CheckerTask was cancelled due to timeout!");
+        updateLabel("Zeitüberschreitung!");
+      }
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Update failed!");
+      logDecision("Check failed");
+      primary.showUpdateFailed();
+      return;
+    }
+    String publishedVersion = info.getPublishedVersion();
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "latest published Version: " 
+        + publishedVersion);
+    primary.setLatestVersion(publishedVersion);
+    primary.setManifest(info.getManifest());
+    new CheckRecord(updaterSettings).record(publishedVersion);
+    logDecision(vers.equals(publishedVersion) ? "No Update needed" : "Update needed");
+    
+    /*
+     * If the currently installed Version is equal to the latest published Version, no update is 
+     * needed. Else, if vers is equal to "", olderVersions contains the currently installed 
+     * Version or in any other case, an Update is recommended to the User.
+     */
+    if (vers.equals(publishedVersion)) {
       /*
-       * Creates a new CheckerTask and starts it. This Task will check for the latest Version and 
-       * handles the updating-Progress.
+       * Updates the indicator with the maximum value and a Message, that no updates are needed. 
+       * Afterwards, it calls primary.startWithoutUpdate to start the Launcher.
        */
-      CheckerTask task = new CheckerTask(updates, primary, this, index);
       LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-          "starting CheckerTask, timeout is: " + timeout + " ms");
-      new Thread(task).start();
-      new Thread(() -> {
-        try {
-          Thread.sleep(timeout);  
-        } catch (InterruptedException e) {
-          //Testing Purposes, shouldn't be called.
-          e.printStackTrace();
-        }
-        task.cancel();
-      }).start();
-      
+          "No update needed, latest Version installed!");
+      updateIndicator(max, "Keine Updates nötig!");
+      primary.startWithoutUpdate();;
+    } else if (vers.equals("")) {
       /*
-       * While olderVersions is null, the CheckerTask hasn't finished yet and this Thread will wait 
-       * for it to finish.
+       * Updates the Message Label, to inform the User that no Version-File was found and an 
+       * Update is recommended to maintain stability of the Application.
        */
-      while (olderVersions == null) {
-        try {
-          Thread.sleep(50);
-        } catch (InterruptedException e) {
-          //Nothing to do.
-        }
-      }
-      
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Update needed, no valid Version file found!");
+      updateLabel("Keine Versions-Datei gefunden. Update zur nächsten Version empfohlen!");
+      primary.showUpdateNeeded();
+    } else if (info.getOlderVersions().contains(vers)) {
       /*
-       * If publishedVersion was set to FAILED, an Error occurred while trying to check for 
-       * possible updates and the User will be informed. Else, the latestVersion will be set in the 
-       * primary Updater.
+       * Updates the Message Label, to inform the User that a new Version was found and an Update 
+       * is recommended.
        */
-      if (publishedVersion.equals("FAILED")) {
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Update failed!");
-        primary.showUpdateFailed();
-        return null;
-      } else {
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "latest published Version: " 
-            + publishedVersion);
-        primary.setLatestVersion(publishedVersion);
-      }
-      
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Update needed, newer Version found!");
+      updateLabel("Neue Version gefunden!");
+      primary.showUpdateNeeded();
+    } else {
       /*
-       * If the currently installed Version is equal to the latest published Version, no update is 
-       * needed. Else, if vers is equal to "", olderVersions contains the currently installed 
-       * Version or in any other case, an Update is recommended to the User.
+       * Updates the Message Label, to inform the User that there was an Error when trying to 
+       * check for an Update and an Update is recommended to maintain stability.
        */
-      if (vers.equals(publishedVersion)) {
-        /*
-         * Updates the indicator with the maximum value and a Message, that no updates are needed. 
-         * Afterwards, it calls primary.startWithoutUpdate to start the Launcher.
-         */
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "No update needed, latest Version installed!");
-        updateIndicator(max, "Keine Updates ntig!");
-        primary.startWithoutUpdate();;
-      } else if (vers.equals("")) {
-        /*
-         * Updates the Message Label, to inform the User that no Version-File was found and an 
-         * Update is recommended to maintain stability of the Application.
-         */
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "Update needed, no valid Version file found!");
-        updateLabel("Keine Versions-Datei gefunden. Update zur nchsten Version empfohlen!");
-        primary.showUpdateNeeded();
-      } else if (olderVersions.contains(vers)) {
-        /*
-         * Updates the Message Label, to inform the User that a new Version was found and an Update 
-         * is recommended.
-         */
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "Update needed, newer Version found!");
-        updateLabel("Neue Version gefunden!");
-        primary.showUpdateNeeded();
-      } else {
-        /*
-         * Updates the Message Label, to inform the User that there was an Error when trying to 
-         * check for an Update and an Update is recommended to maintain stability.
-         */
-        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-            "Update needed, unchecked Error when updating!");
-        updateLabel("Fehler beim Update!");
-        primary.showUpdateNeeded();
-      }
-    } catch (IOException e) {
-      e.printStackTrace();
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+          "Update needed, unchecked Error when updating!");
+      updateLabel("Fehler beim Update!");
+      primary.showUpdateNeeded();
     }
     /*
      * Updates the Progress with it's maximum value and stops the Task afterwards.
      */
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "ProgressTask finished!");
+    shownValue = max;
     updateProgress(max, max);
-    return null;
+  }
+  
+  /**
+   * Logs the Time until the first Decision of the Updater, if it was started with a Check.
+
+   * @param decision  The Decision, that was made.
+   * @see StartupCheck#logDecision(String)
+   * @since 1.22
+   */
+  private void logDecision(String decision) {
+    if (startup != null) {
+      startup.logDecision(decision);
+    }
+  }
+  
+  /**
+   * Completes the given Check with a TimeoutException, if it isn't completed within the given 
+   * Timeout. Only in that Case, the given Action is run, e.g. to cancel the Task of the Check.
+
+   * @param check The Result of the Check.
+   * @param timeout The Timeout of the Check in ms.
+   * @param scheduler The Scheduler, the Timeout is scheduled on.
+   * @param onTimeout The Action, that is run after the Timeout completed the Check.
+   * @return  The scheduled Timeout, that should be cancelled, when the Check is completed.
+   * @since 1.22
+   */
+  static ScheduledFuture<?> orTimeout(CompletableFuture<?> check, long timeout, 
+      ScheduledExecutorService scheduler, Runnable onTimeout) {
+    return scheduler.schedule(() -> {
+      if (check.completeExceptionally(new TimeoutException())) {
+        onTimeout.run();
+      }
+    }, timeout, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Reads the currently installed Version from the Version File of the Launcher.
+
+   * @return  The installed Version or {@code ""}, if the Version File couldn't be read.
+   * @since 1.22
+   */
+  public static String readInstalledVersion() {
+    /*
+     * Loads the version File. If the File doesn't exist, the following try-Block will cause an 
+     * FileNotFoundException, which will be caught and an Update is recommended.
+     */
+    String versionPath = System.getProperty("user.dir").concat(File.separator + "app" 
+        + File.separator + "Version.txt");
+    LoggingTool.log(ProgressTask.class, LoggingTool.getLineNumber(), 
+        "versionFile at " + versionPath);
+    /*
+     * Creates a Reader for the Version-File, reads the first Line, where the Version is written 
+     * to and closes the Reader afterwards.
+     */
+    try (BufferedReader br = new BufferedReader(new FileReader(versionPath))) {
+      String vers = br.readLine();
+      return vers == null ? "" : vers;
+    } catch (FileNotFoundException e) {
+      /*
+       * If the Version-File doesn't exist, "" will be returned to show that the File is missing 
+       * and an Update is recommended.
+       */
+      System.err.println(LoggingTool.getTime() + ": Version File not Found!");
+      return "";
+    } catch (IOException e) {
+      e.printStackTrace();
+      return "";
+    }
   }
   
   /**
@@ -245,15 +378,11 @@ public class ProgressTask extends Task<Void> {
      */
     index = value;
     /*
-     * Displays the given Text to the User and updates the Progress with the given value.
+     * Stores the given Text and value. They will be displayed to the User with the next Frame.
      */
-    Platform.runLater(new Runnable() {
-      @Override
-      public void run() {
-        updates.setText(text);
-        updateProgress(value, max);
-      }      
-    });
+    shownText = text;
+    shownValue = value;
+    publisher.changed();
   }
   
   /**
@@ -264,33 +393,20 @@ public class ProgressTask extends Task<Void> {
    */
   private void updateLabel(String text) {
     /*
-     * Sets the Text of the updates-Label to the given text.
+     * Stores the given Text. It will be displayed to the User with the next Frame.
      */
-    Platform.runLater(new Runnable() {
-      @Override
-      public void run() {
-        updates.setText(text);
-      }      
-    });
+    shownText = text;
+    publisher.changed();
   }
   
   /**
-   * Sets the published Version String to the given String.
+   * Displays the latest Text and value to the User. This is run on the FX-Thread by the 
+   * {@link #publisher}, so all changes since the last Frame are shown at once.
 
-   * @param version The String, that will be set as publishedVersion.
-   * @since 1.0
-   */
-  protected void setPublishedVersion(String version) {
-    this.publishedVersion = version;
-  }
-  
-  /**
-   * Sets the older Version ArrayList to the given ArrayList.
-
-   * @param olderVersions All older Version found as an ArrayList of Strings.
-   * @since 1.0
+   * @since 1.22
    */
-  protected void setOlderVersions(ArrayList<String> olderVersions) {
-    this.olderVersions = olderVersions;
+  private void showProgress() {
+    updates.setText(shownText);
+    updateProgress(shownValue, max);
   }
 }
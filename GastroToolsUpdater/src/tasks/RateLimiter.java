@@ -0,0 +1,199 @@
+package tasks;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import loggingtool.LoggingTool;
+
+/**
+ * Limits the Bandwidth of a Download with a Token-Bucket. Each Chunk, that was read, takes as 
+ * many Tokens from the Bucket as it has Bytes. The Bucket is refilled with the allowed amount of 
+ * Bytes per second and holds at most the Tokens of a quarter second, so the Download can't burst 
+ * after a Pause. If the Bucket runs empty, the Download waits until it's refilled. <br>
+ * Optionally, the Limit only applies during the given Service-Hours, e.g. 
+ * {@code 11:00-14:30,17:00-23:00}. Outside of them, the Download runs at full Speed. Ranges may 
+ * span Midnight, e.g. {@code 22:00-02:00}.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class RateLimiter {
+
+  /**
+   * The Part of a second, whose Tokens the Bucket can hold at most.
+   */
+  private static final int BURST_DIVISOR = 4;
+
+  /**
+   * The Part of a second, whose Bytes a single Chunk should contain at most, so the Download is 
+   * spread evenly.
+   */
+  private static final int CHUNK_DIVISOR = 8;
+
+  /**
+   * The allowed amount of Bytes per second.
+   */
+  private final long bytesPerSecond;
+
+  /**
+   * The Service-Hours, during which the Limit applies, as Pairs of Start and End. If it's empty, 
+   * the Limit always applies.
+   */
+  private final List<LocalTime[]> serviceHours;
+
+  /**
+   * The Clock in ns, the Bucket is refilled with.
+   */
+  private final LongSupplier nanoClock;
+
+  /**
+   * The Clock, that determines the current Time of Day.
+   */
+  private final Supplier<LocalTime> timeOfDay;
+
+  /**
+   * The Tokens in the Bucket. Gets negative, if a Chunk was bigger than the Bucket.
+   */
+  private double tokens;
+
+  /**
+   * The Time of the last Refill in ns.
+   */
+  private long lastRefill;
+
+  /**
+   * The Constructor for this Limiter, that uses the System-Clocks.
+
+   * @param bytesPerSecond  The allowed amount of Bytes per second or {@code 0} for no Limit.
+   * @param serviceHours  The Service-Hours, during which the Limit applies, or an empty String, 
+   *     if it always applies.
+   * @since 1.22
+   */
+  public RateLimiter(long bytesPerSecond, String serviceHours) {
+    this(bytesPerSecond, serviceHours, System::nanoTime, LocalTime::now);
+  }
+
+  /**
+   * The Constructor for this Limiter. Sets all Fields to the given Parameters. Malformed 
+   * Service-Hours are logged and ignored.
+
+   * @param bytesPerSecond  The allowed amount of Bytes per second or {@code 0} for no Limit.
+   * @param serviceHours  The Service-Hours, during which the Limit applies, or an empty String, 
+   *     if it always applies.
+   * @param nanoClock The Clock in ns, the Bucket is refilled with.
+   * @param timeOfDay The Clock, that determines the current Time of Day.
+   * @since 1.22
+   */
+  RateLimiter(long bytesPerSecond, String serviceHours, LongSupplier nanoClock, 
+      Supplier<LocalTime> timeOfDay) {
+    this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    this.serviceHours = new ArrayList<LocalTime[]>();
+    this.nanoClock = nanoClock;
+    this.timeOfDay = timeOfDay;
+    this.lastRefill = nanoClock.getAsLong();
+    for (String range : serviceHours.split(",")) {
+      if (range.trim().isEmpty()) {
+        continue;
+      }
+      try {
+        String[] times = range.trim().split("-");
+        this.serviceHours.add(new LocalTime[] {LocalTime.parse(times[0].trim()), 
+            LocalTime.parse(times[1].trim())});
+      } catch (RuntimeException e) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+            "Ignoring malformed Service-Hours " + range);
+      }
+    }
+  }
+
+  /**
+   * Checks, if the Limit applies right now.
+
+   * @return  {@code true}, if a Limit is set and the current Time is within the Service-Hours.
+   * @since 1.22
+   */
+  boolean isLimited() {
+    if (bytesPerSecond == 0) {
+      return false;
+    }
+    if (serviceHours.isEmpty()) {
+      return true;
+    }
+    LocalTime now = timeOfDay.get();
+    for (LocalTime[] range : serviceHours) {
+      boolean within = range[0].isAfter(range[1]) 
+          ? !now.isBefore(range[0]) || now.isBefore(range[1]) 
+          : !now.isBefore(range[0]) && now.isBefore(range[1]);
+      if (within) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the maximal Size of a Chunk, so the limited Download is spread evenly.
+
+   * @param chunkSize The Size of a Chunk without a Limit.
+   * @return  The Size of a Chunk, that should be used right now.
+   * @since 1.22
+   */
+  int limitChunk(int chunkSize) {
+    if (!isLimited()) {
+      return chunkSize;
+    }
+    return (int) Math.max(1, Math.min(chunkSize, bytesPerSecond / CHUNK_DIVISOR));
+  }
+
+  /**
+   * Takes the given amount of Tokens from the Bucket and waits, until the Bucket isn't empty 
+   * anymore. Returns at once, if the Limit doesn't apply right now. If the Thread is 
+   * interrupted, this returns early and keeps the Interrupt-Flag set.
+
+   * @param bytes The amount of Bytes, that were read.
+   * @since 1.22
+   */
+  void acquire(long bytes) {
+    long wait = reserve(bytes);
+    if (wait > 0) {
+      try {
+        Thread.sleep(wait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Takes the given amount of Tokens from the Bucket without waiting. If the Limit doesn't apply 
+   * right now, the Bucket is kept full instead.
+
+   * @param bytes The amount of Bytes, that were read.
+   * @return  The Time in ms, until the Bucket isn't empty anymore, or {@code 0}, if the Download 
+   *      can continue at once.
+   * @since 1.22
+   */
+  synchronized long reserve(long bytes) {
+    refill();
+    if (!isLimited()) {
+      tokens = bytesPerSecond / BURST_DIVISOR;
+      return 0;
+    }
+    tokens -= bytes;
+    return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / bytesPerSecond);
+  }
+
+  /**
+   * Refills the Bucket with the Tokens of the Time since the last Refill.
+
+   * @since 1.22
+   */
+  private void refill() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(bytesPerSecond / BURST_DIVISOR, 
+        tokens + (now - lastRefill) * bytesPerSecond / 1e9);
+    lastRefill = now;
+  }
+}
@@ -0,0 +1,273 @@
+package tasks;
+
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import updatersettings.UpdaterSettings;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * Decides, how long a Check for Updates may take and how long to wait before it's retried. All 
+ * Timeouts adapt to an exponentially weighted moving Average of the Round-Trip-Times measured so 
+ * far, which is stored in the UpdaterSettings once per Check. As long as no Round-Trip was 
+ * measured, the Timeout of the Settings is used. <br>
+ * Retries are delayed with an exponential Backoff and full Jitter, so many Updaters don't retry 
+ * at the same Time.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class RetryPolicy {
+
+  /**
+   * The amount of automatic Tries for a single Check, before the User is asked to retry.
+   */
+  static final int MAX_ATTEMPTS = 3;
+
+  /**
+   * The Weight of a new Round-Trip in the moving Average.
+   */
+  private static final double ALPHA = 0.25;
+
+  /**
+   * The Weight of a new Deviation in the moving Average of the Deviations.
+   */
+  private static final double BETA = 0.25;
+
+  /**
+   * The amount of Deviations added to the Average to estimate the 95th Percentile of the 
+   * Round-Trip-Times. The mean absolute Deviation is about 0.8 Standard Deviations, so this is 
+   * about the Average plus 1.6 Standard Deviations.
+   */
+  private static final int P95_DEVIATIONS = 2;
+
+  /**
+   * The minimal Delay before a Mirror is requested in ms.
+   */
+  private static final long MIN_HEDGE_DELAY = 100;
+
+  /**
+   * The Backoff before the first Retry in ms. It's doubled with each further Retry.
+   */
+  private static final long BASE_BACKOFF = 500;
+
+  /**
+   * The maximal Backoff in ms.
+   */
+  private static final long MAX_BACKOFF = 8000;
+
+  /**
+   * The amount of Round-Trips, a whole Check may take.
+   */
+  private static final int CHECK_ROUND_TRIPS = 8;
+
+  /**
+   * The minimal Timeout of a Check in ms.
+   */
+  private static final long MIN_CHECK_TIMEOUT = 2000;
+
+  /**
+   * The maximal Timeout of a Check in ms.
+   */
+  private static final long MAX_CHECK_TIMEOUT = 60000;
+
+  /**
+   * The minimal Timeout to establish a Connection in ms.
+   */
+  private static final int MIN_CONNECT_TIMEOUT = 1000;
+
+  /**
+   * The minimal Timeout between two Reads of a Connection in ms.
+   */
+  private static final int MIN_READ_TIMEOUT = 2000;
+
+  /**
+   * The UpdaterSettingsTool, the moving Average is stored with.
+   */
+  private final UpdaterSettingsTool updaterSettings;
+
+  /**
+   * The Timeout of the Settings in ms, that is used, if no Round-Trip was measured yet.
+   */
+  private final long defaultTimeout;
+
+  /**
+   * The Clock, Round-Trips are measured with.
+   */
+  private final LongSupplier clock;
+
+  /**
+   * The Random, the Jitter is taken from.
+   */
+  private final Random random;
+
+  /**
+   * The moving Average of the Round-Trip-Times in ms or {@code 0}, if none was measured yet.
+   */
+  private double average;
+
+  /**
+   * The moving Average of the Deviations of the Round-Trip-Times from their Average in ms.
+   */
+  private double deviation;
+
+  /**
+   * The Constructor for this Policy. Uses the System-Clock to measure Round-Trips.
+
+   * @param updaterSettings The UpdaterSettingsTool, the moving Average is stored with.
+   * @param defaultTimeout  The Timeout of the Settings in ms.
+   * @since 1.22
+   */
+  RetryPolicy(UpdaterSettingsTool updaterSettings, long defaultTimeout) {
+    this(updaterSettings, defaultTimeout, System::currentTimeMillis, new Random());
+  }
+
+  /**
+   * The Constructor for this Policy. Sets all Fields to the given Parameters and reads the stored 
+   * moving Average.
+
+   * @param updaterSettings The UpdaterSettingsTool, the moving Average is stored with.
+   * @param defaultTimeout  The Timeout of the Settings in ms.
+   * @param clock The Clock, Round-Trips are measured with.
+   * @param random  The Random, the Jitter is taken from.
+   * @since 1.22
+   */
+  RetryPolicy(UpdaterSettingsTool updaterSettings, long defaultTimeout, LongSupplier clock, 
+      Random random) {
+    this.updaterSettings = updaterSettings;
+    this.defaultTimeout = defaultTimeout;
+    this.clock = clock;
+    this.random = random;
+    try {
+      this.average = Math.max(0, Double.parseDouble(
+          updaterSettings.getValue(UpdaterSettings.roundTripTime)));
+      this.deviation = Math.max(0, Double.parseDouble(
+          updaterSettings.getValue(UpdaterSettings.roundTripDeviation)));
+    } catch (NumberFormatException e) {
+      this.average = 0;
+      this.deviation = 0;
+    }
+  }
+
+  /**
+   * Returns the current Time of the Clock. Used to start the Measurement of a Round-Trip.
+
+   * @return  The current Time in ms.
+   * @since 1.22
+   */
+  long now() {
+    return clock.getAsLong();
+  }
+
+  /**
+   * Adds the Round-Trip, that started at the given Time and ends now, to the moving Averages. 
+   * They are only stored with {@link #store()}, since the Requests to the Mirrors finish their 
+   * Round-Trips concurrently.
+
+   * @param start The Time, the Round-Trip started at, as returned by {@link #now()}.
+   * @since 1.22
+   */
+  synchronized void finishRoundTrip(long start) {
+    long roundTrip = Math.max(1, now() - start);
+    if (average == 0) {
+      average = roundTrip;
+      deviation = roundTrip / 2.0;
+    } else {
+      deviation = BETA * Math.abs(roundTrip - average) + (1 - BETA) * deviation;
+      average = ALPHA * roundTrip + (1 - ALPHA) * average;
+    }
+  }
+
+  /**
+   * Stores the moving Averages in the UpdaterSettings. It's called once after a Check, so the 
+   * Settings File isn't rewritten with every Round-Trip.
+
+   * @since 1.22
+   */
+  void store() {
+    HashMap<UpdaterSettings, String> map = new HashMap<UpdaterSettings, String>();
+    synchronized (this) {
+      if (average == 0) {
+        return;
+      }
+      map.put(UpdaterSettings.roundTripTime, String.valueOf(Math.round(average)));
+      map.put(UpdaterSettings.roundTripDeviation, String.valueOf(Math.round(deviation)));
+    }
+    updaterSettings.setValues(map);
+  }
+
+  /**
+   * Returns the Timeout of the whole Check for the given Attempt. The Timeout doubles with each 
+   * Retry.
+
+   * @param attempt The Number of the Attempt, starting with 0.
+   * @return  The Timeout of the Check in ms.
+   * @since 1.22
+   */
+  synchronized long getCheckTimeout(int attempt) {
+    long timeout = average == 0 ? defaultTimeout 
+        : clamp(Math.round(CHECK_ROUND_TRIPS * average), MIN_CHECK_TIMEOUT, MAX_CHECK_TIMEOUT);
+    return Math.min(timeout << Math.min(attempt, 4), MAX_CHECK_TIMEOUT);
+  }
+
+  /**
+   * Returns the Delay, after which the next Mirror is requested, if no Answer arrived yet. It's 
+   * the estimated 95th Percentile of the Round-Trip-Times, so only the slowest Requests are 
+   * hedged. As long as no Round-Trip was measured, a Quarter of the Timeout of the Settings is 
+   * used.
+
+   * @return  The Hedge-Delay in ms.
+   * @since 1.22
+   */
+  synchronized long getHedgeDelay() {
+    if (average == 0) {
+      return Math.max(MIN_HEDGE_DELAY, defaultTimeout / 4);
+    }
+    return Math.max(MIN_HEDGE_DELAY, Math.round(average + P95_DEVIATIONS * deviation));
+  }
+
+  /**
+   * Returns the Backoff before the given Attempt. It's a random Time between 0 and the 
+   * exponentially growing maximal Backoff.
+
+   * @param attempt The Number of the Attempt, starting with 0.
+   * @return  The Backoff in ms, {@code 0} for the first Attempt.
+   * @since 1.22
+   */
+  long getBackoff(int attempt) {
+    if (attempt <= 0) {
+      return 0;
+    }
+    long max = Math.min(BASE_BACKOFF << Math.min(attempt - 1, 16), MAX_BACKOFF);
+    synchronized (random) {
+      return (long) (random.nextDouble() * (max + 1));
+    }
+  }
+
+  /**
+   * Sets the Connect- and Read-Timeout of the given Connection. Both are derived from the moving 
+   * Average or from the Timeout of the Settings, if no Round-Trip was measured yet.
+
+   * @param con The Connection, the Timeouts will be set for.
+   * @since 1.22
+   */
+  synchronized void applyTimeouts(URLConnection con) {
+    long base = average == 0 ? defaultTimeout : Math.round(average);
+    con.setConnectTimeout((int) clamp(3 * base, MIN_CONNECT_TIMEOUT, MAX_CHECK_TIMEOUT));
+    con.setReadTimeout((int) clamp(4 * base, MIN_READ_TIMEOUT, MAX_CHECK_TIMEOUT));
+  }
+
+  /**
+   * Limits the given Value to the given Bounds.
+
+   * @param value The Value to be limited.
+   * @param min The lower Bound.
+   * @param max The upper Bound.
+   * @return  The limited Value.
+   * @since 1.22
+   */
+  private static long clamp(long value, long min, long max) {
+    return Math.max(min, Math.min(max, value));
+  }
+}
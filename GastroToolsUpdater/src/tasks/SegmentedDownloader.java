@@ -0,0 +1,308 @@
+package tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import loggingtool.LoggingTool;
+import tasks.DownloadJournal.Range;
+
+/**
+ * Downloads a File in several Segments at once. Each Segment is a Byte-Range of the File, that is
+ * requested over its own Connection and written to its Position in a preallocated File. The
+ * Progress of every Segment is committed to the DownloadJournal, so each Segment can be resumed on
+ * its own after the Download was cancelled.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class SegmentedDownloader {
+
+  /**
+   * The URL, where the Data will be downloaded from.
+   */
+  private final String downloadUrl;
+
+  /**
+   * The File, where the downloaded Data will be stored in.
+   */
+  private final File outputFile;
+
+  /**
+   * The Journal, where the Progress of each Segment is committed to make resuming possible.
+   */
+  private final DownloadJournal journal;
+
+  /**
+   * The total Size of the File to be downloaded.
+   */
+  private final long length;
+
+  /**
+   * The amount of Segments, the File will be split into, if the Journal contains no Segments.
+   */
+  private final int segmentCount;
+
+  /**
+   * Determines, if the Download was cancelled.
+   */
+  private final BooleanSupplier cancelled;
+
+  /**
+   * Will be informed about the total amount of Bytes downloaded so far.
+   */
+  private final LongConsumer progress;
+
+  /**
+   * The RateLimiter, that limits the Bandwidth of all Segments together, or {@code null}, if the 
+   * Download isn't limited.
+   */
+  private RateLimiter limiter;
+
+  /**
+   * The total amount of Bytes, that were downloaded so far, including all Bytes, that were
+   * downloaded by earlier Instances.
+   */
+  private final AtomicLong bytesDownloaded;
+
+  /**
+   * Will be set, if the Server answered a Range-Request with the whole File.
+   */
+  private final AtomicBoolean rangesRejected;
+
+  /**
+   * All Segments of the File.
+   */
+  private List<Range> segments;
+
+  /**
+   * A Connection, that was already opened and delivers the Data from {@link #firstOffset} on.
+   * It will be used for the Segment, that starts there, instead of opening a new one.
+   */
+  private HttpURLConnection firstConnection;
+
+  /**
+   * The Position in the File, the Data of {@link #firstConnection} starts at.
+   */
+  private long firstOffset;
+
+  /**
+   * The Constructor for this Downloader. Sets all Fields to the given Parameters.
+
+   * @param downloadUrl The URL to download the File from.
+   * @param outputFile  The File, where the Data will be stored in.
+   * @param journal The Journal, where the Progress of each Segment will be committed to.
+   * @param length  The total Size of the File to be downloaded.
+   * @param segmentCount  The amount of Segments, that will be downloaded at once.
+   * @param cancelled Determines, if the Download was cancelled.
+   * @param progress  Will be informed about the total amount of Bytes downloaded so far.
+   * @since 1.22
+   */
+  SegmentedDownloader(String downloadUrl, File outputFile, DownloadJournal journal, long length,
+      int segmentCount, BooleanSupplier cancelled, LongConsumer progress) {
+    this.downloadUrl = downloadUrl;
+    this.outputFile = outputFile;
+    this.journal = journal;
+    this.length = length;
+    this.segmentCount = segmentCount;
+    this.cancelled = cancelled;
+    this.progress = progress;
+    this.bytesDownloaded = new AtomicLong();
+    this.rangesRejected = new AtomicBoolean();
+  }
+
+  /**
+   * Sets the RateLimiter, that limits the Bandwidth of all Segments together.
+
+   * @param limiter The RateLimiter or {@code null}, if the Download isn't limited.
+   * @since 1.22
+   */
+  void setRateLimiter(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  /**
+   * Loads the Segments of the Download. If the Journal contains Segments of this File, they are
+   * restored from it. Else, the Data, that already exists in the outputFile is kept and the
+   * remaining Bytes are split into {@link #segmentCount} Segments.
+
+   * @return  The amount of Bytes, that were already downloaded.
+   * @since 1.22
+   */
+  long prepare() {
+    if (!journal.isSegmented() || journal.getLength() != length) {
+      /*
+       * If the Journal contains no Segments, the existing File was downloaded in a single Stream 
+       * and was already cut to its committed Bytes.
+       */
+      long existing = Math.min(outputFile.length(), length);
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Splitting " + (length - existing) + "B into " + segmentCount + " Segments");
+      segments = new ArrayList<Range>();
+      long size = (length - existing + segmentCount - 1) / segmentCount;
+      for (long start = existing; start < length; start += size) {
+        segments.add(new Range(start, Math.min(start + size, length), start));
+      }
+      journal.startSegments(length, segments);
+    } else {
+      segments = journal.getRanges();
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Resuming " + segments.size() + " Segments from the Journal");
+    }
+    long done = length;
+    for (Range s : segments) {
+      done -= s.end - s.position;
+    }
+    bytesDownloaded.set(done);
+    return done;
+  }
+
+  /**
+   * Sets a Connection, that was already opened with a Range from the given offset to the end of
+   * the File. The Segment, that starts at this offset, will read its Data from this Connection and
+   * close it at the end of the Segment.
+
+   * @param connection  The Connection, that was already opened.
+   * @param offset  The Position in the File, the Data of the Connection starts at.
+   * @since 1.22
+   */
+  void useConnection(HttpURLConnection connection, long offset) {
+    this.firstConnection = connection;
+    this.firstOffset = offset;
+  }
+
+  /**
+   * Downloads all Segments concurrently into the preallocated outputFile. Has to be called after
+   * {@link #prepare()}.
+
+   * @return  {@code true}, if the Server supported Range-Requests, {@code false} if it answered
+   *      with the whole File and the Download has to be done in a single Stream.
+   * @throws IOException  If a Segment couldn't be downloaded or written to the File.
+   * @since 1.22
+   */
+  boolean download() throws IOException {
+    /*
+     * Preallocates the File, so each Segment can write at its own Position.
+     */
+    try (RandomAccessFile raf = new RandomAccessFile(outputFile, "rw")) {
+      if (raf.length() != length) {
+        raf.setLength(length);
+      }
+      FileChannel channel = raf.getChannel();
+      journal.checkpoint(channel);
+      ExecutorService executor = Executors.newFixedThreadPool(segments.size(), 
+          new NamedThreadFactory("Segment"));
+      try {
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        /*
+         * If no Segment starts at the offset of the opened Connection, it won't be used.
+         */
+        if (firstConnection != null 
+            && segments.stream().noneMatch(s -> s.position == firstOffset)) {
+          HttpConnections.release(firstConnection);
+        }
+        for (Range s : segments) {
+          futures.add(executor.submit(() -> {
+            downloadSegment(s, channel);
+            return null;
+          }));
+        }
+        /*
+         * Waits for all Segments to finish and rethrows the first Error, that occurred.
+         */
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+              throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+        journal.checkpoint(channel);
+      }
+    }
+    return !rangesRejected.get();
+  }
+
+  /**
+   * Downloads the given Segment from its current Position to its End and writes the Data at the
+   * matching Position into the given Channel.
+
+   * @param s The Segment to be downloaded.
+   * @param channel The Channel of the preallocated outputFile.
+   * @throws IOException  If the Connection failed or the Data couldn't be written.
+   * @throws URISyntaxException If the downloadUrl was malformed.
+   * @since 1.22
+   */
+  private void downloadSegment(Range s, FileChannel channel)
+      throws IOException, URISyntaxException {
+    if (s.position >= s.end) {
+      return;
+    }
+    HttpURLConnection con;
+    if (firstConnection != null && s.position == firstOffset) {
+      con = firstConnection;
+    } else {
+      con = (HttpURLConnection) new URI(downloadUrl).toURL().openConnection();
+      con.setRequestProperty("Range", "bytes=" + s.position + "-" + (s.end - 1));
+      if (journal.getETag() != null) {
+        con.setRequestProperty("If-Range", journal.getETag());
+      }
+    }
+    /*
+     * If the Server ignores the Range, it would send the whole File for every Segment, so the
+     * Segmented Download is stopped for all Segments.
+     */
+    if (con.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+          "Range not supported, Server answered with " + con.getResponseCode());
+      rangesRejected.set(true);
+      HttpConnections.release(con);
+      return;
+    }
+    try (ReadableByteChannel source = Channels.newChannel(con.getInputStream())) {
+      /*
+       * Transfers the Segment in Chunks and never writes beyond its End, in case the Server sends 
+       * more than requested. The Progress is committed, whenever the next Checkpoint is due.
+       */
+      TransferPipeline pipeline = new TransferPipeline(source, channel, s.end - s.position);
+      pipeline.setRateLimiter(limiter);
+      pipeline.transfer(s.position, s.end, () -> cancelled.getAsBoolean() || rangesRejected.get(),
+          bytesCount -> {
+            s.position += bytesCount;
+            progress.accept(bytesDownloaded.addAndGet(bytesCount));
+            if (journal.isDue()) {
+              journal.checkpoint(channel);
+            }
+          });
+      if (s.position < s.end) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(),
+            "Segment at " + s.start + " stopped at " + s.position);
+      }
+    } finally {
+      HttpConnections.release(con);
+    }
+  }
+}
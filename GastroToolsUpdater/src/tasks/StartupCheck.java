@@ -0,0 +1,208 @@
+package tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import loggingtool.LoggingTool;
+import settingstool.Settings;
+import settingstool.SettingsTool;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * The Part of the Start of the Updater, that doesn't need the FX-Toolkit. It's started by the
+ * Main-Method before the Toolkit is launched, so loading the Settings, finishing an interrupted
+ * Installation, reading the installed Version and requesting the Version-Manifest overlap with the
+ * Start of the Toolkit and the Construction of the Stage. The Updater only waits for a Result,
+ * when it needs it. <br>
+ * The Time from the Start of the JVM until the first Decision of the Updater is logged, so
+ * Starts can be compared.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class StartupCheck {
+
+  /**
+   * The installed Launcher.
+   */
+  private final File launcher;
+
+  /**
+   * The Scheduler, this Check and the Requests to the Mirrors are run on.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Completed, when the Settings are loaded and the installed Version was read.
+   */
+  private final CompletableFuture<Void> prepared;
+
+  /**
+   * The Result of the Request of the Version-Manifest.
+   */
+  private final CompletableFuture<VersionManifest> manifest;
+
+  /**
+   * Determines, if the Result of the Request was already taken by a Check.
+   */
+  private final AtomicBoolean manifestTaken;
+
+  /**
+   * Determines, if the first Decision was already logged.
+   */
+  private final AtomicBoolean decided;
+
+  /**
+   * The SettingsTool to read the Settings File.
+   */
+  private SettingsTool settings;
+
+  /**
+   * The UpdaterSettingsTool to read/write from/to the Settings File of the Updater.
+   */
+  private UpdaterSettingsTool updaterSettings;
+
+  /**
+   * The installed Version, that was read after the Recovery of the Launcher.
+   */
+  private String installedVersion;
+
+  /**
+   * The Start of the JVM in ms since the Epoch.
+   */
+  private volatile long jvmStart;
+
+  /**
+   * The Constructor for this Check.
+
+   * @param launcher  The installed Launcher.
+   * @param scheduler The Scheduler, this Check and the Requests to the Mirrors are run on.
+   * @since 1.22
+   */
+  public StartupCheck(File launcher, ScheduledExecutorService scheduler) {
+    this.launcher = launcher;
+    this.scheduler = scheduler;
+    this.prepared = new CompletableFuture<Void>();
+    this.manifest = new CompletableFuture<VersionManifest>();
+    this.manifestTaken = new AtomicBoolean();
+    this.decided = new AtomicBoolean();
+    this.jvmStart = System.currentTimeMillis();
+  }
+
+  /**
+   * Starts this Check on the Scheduler. Returns immediately.
+
+   * @return  This Check.
+   * @since 1.22
+   */
+  public StartupCheck start() {
+    scheduler.execute(this::run);
+    return this;
+  }
+
+  /**
+   * Loads the Settings, finishes an interrupted Installation and reads the installed Version.
+   * Afterwards, the Version-Manifest is requested.
+
+   * @since 1.22
+   */
+  private void run() {
+    try {
+      jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+      settings = new SettingsTool();
+      updaterSettings = new UpdaterSettingsTool();
+      /*
+       * Finishes or rolls back an Installation, that was interrupted by a Crash, before the
+       * installed Version is read.
+       */
+      new LauncherInstaller(launcher).recover();
+      installedVersion = ProgressTask.readInstalledVersion();
+      prepared.complete(null);
+    } catch (RuntimeException e) {
+      prepared.completeExceptionally(e);
+      manifest.completeExceptionally(e);
+      return;
+    }
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Settings loaded "
+        + (System.currentTimeMillis() - jvmStart) + " ms after the Start of the JVM");
+    RetryPolicy policy = null;
+    try {
+      policy = new RetryPolicy(updaterSettings, 
+          Integer.parseInt(settings.getValue(Settings.timeout)));
+      manifest.complete(new HedgedManifestRequest(CheckerTask.getManifestUrls(updaterSettings),
+          new ManifestCache(CheckerTask.getManifestCacheFile()), policy, scheduler).request());
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Manifest read "
+          + (System.currentTimeMillis() - jvmStart) + " ms after the Start of the JVM");
+    } catch (IOException | RuntimeException e) {
+      manifest.completeExceptionally(e);
+    }
+    /*
+     * Stores the Round-Trips of the Request at once.
+     */
+    if (policy != null) {
+      policy.store();
+    }
+  }
+
+  /**
+   * Returns the SettingsTool. Waits, until the Settings are loaded.
+
+   * @return  The SettingsTool to read the Settings File.
+   * @since 1.22
+   */
+  public SettingsTool getSettings() {
+    prepared.join();
+    return settings;
+  }
+
+  /**
+   * Returns the UpdaterSettingsTool. Waits, until the Settings are loaded.
+
+   * @return  The UpdaterSettingsTool to read/write from/to the Settings File of the Updater.
+   * @since 1.22
+   */
+  public UpdaterSettingsTool getUpdaterSettings() {
+    prepared.join();
+    return updaterSettings;
+  }
+
+  /**
+   * Returns the installed Version. Waits, until it was read.
+
+   * @return  The installed Version or {@code ""}, if the Version File couldn't be read.
+   * @since 1.22
+   */
+  public String getInstalledVersion() {
+    prepared.join();
+    return installedVersion;
+  }
+
+  /**
+   * Returns the Request of the Version-Manifest, that was started with this Check. It can only be
+   * taken once, since every later Check has to request the Manifest again.
+
+   * @return  The Request of the Version-Manifest or {@code null}, if it was already taken.
+   * @since 1.22
+   */
+  public CompletableFuture<VersionManifest> takeManifest() {
+    return manifestTaken.compareAndSet(false, true) ? manifest : null;
+  }
+
+  /**
+   * Logs the Time from the Start of the JVM until the first Decision of the Updater. Every later
+   * Decision isn't logged.
+
+   * @param decision  The Decision, that was made.
+   * @since 1.22
+   */
+  public void logDecision(String decision) {
+    if (decided.compareAndSet(false, true)) {
+      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "First Decision after "
+          + (System.currentTimeMillis() - jvmStart) + " ms since the Start of the JVM: "
+          + decision);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package tasks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Copies Data from a Channel into a File in Chunks. Each Chunk is collected in a direct Buffer,
+ * that is allocated once and reused for the whole Transfer, and written at its Position in the
+ * File with a single positional Write. Cancellation and Progress are only checked once per Chunk.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class TransferPipeline {
+
+  /**
+   * The smallest Chunk, that will be used for a Transfer.
+   */
+  private static final int MIN_CHUNK = 16384;
+
+  /**
+   * The biggest Chunk, that will be used for a Transfer. This keeps the Progress shown to the User
+   * alive even on slow Connections.
+   */
+  private static final int MAX_CHUNK = 262144;
+
+  /**
+   * The Channel, the Data will be read from.
+   */
+  private final ReadableByteChannel source;
+
+  /**
+   * The Channel of the File, the Data will be written to.
+   */
+  private final FileChannel target;
+
+  /**
+   * The Buffer, that collects the Data of a single Chunk.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The RateLimiter, that limits the Bandwidth of the Transfer, or {@code null}, if it isn't 
+   * limited.
+   */
+  private RateLimiter limiter;
+
+  /**
+   * The Digest, every written Chunk is added to, or {@code null}, if the Transfer isn't hashed.
+   */
+  private FileDigest digest;
+
+  /**
+   * The Constructor for this Pipeline. Allocates the Buffer, that will be reused for all Chunks.
+
+   * @param source  The Channel, the Data will be read from.
+   * @param target  The Channel of the File, the Data will be written to.
+   * @param contentLength The Length of the Data to be transferred or {@code -1}, if it's unknown.
+   *      This is used to determine the Size of a Chunk.
+   * @since 1.22
+   */
+  TransferPipeline(ReadableByteChannel source, FileChannel target, long contentLength) {
+    this.source = source;
+    this.target = target;
+    this.buffer = ByteBuffer.allocateDirect(chunkSize(contentLength));
+  }
+
+  /**
+   * Sets the RateLimiter, that limits the Bandwidth of the Transfer. Each Chunk is taken from the 
+   * RateLimiter after it was read.
+
+   * @param limiter The RateLimiter or {@code null}, if the Transfer isn't limited.
+   * @since 1.22
+   */
+  void setRateLimiter(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  /**
+   * Sets the Digest, every written Chunk will be added to. This way, the Data is hashed while
+   * it's still in the Buffer and doesn't have to be read again from the File.
+
+   * @param digest  The Digest, that contains all Bytes of the File before the Position of the
+   *      Transfer, or {@code null}, if the Transfer isn't hashed.
+   * @since 1.22
+   */
+  void setDigest(FileDigest digest) {
+    this.digest = digest;
+  }
+
+  /**
+   * Calculates the Size of a Chunk for the given Length. Bigger Downloads use bigger Chunks, so
+   * the amount of Writes and Progress-Updates stays roughly the same for each Download.
+
+   * @param contentLength The Length of the Data to be transferred or {@code -1}, if it's unknown.
+   * @return  The Size of a Chunk in Bytes.
+   * @since 1.22
+   */
+  static int chunkSize(long contentLength) {
+    if (contentLength <= 0) {
+      return MIN_CHUNK;
+    }
+    return (int) Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, contentLength / 128));
+  }
+
+  /**
+   * Transfers the Data from the source to the target, starting at the given Position in the File.
+
+   * @param position  The Position in the File, where the first Byte will be written to.
+   * @param limit The Position in the File, where the Transfer stops, even if the source has more
+   *      Data.
+   * @param cancelled Determines, if the Transfer was cancelled. Checked once per Chunk.
+   * @param progress  Will be informed about the amount of Bytes written with each Chunk.
+   * @return  The Position in the File after the last written Byte.
+   * @throws IOException  If the Data couldn't be read from the source or written to the target.
+   * @since 1.22
+   */
+  long transfer(long position, long limit, BooleanSupplier cancelled, LongConsumer progress)
+      throws IOException {
+    boolean endOfStream = false;
+    while (!endOfStream && position < limit && !cancelled.getAsBoolean()) {
+      /*
+       * Fills the Buffer with the next Chunk, but never beyond the limit.
+       */
+      buffer.clear();
+      int capacity = limiter == null ? buffer.capacity() : limiter.limitChunk(buffer.capacity());
+      buffer.limit((int) Math.min(capacity, limit - position));
+      while (buffer.hasRemaining()) {
+        if (source.read(buffer) < 0) {
+          endOfStream = true;
+          break;
+        }
+      }
+      buffer.flip();
+      int chunk = buffer.remaining();
+      /*
+       * Writes the whole Chunk at its Position in the File.
+       */
+      while (buffer.hasRemaining()) {
+        position += target.write(buffer, position);
+      }
+      if (digest != null) {
+        buffer.rewind();
+        digest.update(buffer);
+      }
+      if (chunk > 0) {
+        progress.accept(chunk);
+        if (limiter != null) {
+          limiter.acquire(chunk);
+        }
+      }
+    }
+    return position;
+  }
+}
@@ -0,0 +1,73 @@
+package tasks;
+
+import java.util.ArrayList;
+
+/**
+ * The Result of a CheckerTask. Contains the latest published Version, all older published 
+ * Versions and the Version-Manifest, if it could be read.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class VersionInfo {
+
+  /**
+   * The latest published Version of the Launcher.
+   */
+  private final String publishedVersion;
+
+  /**
+   * All older published Versions of the Launcher.
+   */
+  private final ArrayList<String> olderVersions;
+
+  /**
+   * The Version-Manifest or {@code null}, if only the Version File could be read.
+   */
+  private final VersionManifest manifest;
+
+  /**
+   * The Constructor for this Result. Sets all Fields to the given Parameters.
+
+   * @param publishedVersion  The latest published Version of the Launcher.
+   * @param olderVersions All older published Versions of the Launcher.
+   * @param manifest  The Version-Manifest or {@code null}, if only the Version File could be read.
+   * @since 1.22
+   */
+  VersionInfo(String publishedVersion, ArrayList<String> olderVersions, 
+      VersionManifest manifest) {
+    this.publishedVersion = publishedVersion;
+    this.olderVersions = olderVersions;
+    this.manifest = manifest;
+  }
+
+  /**
+   * Returns the latest published Version of the Launcher.
+
+   * @return  The latest published Version.
+   * @since 1.22
+   */
+  String getPublishedVersion() {
+    return publishedVersion;
+  }
+
+  /**
+   * Returns all older published Versions of the Launcher.
+
+   * @return  All older published Versions as an ArrayList of Strings.
+   * @since 1.22
+   */
+  ArrayList<String> getOlderVersions() {
+    return olderVersions;
+  }
+
+  /**
+   * Returns the Version-Manifest.
+
+   * @return  The Version-Manifest or {@code null}, if only the Version File could be read.
+   * @since 1.22
+   */
+  VersionManifest getManifest() {
+    return manifest;
+  }
+}
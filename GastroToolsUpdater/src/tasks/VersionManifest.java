@@ -0,0 +1,206 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compact Version-Manifest of the Launcher. It's a plain Text-File with one
+ * {@code key=value} Pair per Line. Empty Lines and Lines starting with {@code #} are ignored.
+ * The following Keys are known: <br>
+ * - {@code current}: The latest published Version. <br>
+ * - {@code older}: All older published Versions, separated by Commas. <br>
+ * - {@code <artifact>.size}: The Size of the Artifact in Bytes, e.g. {@code Launcher.jar.size}.
+ * <br>
+ * - {@code <artifact>.sha256}: The SHA-256 of the Artifact as a hex String. <br>
+ * - {@code <artifact>.url}: The URL, the Artifact can be downloaded from. <br>
+ * Unknown Keys are ignored, so the Format can be extended without breaking older Updaters.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class VersionManifest {
+
+  /**
+   * The latest published Version.
+   */
+  private String currentVersion;
+
+  /**
+   * All older published Versions.
+   */
+  private ArrayList<String> olderVersions;
+
+  /**
+   * All Artifacts of the latest Version, stored by their Name.
+   */
+  private Map<String, Artifact> artifacts;
+
+  /**
+   * The Constructor for a Manifest. Creates an empty Manifest.
+
+   * @since 1.22
+   */
+  private VersionManifest() {
+    this.olderVersions = new ArrayList<String>();
+    this.artifacts = new HashMap<String, Artifact>();
+  }
+
+  /**
+   * Parses a Manifest from the given Reader.
+
+   * @param br  The Reader, the Manifest will be read from.
+   * @return  The parsed Manifest.
+   * @throws IOException  If the Reader failed or the Manifest contains no current Version.
+   * @since 1.22
+   */
+  public static VersionManifest parse(BufferedReader br) throws IOException {
+    VersionManifest manifest = new VersionManifest();
+    String line;
+    while ((line = br.readLine()) != null) {
+      line = line.trim();
+      int split = line.indexOf('=');
+      if (line.isEmpty() || line.charAt(0) == '#' || split < 0) {
+        continue;
+      }
+      String key = line.substring(0, split).trim();
+      String value = line.substring(split + 1).trim();
+      if (key.equals("current")) {
+        manifest.currentVersion = value;
+      } else if (key.equals("older")) {
+        for (String version : value.split(",")) {
+          if (!version.trim().isEmpty()) {
+            manifest.olderVersions.add(version.trim());
+          }
+        }
+      } else {
+        /*
+         * Artifact-Keys end with the Property, everything before the last '.' is the Name.
+         */
+        int property = key.lastIndexOf('.');
+        if (property > 0) {
+          String name = key.substring(0, property);
+          Artifact artifact = manifest.artifacts.get(name);
+          if (artifact == null) {
+            artifact = new Artifact();
+            manifest.artifacts.put(name, artifact);
+          }
+          artifact.set(key.substring(property + 1), value);
+        }
+      }
+    }
+    if (manifest.currentVersion == null || manifest.currentVersion.isEmpty()) {
+      throw new IOException("Manifest contains no current Version");
+    }
+    return manifest;
+  }
+
+  /**
+   * Returns the latest published Version.
+
+   * @return  The latest published Version.
+   * @since 1.22
+   */
+  public String getCurrentVersion() {
+    return currentVersion;
+  }
+
+  /**
+   * Returns all older published Versions.
+
+   * @return  All older published Versions as an ArrayList of Strings.
+   * @since 1.22
+   */
+  public ArrayList<String> getOlderVersions() {
+    return olderVersions;
+  }
+
+  /**
+   * Returns the Artifact with the given Name.
+
+   * @param name  The Name of the Artifact, e.g. {@code Launcher.jar}.
+   * @return  The Artifact or {@code null}, if the Manifest doesn't contain it.
+   * @since 1.22
+   */
+  public Artifact getArtifact(String name) {
+    return artifacts.get(name);
+  }
+
+  /**
+   * A single downloadable File of the latest Version.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  public static class Artifact {
+
+    /**
+     * The Size of the Artifact in Bytes or {@code -1}, if it's unknown.
+     */
+    private long size = -1;
+
+    /**
+     * The SHA-256 of the Artifact as a lower case hex String or {@code null}, if it's unknown.
+     */
+    private String sha256;
+
+    /**
+     * The URL of the Artifact or {@code null}, if it's unknown.
+     */
+    private String url;
+
+    /**
+     * Sets the given Property to the given Value. Unknown Properties are ignored.
+
+     * @param property  The Name of the Property.
+     * @param value The Value of the Property.
+     * @throws IOException  If the Size is no Number.
+     * @since 1.22
+     */
+    private void set(String property, String value) throws IOException {
+      if (property.equals("size")) {
+        try {
+          size = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+          throw new IOException("Invalid Size " + value);
+        }
+      } else if (property.equals("sha256")) {
+        sha256 = value.toLowerCase();
+      } else if (property.equals("url")) {
+        url = value;
+      }
+    }
+
+    /**
+     * Returns the Size of the Artifact.
+
+     * @return  The Size of the Artifact in Bytes or {@code -1}, if it's unknown.
+     * @since 1.22
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * Returns the SHA-256 of the Artifact.
+
+     * @return  The SHA-256 as a lower case hex String or {@code null}, if it's unknown.
+     * @since 1.22
+     */
+    public String getSha256() {
+      return sha256;
+    }
+
+    /**
+     * Returns the URL of the Artifact.
+
+     * @return  The URL of the Artifact or {@code null}, if it's unknown.
+     * @since 1.22
+     */
+    public String getUrl() {
+      return url;
+    }
+  }
+}
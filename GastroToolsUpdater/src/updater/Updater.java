@@ -3,8 +3,11 @@ package updater;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.URISyntaxException;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -29,8 +32,19 @@ import javafx.stage.WindowEvent;
 import loggingtool.LoggingTool;
 import settingstool.Settings;
 import settingstool.SettingsTool;
+import tasks.AsyncLogStream;
+import tasks.CheckRecord;
+import tasks.ClassDataSharing;
 import tasks.DownloadTask;
+import tasks.HttpConnections;
+import tasks.LauncherStarter;
+import tasks.NamedThreadFactory;
 import tasks.ProgressTask;
+import tasks.RateLimiter;
+import tasks.StartupCheck;
+import tasks.VersionManifest;
+import updatersettings.UpdaterSettings;
+import updatersettings.UpdaterSettingsTool;
 
 /**
  * The Updater MainClass. Here, the Frame will be configured and all other Tasks will be started 
@@ -46,6 +60,11 @@ public class Updater extends Application {
    */
   public static final String version = "1.21";
   
+  /**
+   * The amount of Threads of the {@link #scheduler}.
+   */
+  private static final int SCHEDULER_THREADS = 5;
+  
   /**
    * The primary Stage, this Application is running on.
    */
@@ -76,6 +95,11 @@ public class Updater extends Application {
    */
   private String latestVersion;
   
+  /**
+   * The Version-Manifest of the latest published Version or {@code null}, if it couldn't be read.
+   */
+  private VersionManifest manifest;
+  
   /**
    * The number of the Try to connect to the Server. This increases after each failed try 
    * and the following retry to increase the timeout time.
@@ -87,24 +111,94 @@ public class Updater extends Application {
    */
   private SettingsTool settings;
   
+  /**
+   * The UpdaterSettingsTool to read/write from/to the Settings File of the Updater.
+   */
+  private UpdaterSettingsTool updaterSettings;
+  
+  /**
+   * The Scheduler, all Tasks and Timeouts of this Updater are run on. Its Threads are Daemons, so 
+   * they never keep the Application from exiting. It's created by the Main-Method, before the 
+   * FX-Toolkit is launched.
+   */
+  private static ScheduledThreadPoolExecutor scheduler;
+  
+  /**
+   * The Check, that was started by the Main-Method in parallel to the Launch of the FX-Toolkit.
+   */
+  private static StartupCheck startup;
+  
+  /**
+   * Determines, if the Launcher was handed off inside this JVM. In that Case, the Updater mustn't 
+   * exit the JVM, since the Launcher is running in it. It's set on the FX-Thread and read by 
+   * the Scheduler after the Prefetch, so it's volatile.
+   */
+  private volatile boolean handedOff;
+  
   @Override
   public void start(Stage primaryStage) throws Exception {
-    settings = new SettingsTool();
+    /*
+     * If the Updater wasn't started by its Main-Method, the StartupCheck is started now.
+     */
+    if (startup == null) {
+      startStartupCheck();
+    }
     /*
      * Makes the Window that will display this Scene undecorated, so there is no OS-Border. 
      * Also adds the Icon of this Application, so it can be displayed in the Task Bar instead of 
-     * the default Java Icon.
+     * the default Java Icon. The Icon is loaded in the Background.
      */
     primaryStage.initStyle(StageStyle.UNDECORATED);
-    primaryStage.getIcons().add(new Image("/res/GTIcon.png"));
+    primaryStage.getIcons().add(new Image("/res/GTIcon.png", true));
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
         "Version used: " + version);
     /*
-     * Sets all immediately needed Fields to their default values.
+     * Sets all immediately needed Fields to their default values. The Settings were loaded by 
+     * the StartupCheck, which also finished or rolled back an Installation, that was interrupted 
+     * by a Crash.
      */
-    file = new File(System.getProperty("user.dir") + "/app/Launcher.jar");
+    file = getLauncherFile();
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
         "Set new File to " + file.getAbsolutePath());
+    settings = startup.getSettings();
+    updaterSettings = startup.getUpdaterSettings();
+    /*
+     * If a new Version was prefetched by an earlier Start, it's installed and started at once.
+     */
+    if (DownloadTask.installStaged(file)) {
+      startup.logDecision("Prefetched Version installed");
+      startWithoutUpdate();
+      return;
+    }
+    /*
+     * If the last Check was done recently and found the installed Version, the Launcher is started 
+     * at once without showing the Updater. The Record is refreshed in the Background afterwards, 
+     * so the next Start knows about new Versions, and the Updater exits. If a new Version was 
+     * found, it's prefetched before exiting.
+     */
+    String installedVersion = startup.getInstalledVersion();
+    CheckRecord record = new CheckRecord(updaterSettings);
+    if (record.isFresh(installedVersion)) {
+      try {
+        startup.logDecision("Launcher started without Check");
+        startLauncher();
+        scheduler.execute(() -> {
+          try {
+            manifest = record.refresh(startup.takeManifest());
+            if (manifest != null && !manifest.getCurrentVersion().equals(installedVersion)) {
+              latestVersion = manifest.getCurrentVersion();
+              prefetch();
+            }
+            refreshArchives();
+          } finally {
+            exit();
+          }
+        });
+        return;
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
     this.primary = primaryStage;
     this.bp = new BorderPane();
     this.pi = new ProgressIndicator();
@@ -150,11 +244,13 @@ public class Updater extends Application {
     /*
      * Creates a new ProgressTask, binds the Indicator to it and starts it afterwards.
      */
-    ProgressTask pt = new ProgressTask(this, this.updaterLabel, iteration, settings);
+    ProgressTask pt = new ProgressTask(this, this.updaterLabel, iteration, settings, 
+        updaterSettings);
+    pt.setStartupCheck(startup);
     this.pi.progressProperty().bind(pt.progressProperty());
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
         "Starting UpdateTask");
-    new Thread(pt).start();
+    scheduler.execute(pt);
   }
   
   /**
@@ -311,6 +407,12 @@ public class Updater extends Application {
    */
   public void showUpdateNeeded() {
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Update needed!");
+    /*
+     * Connects to the Server of the Download, while the User decides, so the Download reuses the 
+     * Connection or at least the cached DNS-Entry and TLS-Session.
+     */
+    String downloadUrl = getDownloadUrl();
+    scheduler.execute(() -> HttpConnections.warmUp(downloadUrl));
     /*
      * Since all following instructions alter the Stage of the Application, this has to be done via 
      * a new Runnable.
@@ -357,9 +459,10 @@ public class Updater extends Application {
           @Override
           public void handle(ActionEvent ae) {
             /*
-             * Simply starts the Application without updating via the designated Method.
+             * Starts the Application without updating via the designated Method. The new Version 
+             * is downloaded in the Background meanwhile.
              */
-            startWithoutUpdate();
+            startWithPrefetch();
           }
         });
         grid.add(btStart, 1, 1);
@@ -419,13 +522,17 @@ public class Updater extends Application {
     /*
      * Creates the DownloadTask with the needed Parameters.
      */
+    String downloadUrl = getDownloadUrl();
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
-        "Creating new DownloadTask to download from: " 
-        + "https://github.com/Haeldeus/GastroToolsLauncher/releases/download/v" + latestVersion 
-        + "/Launcher.jar");
-    DownloadTask task = 
-        new DownloadTask("https://github.com/Haeldeus/GastroToolsLauncher/releases/download/v" 
-        + latestVersion + "/Launcher.jar", file, updates, length, latestVersion);
+        "Creating new DownloadTask to download from: " + downloadUrl);
+    DownloadTask task = new DownloadTask(downloadUrl, file, updates, length, latestVersion, 
+        scheduler);
+    task.setRateLimiter(createRateLimiter(UpdaterSettings.downloadRate, 
+        updaterSettings.getValue(UpdaterSettings.serviceHours)));
+    task.setExpectedHash(getExpectedHash());
+    task.setLauncherStarter(createLauncherStarter());
+    task.setClassDataSharing(
+        Boolean.parseBoolean(updaterSettings.getValue(UpdaterSettings.classDataSharing)));
     
     /*
      * Creates a new ProgressBar, that will display the progress of the Download/Update to the User 
@@ -446,7 +553,7 @@ public class Updater extends Application {
      * Starts the DownloadTask.
      */
     LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Starting DownloadTask");
-    new Thread(task).start();
+    scheduler.execute(task);
     /*
      * Adds a new EventHandler to the onCloseRequest to cancel the Update, when the User closes the 
      * Application.
@@ -463,6 +570,155 @@ public class Updater extends Application {
     bp.setCenter(grid);
   }
   
+  /**
+   * Returns the URL of the latest Launcher. If the Version-Manifest contains a URL for the 
+   * Launcher, it's used instead of the default Release-URL.
+
+   * @return  The URL of the latest Launcher.
+   * @since 1.22
+   */
+  private String getDownloadUrl() {
+    if (manifest != null && manifest.getArtifact("Launcher.jar") != null 
+        && manifest.getArtifact("Launcher.jar").getUrl() != null) {
+      return manifest.getArtifact("Launcher.jar").getUrl();
+    }
+    return "https://github.com/Haeldeus/GastroToolsLauncher/releases/download/v" 
+        + latestVersion + "/Launcher.jar";
+  }
+  
+  /**
+   * Returns the SHA-256 of the latest Launcher, as published in the Version-Manifest.
+
+   * @return  The SHA-256 of the latest Launcher or {@code null}, if it's unknown.
+   * @since 1.22
+   */
+  private String getExpectedHash() {
+    if (manifest != null && manifest.getArtifact("Launcher.jar") != null) {
+      return manifest.getArtifact("Launcher.jar").getSha256();
+    }
+    return null;
+  }
+  
+  /**
+   * Starts the installed Launcher without updating it, although a new Version was found. If 
+   * enabled in the UpdaterSettings, the new Version is downloaded in the Background meanwhile and 
+   * installed with the next Start. The Updater exits afterwards.
+
+   * @since 1.22
+   */
+  private void startWithPrefetch() {
+    if (!Boolean.parseBoolean(updaterSettings.getValue(UpdaterSettings.prefetch)) 
+        || !file.exists() || latestVersion == null) {
+      startWithoutUpdate();
+      return;
+    }
+    try {
+      startLauncher();
+    } catch (IOException e) {
+      e.printStackTrace();
+      return;
+    }
+    /*
+     * Hides the Updater. If the Launcher runs in a separate Process, the FX-Toolkit mustn't exit, 
+     * since the Download is still running.
+     */
+    if (!handedOff) {
+      Platform.setImplicitExit(false);
+    }
+    primary.hide();
+    scheduler.execute(() -> {
+      try {
+        prefetch();
+        refreshArchives();
+      } finally {
+        exit();
+      }
+    });
+  }
+  
+  /**
+   * Downloads the latest Version into the temporary File with low Priority and the Bandwidth of 
+   * the UpdaterSettings. Blocks until the Download is finished.
+
+   * @see DownloadTask#setPrefetch()
+   * @since 1.22
+   */
+  private void prefetch() {
+    if (!Boolean.parseBoolean(updaterSettings.getValue(UpdaterSettings.prefetch)) 
+        || !file.exists()) {
+      return;
+    }
+    String downloadUrl = getDownloadUrl();
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+        "Prefetching Version " + latestVersion + " from " + downloadUrl);
+    DownloadTask task = new DownloadTask(downloadUrl, file, new Label(), new Label(), 
+        latestVersion, scheduler);
+    task.setPrefetch();
+    task.setRateLimiter(createRateLimiter(UpdaterSettings.prefetchRate, ""));
+    task.setExpectedHash(getExpectedHash());
+    /*
+     * The Prefetch runs on a Thread of the shared Scheduler, so its Priority is restored 
+     * afterwards.
+     */
+    Thread thread = Thread.currentThread();
+    int priority = thread.getPriority();
+    thread.setPriority(Thread.MIN_PRIORITY);
+    try {
+      task.run();
+    } finally {
+      thread.setPriority(priority);
+    }
+  }
+  
+  /**
+   * Creates the Class-Data-Sharing Archives of the Launcher and the Updater, if enabled in the 
+   * UpdaterSettings and if they don't exist or are outdated. The Launcher is started with its 
+   * Archive by the Updater. The Updater can only use its Archive, if it's started with the logged 
+   * Options.
+
+   * @see ClassDataSharing
+   * @since 1.22
+   */
+  private void refreshArchives() {
+    if (!Boolean.parseBoolean(updaterSettings.getValue(UpdaterSettings.classDataSharing)) 
+        || !file.exists()) {
+      return;
+    }
+    new ClassDataSharing(file).refresh();
+    try {
+      File updaterJar = new File(
+          Updater.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      ClassDataSharing archive = new ClassDataSharing(updaterJar);
+      if (updaterJar.isFile() && !archive.isUsable() && archive.refresh()) {
+        LoggingTool.log(getClass(), LoggingTool.getLineNumber(), 
+            "Start the Updater with " + String.join(" ", archive.getOptions()) 
+            + " to use its Archive");
+      }
+    } catch (URISyntaxException | SecurityException e) {
+      e.printStackTrace();
+    }
+  }
+  
+  /**
+   * Creates a RateLimiter with the Bandwidth of the given Setting.
+
+   * @param rate  The Setting, that contains the maximal amount of Bytes per second.
+   * @param serviceHours  The Service-Hours, during which the Limit applies, or an empty String, 
+   *     if it always applies.
+   * @return  The RateLimiter or {@code null}, if the Bandwidth isn't limited.
+   * @since 1.22
+   */
+  private RateLimiter createRateLimiter(UpdaterSettings rate, String serviceHours) {
+    try {
+      long bytesPerSecond = Long.parseLong(updaterSettings.getValue(rate));
+      return bytesPerSecond > 0 ? new RateLimiter(bytesPerSecond, serviceHours) : null;
+    } catch (NumberFormatException e) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+          "Invalid Bandwidth " + updaterSettings.getValue(rate));
+      return null;
+    }
+  }
+  
   /**
    * Starts the Launcher without updating it.
 
@@ -470,18 +726,48 @@ public class Updater extends Application {
    */
   public void startWithoutUpdate() {
     try {
-      LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Starting Launcher...");
-      /*
-       *  Run a java application in a separate system process
-       */
-      Runtime.getRuntime().exec("java -jar " + file.getPath(), null, 
-          new File(file.getPath().substring(0, file.getPath().lastIndexOf(File.separator))));
-      System.exit(0);
+      startLauncher();
+      exit();
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
   
+  /**
+   * Starts the Launcher inside this JVM or in a separate Process, as set in the UpdaterSettings.
+
+   * @throws IOException  If the Process couldn't be started.
+   * @see LauncherStarter
+   * @since 1.22
+   */
+  private void startLauncher() throws IOException {
+    LoggingTool.log(getClass(), LoggingTool.getLineNumber(), "Starting Launcher...");
+    handedOff = createLauncherStarter().start();
+  }
+  
+  /**
+   * Creates the Starter for the Launcher with the Mode of the UpdaterSettings.
+
+   * @return  The Starter for the Launcher.
+   * @since 1.22
+   */
+  private LauncherStarter createLauncherStarter() {
+    return new LauncherStarter(file, 
+        Boolean.parseBoolean(updaterSettings.getValue(UpdaterSettings.inProcessLaunch)), primary);
+  }
+  
+  /**
+   * Exits the Updater after the Launcher was started. If the Launcher was handed off inside this 
+   * JVM, the JVM keeps running for it.
+
+   * @since 1.22
+   */
+  private void exit() {
+    if (!handedOff) {
+      System.exit(0);
+    }
+  }
+  
   /**
    * Sets the {@link #latestVersion}-Field to the given String.
 
@@ -493,6 +779,27 @@ public class Updater extends Application {
     this.latestVersion = version;
   }
   
+  /**
+   * Returns the Scheduler, all Tasks and Timeouts of this Updater are run on.
+
+   * @return  The Scheduler of this Updater.
+   * @since 1.22
+   */
+  public ScheduledExecutorService getScheduler() {
+    return scheduler;
+  }
+  
+  /**
+   * Sets the {@link #manifest}-Field to the given Manifest.
+
+   * @param manifest  The Version-Manifest of the latest Version or {@code null}, if it couldn't 
+   *     be read.
+   * @since 1.22
+   */
+  public void setManifest(VersionManifest manifest) {
+    this.manifest = manifest;
+  }
+  
   /**
    * The Main-Method to start this Application.
 
@@ -502,20 +809,52 @@ public class Updater extends Application {
   public static void main(String[] args) {
     try {
       /*
-       * Creates the LogFiles, where Information and Errors can be written in.
+       * Creates the LogFiles, where Information and Errors can be written in. They are written in 
+       * the Background, so logging doesn't wait for the Drive. Pending Logs are written, before 
+       * the JVM exits.
        */
       String path = Paths.get("").toAbsolutePath().toString();
       path = path.concat(File.separator + "Logs" + File.separator);
       File f = new File(path);
       f.mkdir();
-      System.setOut(new PrintStream(new File(path + "UpdaterLogFile.txt")));
-      System.setErr(new PrintStream(new File(path + "UpdaterErrorLogs.txt")));
+      System.setOut(new PrintStream(new AsyncLogStream(new File(path + "UpdaterLogFile.txt"))));
+      System.setErr(new PrintStream(new AsyncLogStream(new File(path + "UpdaterErrorLogs.txt"))));
     } catch (Exception e) {
       e.printStackTrace();
     }
     /*
-     * Launches the Updater.
+     * Starts the StartupCheck, so the Settings and the Versions are read, while the FX-Toolkit is 
+     * launched. Launches the Updater afterwards.
      */
+    startStartupCheck();
     Updater.launch(args);
   }
+  
+  /**
+   * Creates the Scheduler and starts the StartupCheck on it.
+
+   * @see StartupCheck
+   * @since 1.22
+   */
+  private static void startStartupCheck() {
+    /*
+     * Creates the Scheduler. A ProgressTask waits for its CheckerTask and the CheckerTask for the 
+     * StartupCheck, so next to them, Threads for the Timeout and the Progress have to be 
+     * available. Cancelled Timeouts are removed immediately.
+     */
+    scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, 
+        new NamedThreadFactory("Updater"));
+    scheduler.setRemoveOnCancelPolicy(true);
+    startup = new StartupCheck(getLauncherFile(), scheduler).start();
+  }
+  
+  /**
+   * Returns the installed Launcher.
+
+   * @return  The Launcher in the app-Folder of the Working Directory.
+   * @since 1.22
+   */
+  private static File getLauncherFile() {
+    return new File(System.getProperty("user.dir") + "/app/Launcher.jar");
+  }
 }
@@ -0,0 +1,121 @@
+package updatersettings;
+
+/**
+ * All Settings of the Updater, that can be stored with the {@link UpdaterSettingsTool}. Each 
+ * Setting has a default Value, that is used, if the Setting wasn't stored yet.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public enum UpdaterSettings {
+  
+  /**
+   * The URL of the compact Version-Manifest of the Launcher.
+   */
+  manifestUrl("https://raw.githubusercontent.com/Haeldeus/CashAssetsLauncher/main/manifest.txt"),
+  
+  /**
+   * The URLs of Mirrors of the Version-Manifest, separated by Commas. They are requested, if the 
+   * manifestUrl doesn't answer in time.
+   */
+  manifestMirrors(""),
+  
+  /**
+   * The moving Average of the Round-Trip-Times to the Server in ms. {@code 0}, if no Round-Trip 
+   * was measured yet.
+   */
+  roundTripTime("0"),
+  
+  /**
+   * The moving Average of the Deviation of the Round-Trip-Times from their Average in ms.
+   */
+  roundTripDeviation("0"),
+  
+  /**
+   * The minimal Time between two Checks for Updates in ms. Within this Interval, the Launcher is 
+   * started without checking again. {@code 0} disables the Interval.
+   */
+  checkInterval("3600000"),
+  
+  /**
+   * The Time of the last successful Check in ms since the Epoch.
+   */
+  lastCheckTime("0"),
+  
+  /**
+   * The latest published Version found by the last successful Check.
+   */
+  lastCheckVersion(""),
+  
+  /**
+   * The amount of Starts, that skipped the Check because of the Check-Interval.
+   */
+  checkCacheHits("0"),
+  
+  /**
+   * The amount of Starts, that had to check, because the last Check was too old or outdated.
+   */
+  checkCacheMisses("0"),
+  
+  /**
+   * Determines, if a new Version is downloaded in the Background, while the installed Launcher 
+   * is running, if the User starts it without updating.
+   */
+  prefetch("true"),
+  
+  /**
+   * The maximal amount of Bytes per second, a Download in the Background may use.
+   */
+  prefetchRate("131072"),
+  
+  /**
+   * The maximal amount of Bytes per second, a Download in the Foreground may use, or {@code 0}, 
+   * if it isn't limited.
+   */
+  downloadRate("0"),
+  
+  /**
+   * The Service-Hours, during which the downloadRate applies, e.g. 
+   * {@code 11:00-14:30,17:00-23:00}. Outside of them, Downloads in the Foreground run at full 
+   * Speed. If empty, the downloadRate always applies.
+   */
+  serviceHours(""),
+  
+  /**
+   * Determines, if the Launcher is handed off inside the JVM of the Updater instead of starting 
+   * it in a separate Process. The Launcher has to be a JavaFX Application for this.
+   */
+  inProcessLaunch("false"),
+  
+  /**
+   * Determines, if Class-Data-Sharing Archives are created for the Launcher and the Updater, so 
+   * their JVMs start faster. The Archives are created in the Background after the Launcher was 
+   * started. Disabled by default, since creating them takes far longer than a single Start saves.
+   */
+  classDataSharing("false");
+  
+  /**
+   * The Value, that is used, if this Setting wasn't stored yet.
+   */
+  private final String defaultValue;
+  
+  /**
+   * The Constructor for a Setting.
+
+   * @param defaultValue  The Value, that is used, if this Setting wasn't stored yet.
+   * @since 1.22
+   */
+  UpdaterSettings(String defaultValue) {
+    this.defaultValue = defaultValue;
+  }
+  
+  /**
+   * Returns the Value, that is used, if this Setting wasn't stored yet.
+
+   * @return  The default Value of this Setting.
+   * @since 1.22
+   */
+  public String getDefaultValue() {
+    return defaultValue;
+  }
+}
@@ -0,0 +1,104 @@
+package updatersettings;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import loggingtool.LoggingTool;
+
+/**
+ * The Tool to read and write the Settings of the Updater. The Settings are stored in 
+ * {@code Settings/UpdaterSettings.txt} in the working directory.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class UpdaterSettingsTool {
+  
+  /**
+   * The File, where the Settings are stored in.
+   */
+  private File file;
+  
+  /**
+   * The Settings, that were read from the File.
+   */
+  private Properties properties;
+  
+  /**
+   * The Constructor for this Tool. Reads all Settings from the Settings File. If the File doesn't 
+   * exist, the default Values will be used.
+
+   * @since 1.22
+   */
+  public UpdaterSettingsTool() {
+    this(new File(System.getProperty("user.dir") + File.separator + "Settings" 
+        + File.separator + "UpdaterSettings.txt"));
+  }
+  
+  /**
+   * The Constructor for this Tool. Reads all Settings from the given File. If the File doesn't 
+   * exist, the default Values will be used.
+
+   * @param file  The File, where the Settings are stored in.
+   * @since 1.22
+   */
+  public UpdaterSettingsTool(File file) {
+    this.file = file;
+    this.properties = new Properties();
+    if (file.exists()) {
+      try (InputStream is = new FileInputStream(file)) {
+        properties.load(is);
+      } catch (IOException e) {
+        LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+            "Updater Settings couldn't be read, using default Values!");
+        e.printStackTrace();
+      }
+    }
+  }
+  
+  /**
+   * Returns the Value of the given Setting.
+
+   * @param setting The Setting, whose Value will be returned.
+   * @return  The stored Value of the Setting or its default Value, if it wasn't stored yet.
+   * @since 1.22
+   */
+  public synchronized String getValue(UpdaterSettings setting) {
+    return properties.getProperty(setting.name(), setting.getDefaultValue());
+  }
+  
+  /**
+   * Sets the given Settings to the given Values and stores all Settings in the Settings File. 
+   * They are written into a temporary File, that replaces the Settings File atomically, so a 
+   * Crash never leaves a truncated Settings File behind.
+
+   * @param values  The Settings and their new Values.
+   * @since 1.22
+   */
+  public synchronized void setValues(HashMap<UpdaterSettings, String> values) {
+    for (Map.Entry<UpdaterSettings, String> entry : values.entrySet()) {
+      properties.setProperty(entry.getKey().name(), entry.getValue());
+    }
+    file.getAbsoluteFile().getParentFile().mkdirs();
+    File tmp = new File(file.getPath() + ".tmp");
+    try {
+      try (FileOutputStream os = new FileOutputStream(tmp)) {
+        properties.store(os, "GastroTools Updater Settings");
+        os.getFD().sync();
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LoggingTool.logError(getClass(), LoggingTool.getLineNumber(), 
+          "Updater Settings couldn't be stored!");
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,7 @@
+/**
+ * The Settings of the Updater, that are stored apart from the shared Settings of GastroTools.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+package updatersettings;
@@ -0,0 +1,129 @@
+package tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the DeltaDownloader against a local Server, that publishes a new Version of a Jar.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class DeltaDownloaderTest {
+
+  /**
+   * The Folder, the installed and the new Jar are stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The Server, the new Jar is published on.
+   */
+  private StubServer server;
+
+  /**
+   * Starts the Server.
+
+   * @throws Exception  If the Server couldn't be started.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    server = new StubServer();
+  }
+
+  /**
+   * Stops the Server.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  /**
+   * Tests, if the new Jar is byte-identical to the published one and matches its SHA-256, even
+   * though the Timestamps and Extra Fields of the unchanged Entries differ in the installed Jar.
+   * The Data of the unchanged Entries mustn't be downloaded.
+
+   * @throws Exception  If a Jar couldn't be written.
+   * @since 1.22
+   */
+  @Test
+  public void testBuildsPublishedJar() throws Exception {
+    byte[] library = new byte[256 * 1024];
+    new Random(1).nextBytes(library);
+    byte[] resources = new byte[128 * 1024];
+    new Random(2).nextBytes(resources);
+    File installed = folder.newFile("Launcher.jar");
+    Files.write(installed.toPath(), jar(1_500_000_000_000L, false, library, resources,
+        "class Main { int version = 1; }"));
+    byte[] published = jar(1_600_000_000_000L, true, library, resources,
+        "class Main { int version = 2; }");
+    server.setContent(published);
+
+    File output = new File(folder.getRoot(), "Launcher(tmp).jar");
+    long[] requested = {0};
+    assertTrue(new DeltaDownloader(server.url(StubServer.FILE), installed, output)
+        .download(() -> false, bytes -> requested[0] = bytes, bytes -> { }));
+    assertArrayEquals(published, Files.readAllBytes(output.toPath()));
+    File expected = folder.newFile("expected.jar");
+    Files.write(expected.toPath(), published);
+    assertEquals(FileDigest.of(expected), FileDigest.of(output));
+    assertTrue(requested[0] < resources.length);
+  }
+
+  /**
+   * Writes a Jar with a Manifest, two unchanged Entries and a changed Class.
+
+   * @param time  The Time of all Entries in ms since the Epoch.
+   * @param extra {@code true}, if the Entries get an Extra Field with their Time, {@code false}
+   *      if not.
+   * @param library The Content of the first unchanged Entry.
+   * @param resources The Content of the second unchanged Entry.
+   * @param main  The Content of the changed Class.
+   * @return  The Bytes of the Jar.
+   * @throws IOException  If the Jar couldn't be written.
+   * @since 1.22
+   */
+  private static byte[] jar(long time, boolean extra, byte[] library, byte[] resources,
+      String main) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+      String[] names = {"META-INF/MANIFEST.MF", "lib/library.bin", "Main.java",
+          "resources.bin"};
+      byte[][] contents = {"Manifest-Version: 1.0\r\n".getBytes(StandardCharsets.UTF_8),
+          library, main.getBytes(StandardCharsets.UTF_8), resources};
+      for (int i = 0; i < names.length; i++) {
+        ZipEntry entry = new ZipEntry(names[i]);
+        if (extra) {
+          entry.setLastModifiedTime(FileTime.fromMillis(time));
+        } else {
+          entry.setTime(time);
+        }
+        zip.putNextEntry(entry);
+        zip.write(contents[i]);
+        zip.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,141 @@
+package tasks;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tasks.DownloadJournal.Range;
+
+/**
+ * Tests, when the DownloadJournal considers a Download complete and committed.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class DownloadJournalTest {
+
+  /**
+   * The Folder, the Journal and the downloaded File are stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The downloaded File.
+   */
+  private File data;
+
+  /**
+   * The Journal of the Download.
+   */
+  private DownloadJournal journal;
+
+  /**
+   * Creates the downloaded File and a new Journal.
+
+   * @throws Exception  If the File couldn't be created.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    data = folder.newFile("(tmp).jar");
+    journal = new DownloadJournal(new File(folder.getRoot(), "download.journal"),
+        "http://127.0.0.1/Launcher.jar", "1.0", data.getName());
+  }
+
+  /**
+   * Tests, if a Download in a single Stream is only committed, after its last Byte was recorded
+   * by a Checkpoint.
+
+   * @throws Exception  If the Checkpoint failed.
+   * @since 1.22
+   */
+  @Test
+  public void testStreamCommittedByCheckpoint() throws Exception {
+    assertFalse(journal.isComplete());
+    Range range = journal.startStream(100, 40);
+    checkpoint();
+    assertFalse(journal.isComplete());
+    assertFalse(journal.isCommitted());
+    range.position = 100;
+    assertTrue(journal.isComplete());
+    assertFalse(journal.isCommitted());
+    checkpoint();
+    assertTrue(journal.isCommitted());
+  }
+
+  /**
+   * Tests, if a Download of unknown Size is never complete, even if the Stream ended.
+
+   * @throws Exception  If the Checkpoint failed.
+   * @since 1.22
+   */
+  @Test
+  public void testUnknownLengthIncomplete() throws Exception {
+    Range range = journal.startStream(-1, 0);
+    range.position = 100;
+    checkpoint();
+    assertFalse(journal.isComplete());
+    assertFalse(journal.isCommitted());
+  }
+
+  /**
+   * Tests, if a segmented Download is only complete, if every Segment reached its End and the
+   * Segments reach the total Size.
+
+   * @throws Exception  If the Checkpoint failed.
+   * @since 1.22
+   */
+  @Test
+  public void testSegmentsComplete() throws Exception {
+    List<Range> segments = new ArrayList<Range>();
+    segments.add(new Range(0, 50, 50));
+    segments.add(new Range(50, 100, 70));
+    journal.startSegments(100, segments);
+    checkpoint();
+    assertFalse(journal.isCommitted());
+    segments.get(1).position = 100;
+    checkpoint();
+    assertTrue(journal.isCommitted());
+
+    List<Range> partial = new ArrayList<Range>();
+    partial.add(new Range(0, 80, 80));
+    journal.startSegments(100, partial);
+    assertFalse(journal.isComplete());
+  }
+
+  /**
+   * Tests, if a reset Journal isn't committed anymore.
+
+   * @throws Exception  If the Checkpoint failed.
+   * @since 1.22
+   */
+  @Test
+  public void testResetDiscardsCommittedData() throws Exception {
+    journal.startStream(100, 100);
+    checkpoint();
+    assertTrue(journal.isCommitted());
+    journal.reset();
+    assertFalse(journal.isCommitted());
+  }
+
+  /**
+   * Commits the Journal with a Checkpoint.
+
+   * @throws Exception  If the downloaded File couldn't be opened.
+   * @since 1.22
+   */
+  private void checkpoint() throws Exception {
+    try (FileChannel channel = FileChannel.open(data.toPath(), StandardOpenOption.WRITE)) {
+      journal.checkpoint(channel);
+    }
+  }
+}
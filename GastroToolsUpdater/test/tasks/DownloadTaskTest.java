@@ -0,0 +1,313 @@
+package tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests, that a single Stream Download of the DownloadTask transfers the Body of the File only
+ * once per Update against a local Server: for a new Download, a resumed one, a Server without
+ * Ranges and a Range, that the Server rejects. The Task prefetches the File, so it's neither
+ * installed nor started afterwards. The prefetched File is installed by the next Start, which keeps
+ * the Journal, until the Installation succeeded.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class DownloadTaskTest {
+
+  /**
+   * The Size of the downloaded File.
+   */
+  private static final int LENGTH = 512 * 1024 + 7;
+
+  /**
+   * The Version of the downloaded File.
+   */
+  private static final String VERSION = "1.22";
+
+  /**
+   * The Folder, the Launcher is downloaded into.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The Server, the File is downloaded from.
+   */
+  private StubServer server;
+
+  /**
+   * The Scheduler, the Progress is published on.
+   */
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * The Content of the served File.
+   */
+  private byte[] content;
+
+  /**
+   * The Launcher, that will be downloaded. It isn't installed yet.
+   */
+  private File launcher;
+
+  /**
+   * The File, the Launcher is prefetched into.
+   */
+  private File tmpFile;
+
+  /**
+   * Starts the Server with a random File.
+
+   * @throws Exception  If the Server couldn't be started.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    content = new byte[LENGTH];
+    new Random(7).nextBytes(content);
+    server = new StubServer();
+    server.setContent(content);
+    scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Test"));
+    launcher = new File(folder.getRoot(), "Launcher.jar");
+    tmpFile = new File(folder.getRoot(), "Launcher(tmp).jar");
+  }
+
+  /**
+   * Stops the Server and the Scheduler.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    server.close();
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Tests, if a new Download transfers the File with a single partial Response.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testNewDownload() throws Exception {
+    download();
+    assertEquals(1, server.getBodies());
+    assertEquals(LENGTH, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if a resumed Download only transfers the missing Bytes with a single partial Response.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testResumedDownload() throws Exception {
+    int committed = LENGTH / 3;
+    commit(Arrays.copyOf(content, committed), LENGTH);
+    download();
+    assertEquals(1, server.getBodies());
+    assertEquals(LENGTH - committed, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if a Server, that ignores the Range, transfers the whole File once and the existing
+   * Data is discarded.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testServerWithoutRanges() throws Exception {
+    server.setRangesSupported(false);
+    commit(Arrays.copyOf(content, LENGTH / 3), LENGTH);
+    download();
+    assertEquals(1, server.getBodies());
+    assertEquals(LENGTH, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if a rejected Range discards the existing Data and the File is transferred once from
+   * the first Byte.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testRejectedRange() throws Exception {
+    byte[] longer = Arrays.copyOf(content, LENGTH + 100);
+    commit(longer, longer.length);
+    download();
+    assertEquals(1, server.getBodies());
+    assertEquals(LENGTH, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if a File, whose every Byte was committed already, isn't transferred again.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testCompleteDownload() throws Exception {
+    commit(content, LENGTH);
+    download();
+    assertEquals(0, server.getBodies());
+  }
+
+  /**
+   * Tests, if a staged Launcher is installed and the Journal is deleted afterwards.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testInstallStaged() throws Exception {
+    stageJar();
+    assertTrue(DownloadTask.installStaged(launcher));
+    assertTrue(LauncherInstaller.isReadable(launcher.toPath()));
+    assertFalse(tmpFile.exists());
+    assertNull(DownloadJournal.read(new File(folder.getRoot(), "download.journal")));
+  }
+
+  /**
+   * Tests, if the Journal of a staged Launcher is kept, if its Installation failed, so the next
+   * Start installs it.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testInstallStagedFailed() throws Exception {
+    stageJar();
+    /*
+     * A Folder, that isn't empty, can't be cleared from the Stage, so the Installation fails.
+     */
+    File blocker = new File(new File(folder.getRoot(), LauncherInstaller.STAGE), "blocker");
+    assertTrue(blocker.mkdirs());
+    File blocked = new File(blocker, "file");
+    Files.write(blocked.toPath(), new byte[1]);
+    assertFalse(DownloadTask.installStaged(launcher));
+    File journalFile = new File(folder.getRoot(), "download.journal");
+    assertTrue(DownloadJournal.read(journalFile).isStaged());
+    assertTrue(blocked.delete());
+    assertTrue(blocker.delete());
+    assertTrue(DownloadTask.installStaged(launcher));
+    assertNull(DownloadJournal.read(journalFile));
+  }
+
+  /**
+   * Serves a readable Jar and prefetches it, so it's staged for the next Start.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  private void stageJar() throws Exception {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    ByteArrayOutputStream jar = new ByteArrayOutputStream();
+    try (JarOutputStream out = new JarOutputStream(jar, manifest)) {
+      out.putNextEntry(new ZipEntry("padding.bin"));
+      out.write(content);
+      out.closeEntry();
+    }
+    content = jar.toByteArray();
+    server.setContent(content);
+    download();
+  }
+
+  /**
+   * Prefetches the File with a new DownloadTask and checks, if it was downloaded completely.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  private void download() throws Exception {
+    server.resetCounters();
+    DownloadTask task = new DownloadTask(server.url(StubServer.FILE), launcher, null, null,
+        VERSION, scheduler, runnable -> { }) {
+      @Override
+      protected void updateProgress(long workDone, long max) {
+        /*
+         * The Progress needs the FX-Toolkit, which isn't running in Tests.
+         */
+      }
+
+      @Override
+      protected void updateProgress(double workDone, double max) {
+        /*
+         * The Progress needs the FX-Toolkit, which isn't running in Tests.
+         */
+      }
+    };
+    task.setPrefetch();
+    task.setExpectedHash(sha256(content));
+    task.call();
+    assertArrayEquals(content, Files.readAllBytes(tmpFile.toPath()));
+    DownloadJournal journal = DownloadJournal.read(new File(folder.getRoot(),
+        "download.journal"));
+    assertNotNull(journal);
+    assertTrue(journal.isStaged());
+  }
+
+  /**
+   * Writes the given Data into the File, the Launcher is prefetched into, and commits it to the
+   * Journal, as an earlier Download would have done.
+
+   * @param data  The Data, that was downloaded already.
+   * @param length  The Size of the File, as the earlier Download knew it.
+   * @throws Exception  If the Data couldn't be written.
+   * @since 1.22
+   */
+  private void commit(byte[] data, long length) throws Exception {
+    Files.write(tmpFile.toPath(), data);
+    DownloadJournal journal = new DownloadJournal(new File(folder.getRoot(), "download.journal"),
+        server.url(StubServer.FILE), VERSION, tmpFile.getName());
+    journal.startStream(length, data.length);
+    try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE)) {
+      journal.checkpoint(channel);
+    }
+  }
+
+  /**
+   * Calculates the SHA-256 of the given Data.
+
+   * @param data  The Data to be hashed.
+   * @return  The SHA-256 as a hex String.
+   * @throws Exception  If SHA-256 isn't supported.
+   * @since 1.22
+   */
+  private static String sha256(byte[] data) throws Exception {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
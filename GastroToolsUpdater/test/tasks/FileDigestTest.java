@@ -0,0 +1,131 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests, if the FileDigest computes the SHA-256 of a File, that was partly written already, and
+ * leaves the File free to be moved afterwards.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class FileDigestTest {
+
+  /**
+   * The Size of the File, that is larger than the Buffer of the FileDigest and no Multiple of it.
+   */
+  private static final int LENGTH = 3 * 65536 + 123;
+
+  /**
+   * The Folder, the File is stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Tests, if the Digest of a whole File matches the Digest of its Content and the File can be
+   * moved right afterwards.
+
+   * @throws Exception  If the File couldn't be written or read.
+   * @since 1.22
+   */
+  @Test
+  public void testOf() throws Exception {
+    byte[] data = random(LENGTH);
+    File file = write(data);
+    assertEquals(hex(MessageDigest.getInstance("SHA-256").digest(data)), FileDigest.of(file));
+    File moved = new File(folder.getRoot(), "moved.jar");
+    assertTrue(file.renameTo(moved));
+    assertTrue(moved.delete());
+  }
+
+  /**
+   * Tests, if a Digest seeded with the Start of a File and continued with the Rest matches the
+   * Digest of the whole File.
+
+   * @throws Exception  If the File couldn't be written or read.
+   * @since 1.22
+   */
+  @Test
+  public void testSeed() throws Exception {
+    byte[] data = random(LENGTH);
+    File file = write(data);
+    int seeded = 65536 + 17;
+    FileDigest digest = new FileDigest();
+    digest.seed(file, seeded);
+    digest.update(ByteBuffer.wrap(data, seeded, LENGTH - seeded));
+    assertEquals(LENGTH, digest.getLength());
+    assertEquals(FileDigest.of(file), digest.finish());
+  }
+
+  /**
+   * Tests, if seeding more Bytes than the File contains fails.
+
+   * @throws Exception  If the File couldn't be written.
+   * @since 1.22
+   */
+  @Test
+  public void testSeedBeyondEnd() throws Exception {
+    File file = write(random(100));
+    try {
+      new FileDigest().seed(file, 200);
+      fail("Seed beyond the End of the File didn't fail");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("100"));
+    }
+  }
+
+  /**
+   * Returns random Bytes.
+
+   * @param length  The amount of Bytes.
+   * @return  The random Bytes.
+   * @since 1.22
+   */
+  private static byte[] random(int length) {
+    byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+
+  /**
+   * Writes the given Data into a File in the temporary Folder.
+
+   * @param data  The Data to be written.
+   * @return  The written File.
+   * @throws IOException  If the File couldn't be written.
+   * @since 1.22
+   */
+  private File write(byte[] data) throws IOException {
+    File file = new File(folder.getRoot(), "Launcher(tmp).jar");
+    Files.write(file.toPath(), data);
+    return file;
+  }
+
+  /**
+   * Returns the given Bytes as a lower case hex String.
+
+   * @param bytes The Bytes to be converted.
+   * @return  The hex String.
+   * @since 1.22
+   */
+  private static String hex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
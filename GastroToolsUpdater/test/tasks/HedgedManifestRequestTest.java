@@ -0,0 +1,306 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * Tests the Check of the latest Version against a local Server: the hedged Request of the
+ * Version-Manifest together with the Timeout of the Check, as the ProgressTask composes them.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class HedgedManifestRequestTest {
+
+  /**
+   * The Timeout of the Settings in ms.
+   */
+  private static final long TIMEOUT = 400;
+
+  /**
+   * A URL, whose Port is out of Range. Connecting to it throws an unchecked Exception.
+   */
+  private static final String INVALID_PORT = "http://localhost:99999/manifest";
+
+  /**
+   * The Folder, the Manifest-Cache is stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The Server, the Manifest is requested from.
+   */
+  private StubServer server;
+
+  /**
+   * The Scheduler of the Hedges and the Timeout.
+   */
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Starts the Server and the Scheduler.
+
+   * @throws Exception  If the Server couldn't be started.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    server = new StubServer();
+    scheduler = Executors.newScheduledThreadPool(2, new NamedThreadFactory("Test"));
+  }
+
+  /**
+   * Stops the Server and the Scheduler.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    server.close();
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Tests, if the Check is completed with the Manifest of the Server, before the Timeout.
+
+   * @throws Exception  If the Check failed.
+   * @since 1.22
+   */
+  @Test
+  public void testSuccess() throws Exception {
+    server.handle("/manifest", exchange -> answer(exchange, 200, "current=1.5\nolder=1.4\n", 0));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    CompletableFuture<VersionManifest> check = check(5000, timedOut, "/manifest");
+    assertEquals("1.5", check.get().getCurrentVersion());
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Tests, if the Check fails with an IOException, if no Server delivers a Manifest.
+
+   * @throws Exception  If the Check was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testFailure() throws Exception {
+    server.handle("/manifest", exchange -> answer(exchange, 500, "", 0));
+    server.handle("/mirror", exchange -> answer(exchange, 200, "no manifest", 0));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    CompletableFuture<VersionManifest> check = check(5000, timedOut, "/manifest", "/mirror");
+    try {
+      check.get();
+      fail("Check didn't fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Tests, if a Server, that doesn't answer in Time, completes the Check with a TimeoutException
+   * and cancels it.
+
+   * @throws Exception  If the Check was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testTimeout() throws Exception {
+    server.handle("/manifest", exchange -> answer(exchange, 200, "current=1.5\n", 3000));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    long begin = System.currentTimeMillis();
+    CompletableFuture<VersionManifest> check = check(300, timedOut, "/manifest");
+    try {
+      check.get();
+      fail("Check didn't time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    assertTrue(timedOut.await(1, TimeUnit.SECONDS));
+    assertTrue(System.currentTimeMillis() - begin < 2000);
+  }
+
+  /**
+   * Tests, if the Mirror is requested after the Hedge-Delay, while the primary URL doesn't answer,
+   * and its Manifest is taken.
+
+   * @throws Exception  If the Check failed.
+   * @since 1.22
+   */
+  @Test
+  public void testHedgesToMirror() throws Exception {
+    server.handle("/manifest", exchange -> answer(exchange, 200, "current=1.5\n", 3000));
+    server.handle("/mirror", exchange -> answer(exchange, 200, "current=1.6\n", 0));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    long begin = System.currentTimeMillis();
+    CompletableFuture<VersionManifest> check = check(5000, timedOut, "/manifest", "/mirror");
+    assertEquals("1.6", check.get().getCurrentVersion());
+    assertTrue(System.currentTimeMillis() - begin < 2000);
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Tests, if a Mirror, that fails with an unchecked Exception, counts as a failed Mirror, so the
+   * next Mirror is requested at once.
+
+   * @throws Exception  If the Check failed.
+   * @since 1.22
+   */
+  @Test
+  public void testUncheckedFailureHedgesToMirror() throws Exception {
+    server.handle("/mirror", exchange -> answer(exchange, 200, "current=1.6\n", 0));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    long begin = System.currentTimeMillis();
+    CompletableFuture<VersionManifest> check = checkUrls(5000, timedOut, INVALID_PORT,
+        server.url("/mirror"));
+    assertEquals("1.6", check.get().getCurrentVersion());
+    assertTrue(System.currentTimeMillis() - begin < TIMEOUT / 4);
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Tests, if the Check fails at once, if the last Mirror fails with an unchecked Exception, and
+   * doesn't wait for the Timeout.
+
+   * @throws Exception  If the Check was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testUncheckedFailure() throws Exception {
+    CountDownLatch timedOut = new CountDownLatch(1);
+    CompletableFuture<VersionManifest> check = checkUrls(5000, timedOut, INVALID_PORT);
+    try {
+      check.get(2, TimeUnit.SECONDS);
+      fail("Check didn't fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+      assertTrue(e.getCause().getCause() instanceof RuntimeException);
+    }
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Tests, if the Request itself gives up after the Timeout of the first Check, even if the Check
+   * around it would wait longer.
+
+   * @throws Exception  If the Check was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testRequestTimeout() throws Exception {
+    server.handle("/manifest", exchange -> answer(exchange, 200, "current=1.5\n", 3000));
+    CountDownLatch timedOut = new CountDownLatch(1);
+    long begin = System.currentTimeMillis();
+    CompletableFuture<VersionManifest> check = check(5000, timedOut, "/manifest");
+    try {
+      check.get();
+      fail("Request didn't time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    long elapsed = System.currentTimeMillis() - begin;
+    assertTrue(elapsed + " ms", elapsed >= TIMEOUT && elapsed < 2000);
+    assertEquals(1, timedOut.getCount());
+  }
+
+  /**
+   * Starts a Check of the given Paths of the Server with the given Timeout.
+
+   * @param timeout The Timeout of the Check in ms.
+   * @param timedOut  Will be counted down, if the Check was cancelled by the Timeout.
+   * @param paths The Paths of the Manifest, the primary one first.
+   * @return  The Result of the Check.
+   * @since 1.22
+   */
+  private CompletableFuture<VersionManifest> check(long timeout, CountDownLatch timedOut,
+      String... paths) {
+    String[] urls = new String[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      urls[i] = server.url(paths[i]);
+    }
+    return checkUrls(timeout, timedOut, urls);
+  }
+
+  /**
+   * Starts a Check of the given URLs with the given Timeout.
+
+   * @param timeout The Timeout of the Check in ms.
+   * @param timedOut  Will be counted down, if the Check was cancelled by the Timeout.
+   * @param urls  The URLs of the Manifest, the primary one first.
+   * @return  The Result of the Check.
+   * @since 1.22
+   */
+  private CompletableFuture<VersionManifest> checkUrls(long timeout, CountDownLatch timedOut,
+      String... urls) {
+    HedgedManifestRequest request = new HedgedManifestRequest(Arrays.asList(urls),
+        new ManifestCache(new File(folder.getRoot(), "manifest.cache")),
+        new RetryPolicy(new UpdaterSettingsTool(new File(folder.getRoot(),
+            "UpdaterSettings.txt")), TIMEOUT), scheduler);
+    CompletableFuture<VersionManifest> check = new CompletableFuture<VersionManifest>();
+    Thread thread = new NamedThreadFactory("Check").newThread(() -> {
+      try {
+        check.complete(request.request());
+      } catch (IOException e) {
+        check.completeExceptionally(e);
+      }
+    });
+    thread.start();
+    ProgressTask.orTimeout(check, timeout, scheduler, () -> {
+      timedOut.countDown();
+      thread.interrupt();
+    });
+    return check;
+  }
+
+  /**
+   * Answers a Request with the given Body after the given Delay.
+
+   * @param exchange  The Request to be answered.
+   * @param code  The Status-Code of the Answer.
+   * @param body  The Body of the Answer.
+   * @param delay The Delay in ms.
+   * @throws IOException  If the Answer couldn't be sent.
+   * @since 1.22
+   */
+  private static void answer(HttpExchange exchange, int code, String body, long delay)
+      throws IOException {
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    try (OutputStream os = exchange.getResponseBody()) {
+      exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+      os.write(bytes);
+    } catch (IOException e) {
+      /*
+       * The Client already gave up.
+       */
+    } finally {
+      exchange.close();
+    }
+  }
+
+}
@@ -0,0 +1,193 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Compares the Time and the Allocations of the old Loop, that removed every Tag of a Line with
+ * {@code replaceFirst}, with the HtmlVersionStripper. Both strip the same Page from Memory, so
+ * only the Parsing is measured. Without Arguments, the Page is the Fixture {@code version.html}
+ * embedded between long minified Lines, as GitHub renders Styles, Scripts and the JSON-Payload of
+ * a File. A saved Page can be given instead. This isn't run with the Tests, but started on its
+ * own: <br>
+ * {@code java tasks.HtmlVersionStripperBenchmark [KB before and after the Version | Page.html]
+ * [Rounds]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class HtmlVersionStripperBenchmark {
+
+  /**
+   * The amount of Pages stripped per measured Round.
+   */
+  private static final int PAGES = 100;
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The Size of the Page around the Version in KB or a saved Page and the amount of
+   *     measured Rounds, both optional.
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    String page;
+    if (args.length > 0 && new File(args[0]).isFile()) {
+      page = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+    } else {
+      page = createPage(args.length > 0 ? Integer.parseInt(args[0]) : 200);
+    }
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    List<String> expected = new HtmlVersionStripper(new StringReader(page), () -> false,
+        () -> { }, () -> { }).strip();
+    if (!expected.equals(oldStrip(page))) {
+      throw new IOException("Both Strippers found different Lines: " + expected + " and "
+          + oldStrip(page));
+    }
+    TransferPipelineBenchmark.Download old = () -> {
+      for (int i = 0; i < PAGES; i++) {
+        oldStrip(page);
+      }
+    };
+    TransferPipelineBenchmark.Download stripper = () -> {
+      for (int i = 0; i < PAGES; i++) {
+        new HtmlVersionStripper(new BufferedReader(new StringReader(page)), () -> false,
+            () -> { }, () -> { }).strip();
+      }
+    };
+    /*
+     * The first Rounds only warm up the JIT and aren't measured.
+     */
+    for (int i = 0; i < 5; i++) {
+      old.run();
+      stripper.run();
+    }
+    long[] oldSums = new long[2];
+    long[] newSums = new long[2];
+    for (int i = 0; i < rounds; i++) {
+      add(oldSums, TransferPipelineBenchmark.measure(old));
+      add(newSums, TransferPipelineBenchmark.measure(stripper));
+    }
+    System.out.printf("Page: %.1f KB, Version Lines: %d, %d Rounds of %d Pages, Java %s%n",
+        page.length() / 1024.0, expected.size(), rounds, PAGES, System.getProperty("java.version"));
+    print("replaceFirst-Loop", oldSums, rounds);
+    print("HtmlVersionStripper", newSums, rounds);
+  }
+
+  /**
+   * Strips the Page as the CheckerTask did before the HtmlVersionStripper: every Line is read,
+   * and every Tag of a Line between the Markers is removed with {@code replaceFirst}.
+
+   * @param page  The Page to be stripped.
+   * @return  The Lines between both Markers.
+   * @throws IOException  If the Page couldn't be read.
+   * @since 1.22
+   */
+  private static List<String> oldStrip(String page) throws IOException {
+    BufferedReader br = new BufferedReader(new StringReader(page));
+    String s = "";
+    String line;
+    boolean version = false;
+    while ((line = br.readLine()) != null) {
+      if (line.contains(HtmlVersionStripper.END_MARKER)) {
+        version = false;
+      }
+      if (version) {
+        while (line.contains(">")) {
+          line = line.replaceFirst(line.substring(line.indexOf("<"), line.indexOf(">") + 1), "");
+        }
+        if (line.trim().length() != 0) {
+          s = s.concat(line.trim() + System.lineSeparator());
+        }
+      }
+      if (line.contains(HtmlVersionStripper.BEGIN_MARKER)) {
+        version = true;
+      }
+    }
+    List<String> lines = new ArrayList<String>();
+    for (String l : s.split(System.lineSeparator())) {
+      if (!l.isEmpty()) {
+        lines.add(l);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Creates a Page, that embeds the Fixture between long minified Lines of the given Size.
+
+   * @param kilobytes The Size of the Lines before and after the Version in KB.
+   * @return  The Page.
+   * @throws IOException  If the Fixture couldn't be read.
+   * @since 1.22
+   */
+  private static String createPage(int kilobytes) throws IOException {
+    String fixture;
+    try (InputStream in = HtmlVersionStripperBenchmark.class.getResourceAsStream("version.html");
+        Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+      fixture = scanner.useDelimiter("\\A").next();
+    }
+    String filler = minified(kilobytes);
+    int head = fixture.indexOf("</head>");
+    int body = fixture.indexOf("</body>");
+    return fixture.substring(0, head) + filler + fixture.substring(head, body) + filler
+        + fixture.substring(body);
+  }
+
+  /**
+   * Returns minified Lines of the given Size, which contain Tags and Text like a Script and its
+   * JSON-Payload. Every Line is 64 KB long.
+
+   * @param kilobytes The Size of the Lines in KB.
+   * @return  The Lines.
+   * @since 1.22
+   */
+  private static String minified(int kilobytes) {
+    StringBuilder sb = new StringBuilder();
+    String item = "<span class=\"pl-k\">{\"path\":\"version.txt\",\"line\":42}</span>";
+    int lineLength = 0;
+    while (sb.length() < kilobytes * 1024) {
+      sb.append(item);
+      lineLength += item.length();
+      if (lineLength > 64 * 1024) {
+        sb.append('\n');
+        lineLength = 0;
+      }
+    }
+    return sb.append('\n').toString();
+  }
+
+  /**
+   * Adds the given Measurement to the Sums.
+
+   * @param sums  The Sums of the Time in ns and the allocated Bytes.
+   * @param measurement The Measurement to be added.
+   * @since 1.22
+   */
+  private static void add(long[] sums, long[] measurement) {
+    sums[0] += measurement[0];
+    sums[1] += measurement[1];
+  }
+
+  /**
+   * Prints the Average Time and Allocations per Page.
+
+   * @param name  The Name of the measured Stripper.
+   * @param sums  The Sums of the Time in ns and the allocated Bytes.
+   * @param rounds  The amount of measured Rounds.
+   * @since 1.22
+   */
+  private static void print(String name, long[] sums, int rounds) {
+    System.out.printf("%-20s %8.1f us/Page, %10d B allocated/Page%n", name,
+        sums[0] / 1e3 / rounds / PAGES, sums[1] / rounds / PAGES);
+  }
+}
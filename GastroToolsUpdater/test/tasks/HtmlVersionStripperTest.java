@@ -0,0 +1,196 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests, if the HtmlVersionStripper extracts the Version Information from the rendered Page in
+ * the Fixture next to this Test, no matter where the Chunks of the Page are split.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class HtmlVersionStripperTest {
+
+  /**
+   * The Size of the Chunks, the HtmlVersionStripper reads.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  /**
+   * The Lines, that are expected between both Markers of the Fixture.
+   */
+  private static final List<String> EXPECTED = Arrays.asList("Current Version:", "1.22",
+      "Older Versions:", "1.21", "1.20", "1.19");
+
+  /**
+   * The rendered Page of the Fixture.
+   */
+  private String page;
+
+  /**
+   * Reads the Fixture.
+
+   * @throws Exception  If the Fixture couldn't be read.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    try (InputStream in = getClass().getResourceAsStream("version.html");
+        Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+      page = scanner.useDelimiter("\\A").next();
+    }
+  }
+
+  /**
+   * Tests, if the Version Information of the Page is found and both Markers are reported once.
+
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testStrip() throws Exception {
+    AtomicInteger begin = new AtomicInteger();
+    AtomicInteger end = new AtomicInteger();
+    List<String> lines = new HtmlVersionStripper(new StringReader(page), () -> false,
+        begin::incrementAndGet, end::incrementAndGet).strip();
+    assertEquals(EXPECTED, lines);
+    assertEquals(1, begin.get());
+    assertEquals(1, end.get());
+  }
+
+  /**
+   * Tests, if the Version Information is found, when a Chunk ends at any Position of it. The Page
+   * is moved over the End of the first Chunk by a Comment in front of it, since Comments are
+   * dropped as Tags.
+
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testSplitAcrossChunks() throws Exception {
+    int begin = page.indexOf(HtmlVersionStripper.BEGIN_MARKER);
+    int end = page.indexOf(HtmlVersionStripper.END_MARKER) + HtmlVersionStripper.END_MARKER
+        .length();
+    for (int split = begin; split <= end; split++) {
+      String padded = padding(CHUNK_SIZE - split) + page;
+      List<String> lines = new HtmlVersionStripper(new StringReader(padded), () -> false,
+          () -> { }, () -> { }).strip();
+      assertEquals("Chunk ends at " + split, EXPECTED, lines);
+    }
+  }
+
+  /**
+   * Tests, if the Version Information is found, when the Reader returns fewer Characters than
+   * requested, as a slow Connection does.
+
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testShortReads() throws Exception {
+    for (int max = 1; max <= 13; max++) {
+      List<String> lines = new HtmlVersionStripper(new ShortReader(page, max), () -> false,
+          () -> { }, () -> { }).strip();
+      assertEquals("Reads of " + max + " Characters", EXPECTED, lines);
+    }
+  }
+
+  /**
+   * Tests, if a Page without Markers results in no Lines and a long Line before the Begin Marker
+   * doesn't hide the Marker.
+
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testMarkers() throws Exception {
+    assertEquals(Arrays.asList(), new HtmlVersionStripper(new StringReader(
+        page.replace(HtmlVersionStripper.BEGIN_MARKER, "")), () -> false, () -> { }, () -> { })
+        .strip());
+    String longLine = page.replace("<p dir=\"auto\">#Begin", new String(new char[3000])
+        .replace('\0', 'x') + "#Begin");
+    assertEquals(EXPECTED, new HtmlVersionStripper(new StringReader(longLine), () -> false,
+        () -> { }, () -> { }).strip());
+  }
+
+  /**
+   * Tests, if a cancelled Task stops the Stripper.
+
+   * @throws Exception  If the Page couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCancelled() throws Exception {
+    assertNull(new HtmlVersionStripper(new StringReader(page), () -> true, () -> { }, () -> { })
+        .strip());
+  }
+
+  /**
+   * Returns an HTML-Comment of the given Length, that is dropped by the Stripper.
+
+   * @param length  The Length of the Comment.
+   * @return  The Comment.
+   * @since 1.22
+   */
+  private static String padding(int length) {
+    StringBuilder sb = new StringBuilder("<!--");
+    while (sb.length() < length - 1) {
+      sb.append('-');
+    }
+    return sb.append('>').toString();
+  }
+
+  /**
+   * A Reader, that returns at most a given amount of Characters per Read.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  private static class ShortReader extends Reader {
+
+    /**
+     * The Reader of the Text.
+     */
+    private final Reader text;
+
+    /**
+     * The maximal amount of Characters per Read.
+     */
+    private final int max;
+
+    /**
+     * The Constructor for this Reader.
+
+     * @param text  The Text to be read.
+     * @param max The maximal amount of Characters per Read.
+     * @since 1.22
+     */
+    private ShortReader(String text, int max) {
+      this.text = new StringReader(text);
+      this.max = max;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      return text.read(cbuf, off, Math.min(len, max));
+    }
+
+    @Override
+    public void close() throws IOException {
+      text.close();
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Measures, how much the Warm-Up of {@link HttpConnections} shortens the following Request
+ * against a local TLS-Server with a self-signed Certificate. Every Round uses a new
+ * SSLSocketFactory, so neither a Socket nor a TLS-Session of an earlier Round is reused. A cold
+ * Request has to connect and handshake itself, a warm one follows a Warm-Up. The Server runs on
+ * Loopback, so only the Work of the Handshake is saved, not its Round-Trips. This isn't run with
+ * the Tests, but started on its own: <br>
+ * {@code java tasks.HttpConnectionsBenchmark [Rounds]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class HttpConnectionsBenchmark {
+
+  /**
+   * The Password of the temporary KeyStore.
+   */
+  private static final char[] PASSWORD = "benchmark".toCharArray();
+
+  /**
+   * The Body of the requested File.
+   */
+  private static final byte[] BODY = new byte[1024];
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The amount of measured Rounds, optional.
+   * @throws Exception  If the Server couldn't be started or a Request failed.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    KeyStore keys = createKeyStore();
+    KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    kmf.init(keys, PASSWORD);
+    SSLContext serverContext = SSLContext.getInstance("TLS");
+    serverContext.init(kmf.getKeyManagers(), null, null);
+    AtomicInteger connections = new AtomicInteger();
+    try (ServerSocket server = serverContext.getServerSocketFactory().createServerSocket(0, 50,
+        InetAddress.getLoopbackAddress())) {
+      Thread acceptor = new Thread(() -> accept(server, connections), "Acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+      HttpsURLConnection.setDefaultHostnameVerifier((host, session) -> host.equals("localhost"));
+      String url = "https://localhost:" + server.getLocalPort() + "/Launcher.jar";
+      for (int i = 0; i < 5; i++) {
+        request(url, keys, false);
+        request(url, keys, true);
+      }
+      long[] cold = new long[rounds];
+      long[] warm = new long[rounds];
+      int coldConnections = 0;
+      int warmConnections = 0;
+      for (int i = 0; i < rounds; i++) {
+        int before = connections.get();
+        cold[i] = request(url, keys, false);
+        coldConnections += connections.get() - before;
+        before = connections.get();
+        warm[i] = request(url, keys, true);
+        warmConnections += connections.get() - before;
+      }
+      System.out.printf("Java %s, Median of %d Rounds%n", System.getProperty("java.version"),
+          rounds);
+      System.out.printf("cold Request %.1f ms, %d Connections%n", median(cold), coldConnections);
+      System.out.printf("warm Request %.1f ms, %d Connections including the Warm-Ups%n",
+          median(warm), warmConnections);
+    }
+  }
+
+  /**
+   * Accepts the Connections of the Server and answers each of them on its own Thread.
+
+   * @param server  The Server.
+   * @param connections Counts the accepted Connections.
+   * @since 1.22
+   */
+  private static void accept(ServerSocket server, AtomicInteger connections) {
+    try {
+      while (true) {
+        Socket socket = server.accept();
+        connections.incrementAndGet();
+        Thread thread = new Thread(() -> answer(socket), "Connection");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    } catch (IOException e) {
+      /*
+       * The Server was closed.
+       */
+    }
+  }
+
+  /**
+   * Answers the Requests of a Connection and keeps it alive after every Response, as a real
+   * Server does. The HttpsServer of the JDK closes a Connection after each HEAD-Request, so the
+   * Socket of a Warm-Up couldn't be reused.
+
+   * @param socket  The Socket of the Connection.
+   * @since 1.22
+   */
+  private static void answer(Socket socket) {
+    try (Socket s = socket) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+          StandardCharsets.ISO_8859_1));
+      OutputStream out = s.getOutputStream();
+      String request;
+      while ((request = in.readLine()) != null) {
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+          /*
+           * Skips the Headers of the Request.
+           */
+        }
+        /*
+         * Writes the Response at once, so it doesn't wait for a delayed ACK of the Client.
+         */
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write(("HTTP/1.1 200 OK\r\nContent-Length: " + BODY.length + "\r\n\r\n")
+            .getBytes(StandardCharsets.ISO_8859_1));
+        if (!request.startsWith("HEAD")) {
+          response.write(BODY);
+        }
+        response.writeTo(out);
+        out.flush();
+      }
+    } catch (IOException e) {
+      /*
+       * The Client closed the Connection.
+       */
+    }
+  }
+
+  /**
+   * Requests the File with a new SSLSocketFactory, after it was warmed up or not.
+
+   * @param url The URL of the File.
+   * @param keys  The KeyStore, that contains the Certificate of the Server.
+   * @param warmUp  Determines, if the Server is warmed up before.
+   * @return  The Time of the Request without the Warm-Up in ns.
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  private static long request(String url, KeyStore keys, boolean warmUp) throws Exception {
+    TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+        TrustManagerFactory.getDefaultAlgorithm());
+    tmf.init(keys);
+    SSLContext context = SSLContext.getInstance("TLS");
+    context.init(null, tmf.getTrustManagers(), null);
+    HttpsURLConnection.setDefaultSSLSocketFactory(context.getSocketFactory());
+    if (warmUp) {
+      HttpConnections.warmUp(url);
+    }
+    long begin = System.nanoTime();
+    HttpsURLConnection con = (HttpsURLConnection) new URL(url).openConnection();
+    try (InputStream in = con.getInputStream()) {
+      while (in.read() >= 0) {
+        /*
+         * Reads the whole Body, as a Download does.
+         */
+      }
+    }
+    return System.nanoTime() - begin;
+  }
+
+  /**
+   * Creates a KeyStore with a self-signed Certificate for localhost with the keytool of the
+   * running Java.
+
+   * @return  The KeyStore.
+   * @throws Exception  If the KeyStore couldn't be created.
+   * @since 1.22
+   */
+  private static KeyStore createKeyStore() throws Exception {
+    File file = File.createTempFile("benchmark", ".jks");
+    file.delete();
+    file.deleteOnExit();
+    String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "keytool";
+    Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "localhost",
+        "-keyalg", "RSA", "-keysize", "2048", "-dname", "CN=localhost", "-ext",
+        "SAN=dns:localhost", "-validity", "1", "-storetype", "JKS", "-keystore", file.getPath(),
+        "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+        .inheritIO().start();
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException("keytool failed");
+    }
+    KeyStore keys = KeyStore.getInstance("JKS");
+    try (InputStream in = new FileInputStream(file)) {
+      keys.load(in, PASSWORD);
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the Median of the given Durations in ms.
+
+   * @param durations The Durations in ns.
+   * @return  The Median in ms.
+   * @since 1.22
+   */
+  private static double median(long[] durations) {
+    long[] sorted = durations.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  }
+}
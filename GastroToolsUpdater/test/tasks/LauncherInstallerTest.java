@@ -0,0 +1,319 @@
+package tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the LauncherInstaller by crashing it after every Step of an Installation and of a
+ * Recovery. Afterwards, the Recovery has to leave either the old or the new Launcher behind,
+ * together with its Version.txt.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class LauncherInstallerTest {
+
+  /**
+   * The Version of the installed Launcher.
+   */
+  private static final String OLD = "1.21";
+
+  /**
+   * The Version of the downloaded Launcher.
+   */
+  private static final String NEW = "1.22";
+
+  /**
+   * The Folder, the Launcher is installed in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The installed Launcher.
+   */
+  private File launcher;
+
+  /**
+   * The Version-File of the installed Launcher.
+   */
+  private File versionFile;
+
+  /**
+   * The downloaded Launcher.
+   */
+  private File downloaded;
+
+  /**
+   * Installs the old Launcher and downloads the new one.
+
+   * @throws Exception  If the Launchers couldn't be written.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    launcher = new File(folder.getRoot(), "Launcher.jar");
+    versionFile = new File(folder.getRoot(), "Version.txt");
+    downloaded = new File(folder.getRoot(), "(tmp)Launcher.jar");
+    writeJar(launcher, OLD);
+    Files.write(versionFile.toPath(), OLD.getBytes(StandardCharsets.UTF_8));
+    writeJar(downloaded, NEW);
+  }
+
+  /**
+   * Tests, if an Installation without a Crash installs the new Version and keeps the old one.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testInstall() throws Exception {
+    assertTrue(new LauncherInstaller(launcher).install(downloaded, NEW));
+    assertInstalled(NEW);
+    assertFalse(downloaded.exists());
+    assertEquals(OLD, readVersion(new File(new File(folder.getRoot(),
+        LauncherInstaller.PREVIOUS), launcher.getName())));
+  }
+
+  /**
+   * Tests, if a downloaded File, that isn't a readable Jar, is neither staged nor installed.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testRejectsUnreadableDownload() throws Exception {
+    byte[] truncated = Files.readAllBytes(downloaded.toPath());
+    Files.write(downloaded.toPath(), Arrays.copyOf(truncated, truncated.length / 2));
+    assertFalse(new LauncherInstaller(launcher).install(downloaded, NEW));
+    assertInstalled(OLD);
+    assertTrue(downloaded.exists());
+    assertFalse(new File(folder.getRoot(), LauncherInstaller.STAGE).exists());
+  }
+
+  /**
+   * Tests a Crash before the Stage was committed. The Recovery has to keep the old Version.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterStaged() throws Exception {
+    crashAndRecover("staged", OLD);
+  }
+
+  /**
+   * Tests a Crash after the Stage was committed. The Recovery has to install the new Version.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterCommitted() throws Exception {
+    crashAndRecover("committed", NEW);
+  }
+
+  /**
+   * Tests a Crash after the old Version was kept. The Recovery has to install the new Version.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterKept() throws Exception {
+    crashAndRecover("kept", NEW);
+  }
+
+  /**
+   * Tests a Crash after the new Launcher, but not its Version.txt, was moved into Place. The
+   * Recovery has to install the new Version.txt.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterLauncher() throws Exception {
+    crashAndRecover("launcher", NEW);
+  }
+
+  /**
+   * Tests a Crash after both Files were moved into Place. The Recovery has to remove the Stage.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterVersion() throws Exception {
+    crashAndRecover("version", NEW);
+  }
+
+  /**
+   * Tests a Crash after the Installation was finished.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashAfterFinished() throws Exception {
+    crashAndRecover("finished", NEW);
+  }
+
+  /**
+   * Tests a Crash during the Recovery of a committed Installation. The next Recovery has to
+   * finish it.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testCrashDuringRecovery() throws Exception {
+    crash(new LauncherInstaller(launcher, crashAt("committed")));
+    crash(new LauncherInstaller(launcher, crashAt("launcher")));
+    assertTrue(new LauncherInstaller(launcher).recover());
+    assertInstalled(NEW);
+  }
+
+  /**
+   * Tests, if a damaged Launcher is replaced by the kept previous Version.
+
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testRestoresPrevious() throws Exception {
+    assertTrue(new LauncherInstaller(launcher).install(downloaded, NEW));
+    Files.write(launcher.toPath(), new byte[] {1, 2, 3});
+    assertTrue(new LauncherInstaller(launcher).recover());
+    assertInstalled(OLD);
+  }
+
+  /**
+   * Crashes the Installation after the given Step, recovers it with a new Installer and checks
+   * the installed Version.
+
+   * @param step  The Step, after which the Installation crashes.
+   * @param expected  The Version, that has to be installed after the Recovery.
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  private void crashAndRecover(String step, String expected) throws Exception {
+    crash(new LauncherInstaller(launcher, crashAt(step)));
+    assertTrue(new LauncherInstaller(launcher).recover());
+    assertInstalled(expected);
+    assertFalse(new File(folder.getRoot(), LauncherInstaller.STAGE).exists());
+  }
+
+  /**
+   * Runs the Installation or, if it was already started, the Recovery with the given Installer
+   * and expects it to crash.
+
+   * @param installer The Installer, that crashes at a Checkpoint.
+   * @since 1.22
+   */
+  private void crash(LauncherInstaller installer) {
+    try {
+      if (downloaded.exists()) {
+        installer.install(downloaded, NEW);
+      } else {
+        installer.recover();
+      }
+      fail("Installer didn't crash");
+    } catch (IllegalStateException e) {
+      /*
+       * The simulated Crash.
+       */
+    }
+  }
+
+  /**
+   * Returns a Checkpoint, that crashes after the given Step.
+
+   * @param step  The Step, after which the Checkpoint crashes.
+   * @return  The Checkpoint.
+   * @since 1.22
+   */
+  private static Consumer<String> crashAt(String step) {
+    return name -> {
+      if (name.equals(step)) {
+        throw new IllegalStateException("Crash after " + step);
+      }
+    };
+  }
+
+  /**
+   * Asserts, that the given Version is installed: the Launcher is readable and both the Launcher
+   * and the Version.txt belong to the given Version.
+
+   * @param version The Version, that has to be installed.
+   * @throws Exception  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  private void assertInstalled(String version) throws Exception {
+    assertTrue(LauncherInstaller.isReadable(launcher.toPath()));
+    assertEquals(version, readVersion(launcher));
+    assertArrayEquals(version.getBytes(StandardCharsets.UTF_8),
+        Files.readAllBytes(versionFile.toPath()));
+  }
+
+  /**
+   * Reads the Version, the given Launcher was built for.
+
+   * @param jar The Launcher to be read.
+   * @return  The Version of the Launcher.
+   * @throws IOException  If the Launcher couldn't be read.
+   * @since 1.22
+   */
+  private static String readVersion(File jar) throws IOException {
+    try (ZipFile zip = new ZipFile(jar);
+        InputStream is = zip.getInputStream(zip.getEntry("version"));
+        Scanner scanner = new Scanner(is, "UTF-8")) {
+      return scanner.nextLine();
+    }
+  }
+
+  /**
+   * Writes a Launcher of the given Version.
+
+   * @param jar The File, the Launcher is written to.
+   * @param version The Version of the Launcher.
+   * @throws IOException  If the Launcher couldn't be written.
+   * @since 1.22
+   */
+  private static void writeJar(File jar, String version) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+      out.putNextEntry(new ZipEntry("version"));
+      out.write(version.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      byte[] padding = new byte[64 * 1024];
+      new Random(version.hashCode()).nextBytes(padding);
+      out.putNextEntry(new ZipEntry("padding.bin"));
+      out.write(padding);
+      out.closeEntry();
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package tasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Compares the Time until a Launcher was started in a separate Process with the Time, the
+ * LauncherStarter needs to call its main-Method inside this JVM. The FX-Toolkit isn't available
+ * here, so the Launcher is a {@link Probe}, that loads all Classes of its Jar and returns, as the
+ * Launcher would before showing its Window. Its Jar contains the Classes of the given Library Jars,
+ * so the Amount of loaded Code can be chosen. This isn't run with the Tests, but started on its
+ * own: <br>
+ * {@code java tasks.LauncherStartBenchmark [Rounds] [Library.jar ...]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class LauncherStartBenchmark {
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The amount of measured Rounds and the Library Jars, all optional.
+   * @throws Exception  If the Launcher couldn't be started.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    File jar = File.createTempFile("Launcher", ".jar");
+    jar.deleteOnExit();
+    int classes = createJar(jar, Arrays.copyOfRange(args, Math.min(1, args.length), args.length));
+    for (int i = 0; i < 2; i++) {
+      inProcess(jar);
+      process(jar);
+    }
+    long[] handedOff = new long[rounds];
+    long[] started = new long[rounds];
+    for (int i = 0; i < rounds; i++) {
+      handedOff[i] = inProcess(jar);
+      started[i] = process(jar);
+    }
+    System.out.printf("Launcher: %d KB, %d Classes, Java %s%n", jar.length() / 1024, classes,
+        System.getProperty("java.version"));
+    System.out.printf("main-Method in this JVM %.1f ms, separate Process %.1f ms (Median of %d)%n",
+        median(handedOff), median(started), rounds);
+  }
+
+  /**
+   * Calls the main-Method of the Launcher inside this JVM with its own URLClassLoader on a Thread
+   * of its own, as the LauncherStarter does, and waits, until it returned.
+
+   * @param jar The Launcher.
+   * @return  The Time in ns.
+   * @throws Exception  If the main-Method failed.
+   * @since 1.22
+   */
+  private static long inProcess(File jar) throws Exception {
+    long begin = System.nanoTime();
+    /*
+     * The Parent is the Platform, so the Probe and the Libraries aren't taken from the Classpath
+     * of the Benchmark.
+     */
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null)) {
+      Method main = Class.forName(Probe.class.getName(), false, loader).getMethod("main",
+          String[].class);
+      Exception[] failure = new Exception[1];
+      Thread thread = new Thread(() -> {
+        try {
+          main.invoke(null, (Object) new String[] {jar.getPath(), "quiet"});
+        } catch (Exception e) {
+          failure[0] = e;
+        }
+      }, "Launcher");
+      thread.setContextClassLoader(loader);
+      thread.start();
+      thread.join();
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+    }
+    return System.nanoTime() - begin;
+  }
+
+  /**
+   * Starts the Launcher in a separate Process, as the LauncherStarter does without Hand-Off, and
+   * waits, until it reported, that it was started.
+
+   * @param jar The Launcher.
+   * @return  The Time in ns.
+   * @throws Exception  If the Process couldn't be started.
+   * @since 1.22
+   */
+  private static long process(File jar) throws Exception {
+    long begin = System.nanoTime();
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    Process process = new ProcessBuilder(java, "-jar", jar.getPath(), jar.getPath())
+        .redirectErrorStream(true).start();
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(
+        process.getInputStream()))) {
+      String line = br.readLine();
+      long elapsed = System.nanoTime() - begin;
+      if (!Probe.STARTED.equals(line)) {
+        throw new IOException("Launcher failed: " + line);
+      }
+      process.waitFor();
+      return elapsed;
+    }
+  }
+
+  /**
+   * Writes the Launcher with the Probe as its Main-Class and the Classes of the given Libraries.
+
+   * @param jar The Launcher.
+   * @param libraries The Library Jars.
+   * @return  The amount of Classes in the Launcher.
+   * @throws IOException  If the Launcher couldn't be written.
+   * @since 1.22
+   */
+  private static int createJar(File jar, String[] libraries) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, Probe.class.getName());
+    int classes = 0;
+    Set<String> names = new HashSet<String>();
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+      String probe = Probe.class.getName().replace('.', '/') + ".class";
+      try (InputStream in = Probe.class.getResourceAsStream("/" + probe)) {
+        out.putNextEntry(new JarEntry(probe));
+        copy(in, out);
+        classes++;
+      }
+      for (String library : libraries) {
+        try (JarInputStream in = new JarInputStream(Files.newInputStream(new File(library)
+            .toPath()))) {
+          JarEntry entry;
+          while ((entry = in.getNextJarEntry()) != null) {
+            String name = entry.getName();
+            if (name.endsWith(".class") && !name.contains("module-info") && names.add(name)) {
+              out.putNextEntry(new JarEntry(name));
+              copy(in, out);
+              classes++;
+            }
+          }
+        }
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Copies the given Stream into the Jar.
+
+   * @param in  The Stream to be copied.
+   * @param out The Jar.
+   * @throws IOException  If the Stream couldn't be copied.
+   * @since 1.22
+   */
+  private static void copy(InputStream in, JarOutputStream out) throws IOException {
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) >= 0) {
+      out.write(buffer, 0, read);
+    }
+    out.closeEntry();
+  }
+
+  /**
+   * Returns the Median of the given Durations in ms.
+
+   * @param durations The Durations in ns.
+   * @return  The Median in ms.
+   * @since 1.22
+   */
+  private static double median(long[] durations) {
+    long[] sorted = durations.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  }
+
+  /**
+   * The Launcher of the Benchmark. It only uses Classes of the Platform, so it can be loaded
+   * without the Classpath of the Benchmark.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  public static class Probe {
+
+    /**
+     * The Line, the Probe prints, when it was started.
+     */
+    static final String STARTED = "started";
+
+    /**
+     * Loads all Classes of the given Jar and reports, that it was started. Inside the JVM of the
+     * Benchmark, it's started with a second Argument and doesn't report anything.
+
+     * @param args  The Jar, the Probe was started from, and optionally a second Argument.
+     * @throws Exception  If the Jar couldn't be read.
+     * @since 1.22
+     */
+    public static void main(String[] args) throws Exception {
+      ClassLoader loader = Probe.class.getClassLoader();
+      try (JarFile jar = new JarFile(args[0])) {
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+          String name = entries.nextElement().getName();
+          if (name.endsWith(".class")) {
+            try {
+              Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false,
+                  loader);
+            } catch (LinkageError | ClassNotFoundException e) {
+              /*
+               * Classes, whose optional Dependencies are missing, are skipped.
+               */
+            }
+          }
+        }
+      }
+      if (args.length == 1) {
+        System.out.println(STARTED);
+      }
+    }
+  }
+}
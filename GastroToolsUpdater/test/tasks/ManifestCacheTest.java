@@ -0,0 +1,230 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * Tests the conditional Requests of the Version-Manifest with the ManifestCache against a local
+ * Server, that answers {@code 304 Not Modified}, if the ETag of the Request matches its Manifest.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class ManifestCacheTest {
+
+  /**
+   * The Path of the Manifest on the Server.
+   */
+  private static final String PATH = "/manifest";
+
+  /**
+   * The Folder, the Cache is stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The Server, the Manifest is requested from.
+   */
+  private StubServer server;
+
+  /**
+   * The Scheduler of the Request.
+   */
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * The File, the Cache is stored in.
+   */
+  private File cacheFile;
+
+  /**
+   * The Manifest, the Server delivers.
+   */
+  private volatile String manifest;
+
+  /**
+   * The ETag of the Manifest, the Server delivers, or {@code null}, if it sends none.
+   */
+  private volatile String etag;
+
+  /**
+   * The If-None-Match Headers of all Requests, {@code null} for unconditional Requests.
+   */
+  private List<String> requests;
+
+  /**
+   * Starts the Server.
+
+   * @throws Exception  If the Server couldn't be started.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    server = new StubServer();
+    scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Test"));
+    cacheFile = new File(folder.getRoot(), "manifest.cache");
+    requests = Collections.synchronizedList(new ArrayList<String>());
+    manifest = "current=1.5\nolder=1.4\n";
+    etag = "\"v1\"";
+    server.handle(PATH, this::answer);
+  }
+
+  /**
+   * Stops the Server and the Scheduler.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    server.close();
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Tests, if a Manifest is requested unconditionally without a Cache and is cached afterwards.
+
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  @Test
+  public void testOk() throws Exception {
+    assertEquals("1.5", request().getCurrentVersion());
+    assertEquals(Collections.singletonList(null), requests);
+    ManifestCache cache = new ManifestCache(cacheFile);
+    assertEquals("\"v1\"", cache.getETag());
+    assertEquals("1.5", cache.getManifest().getCurrentVersion());
+    assertFalse(new File(cacheFile.getPath() + ".tmp").exists());
+  }
+
+  /**
+   * Tests, if the cached Manifest is taken, when the Server answers {@code 304 Not Modified}.
+
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  @Test
+  public void testNotModified() throws Exception {
+    request();
+    requests.clear();
+    assertEquals("1.5", request().getCurrentVersion());
+    assertEquals(Collections.singletonList("\"v1\""), requests);
+  }
+
+  /**
+   * Tests, if a stale Cache is replaced by the new Manifest, when the Server answers with it.
+
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  @Test
+  public void testStale() throws Exception {
+    request();
+    manifest = "current=1.6\nolder=1.5,1.4\n";
+    etag = "\"v2\"";
+    requests.clear();
+    assertEquals("1.6", request().getCurrentVersion());
+    assertEquals(Collections.singletonList("\"v1\""), requests);
+    ManifestCache cache = new ManifestCache(cacheFile);
+    assertEquals("\"v2\"", cache.getETag());
+    assertEquals("1.6", cache.getManifest().getCurrentVersion());
+  }
+
+  /**
+   * Tests, if a damaged Cache, that the Server confirms with {@code 304 Not Modified}, is deleted
+   * and the Manifest is requested again unconditionally.
+
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  @Test
+  public void testDamaged() throws Exception {
+    Files.write(cacheFile.toPath(), "ETag: \"v1\"\n\nolder=1.4\n".getBytes(
+        StandardCharsets.UTF_8));
+    assertEquals("1.5", request().getCurrentVersion());
+    assertEquals(2, requests.size());
+    assertEquals("\"v1\"", requests.get(0));
+    assertNull(requests.get(1));
+    assertEquals("1.5", new ManifestCache(cacheFile).getManifest().getCurrentVersion());
+  }
+
+  /**
+   * Tests, if a Manifest without ETag and Last-Modified Date deletes the Cache, since it can't be
+   * validated.
+
+   * @throws Exception  If the Request failed.
+   * @since 1.22
+   */
+  @Test
+  public void testNotValidatable() throws Exception {
+    request();
+    etag = null;
+    manifest = "current=1.6\n";
+    requests.clear();
+    assertEquals("1.6", request().getCurrentVersion());
+    assertFalse(cacheFile.exists());
+    assertFalse(new ManifestCache(cacheFile).isValidatable());
+  }
+
+  /**
+   * Requests the Manifest from the Server with the Cache in the temporary Folder.
+
+   * @return  The Manifest.
+   * @throws IOException  If the Request failed.
+   * @since 1.22
+   */
+  private VersionManifest request() throws IOException {
+    return new HedgedManifestRequest(Collections.singletonList(server.url(PATH)),
+        new ManifestCache(cacheFile), new RetryPolicy(new UpdaterSettingsTool(new File(
+            folder.getRoot(), "UpdaterSettings.txt")), 5000), scheduler).request();
+  }
+
+  /**
+   * Answers a Request with {@code 304 Not Modified}, if its If-None-Match Header matches the
+   * ETag of the Manifest, and with the Manifest otherwise.
+
+   * @param exchange  The Request to be answered.
+   * @throws IOException  If the Answer couldn't be sent.
+   * @since 1.22
+   */
+  private void answer(HttpExchange exchange) throws IOException {
+    String match = exchange.getRequestHeaders().getFirst("If-None-Match");
+    requests.add(match);
+    String currentEtag = etag;
+    try {
+      if (match != null && match.equals(currentEtag)) {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+      if (currentEtag != null) {
+        exchange.getResponseHeaders().set(ManifestCache.ETAG, currentEtag);
+      }
+      byte[] bytes = manifest.getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(bytes);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
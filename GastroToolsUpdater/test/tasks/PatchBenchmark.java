@@ -0,0 +1,205 @@
+package tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Measures the Size of Patches between two Versions of a Jar and the Time the PatchDownloader
+ * needs to apply them, compared with a full Download of the new Version from a local Server.
+ * The Patches are created by a simple Matcher, that finds exact Matches of at least
+ * {@link #MIN_MATCH} Bytes. This isn't run with the Tests, but started on its own: <br>
+ * {@code java tasks.PatchBenchmark old.jar new.jar [Rounds]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class PatchBenchmark {
+
+  /**
+   * The minimal Length of a Match, that is taken from the old File.
+   */
+  private static final int MIN_MATCH = 16;
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The old and the new Jar and the amount of measured Rounds, which is optional.
+   * @throws Exception  If a File couldn't be read or a Download failed.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    File oldFile = new File(args[0]);
+    byte[] newData = Files.readAllBytes(new File(args[1]).toPath());
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    byte[] patch = createPatch(Files.readAllBytes(oldFile.toPath()), newData);
+    File output = File.createTempFile("patched", ".jar");
+    output.deleteOnExit();
+    try (StubServer server = new StubServer()) {
+      server.setContent(newData);
+      server.handle("/Launcher.patch", exchange -> {
+        exchange.sendResponseHeaders(200, patch.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+          os.write(patch);
+        }
+      });
+      PatchDownloader patcher = new PatchDownloader(server.url("/Launcher.patch"), oldFile,
+          output);
+      TransferPipelineBenchmark.Download apply = () -> {
+        if (!patcher.download(() -> false, length -> { }, bytes -> { })) {
+          throw new IOException("Patch failed");
+        }
+      };
+      TransferPipelineBenchmark.Download full = () -> fullDownload(server, output);
+      for (int i = 0; i < 3; i++) {
+        apply.run();
+        full.run();
+      }
+      long[] patched = new long[rounds];
+      long[] downloaded = new long[rounds];
+      for (int i = 0; i < rounds; i++) {
+        patched[i] = TransferPipelineBenchmark.measure(apply)[0];
+        downloaded[i] = TransferPipelineBenchmark.measure(full)[0];
+      }
+      if (!Arrays.equals(newData, Files.readAllBytes(output.toPath()))) {
+        throw new IOException("Patched File doesn't match");
+      }
+      System.out.printf("%s -> %s: old %d B, new %d B, Patch %d B (%.1f %%)%n", args[0], args[1],
+          oldFile.length(), newData.length, patch.length, 100.0 * patch.length / newData.length);
+      System.out.printf("Apply Patch %.1f ms, full Download %.1f ms (Median of %d)%n",
+          median(patched), median(downloaded), rounds);
+    }
+  }
+
+  /**
+   * Creates a Patch in the Format of the PatchDownloader, that builds the new File from the old
+   * one.
+
+   * @param oldData The old File.
+   * @param newData The new File.
+   * @return  The Patch.
+   * @throws Exception  If the Patch couldn't be created.
+   * @since 1.22
+   */
+  static byte[] createPatch(byte[] oldData, byte[] newData) throws Exception {
+    /*
+     * Indexes every Position of the old File by its first Bytes and collects the Matches of the
+     * new File as Triples of their Position in the old File, in the new File and their Length.
+     */
+    Map<Long, Integer> index = new HashMap<Long, Integer>();
+    for (int i = 0; i + 8 <= oldData.length; i++) {
+      index.putIfAbsent(key(oldData, i), i);
+    }
+    List<int[]> matches = new ArrayList<int[]>();
+    int pos = 0;
+    while (pos < newData.length) {
+      Integer match = pos + 8 <= newData.length ? index.get(key(newData, pos)) : null;
+      int length = 0;
+      if (match != null) {
+        while (pos + length < newData.length && match + length < oldData.length
+            && newData[pos + length] == oldData[match + length]) {
+          length++;
+        }
+      }
+      if (length >= MIN_MATCH) {
+        matches.add(new int[] {match, pos, length});
+        pos += length;
+      } else {
+        pos++;
+      }
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream header = new DataOutputStream(bytes);
+    header.write(new byte[] {'G', 'T', 'P', 'A', 'T', 'C', 'H', '1'});
+    header.writeLong(newData.length);
+    header.write(MessageDigest.getInstance("SHA-256").digest(newData));
+    /*
+     * The first Tuple copies the Bytes before the first Match and seeks to it. Every following
+     * Tuple adds a Match, whose Diff-Bytes are all 0, copies the Bytes up to the next Match and
+     * seeks to it.
+     */
+    try (DataOutputStream body = new DataOutputStream(new DeflaterOutputStream(bytes,
+        new Deflater(Deflater.BEST_COMPRESSION)))) {
+      int[] previous = {0, 0, 0};
+      for (int i = 0; i <= matches.size(); i++) {
+        int[] next = i < matches.size() ? matches.get(i) : new int[] {previous[0] + previous[2],
+            newData.length, 0};
+        int copyStart = previous[1] + previous[2];
+        body.writeLong(previous[2]);
+        body.writeLong(next[1] - copyStart);
+        body.writeLong(next[0] - (previous[0] + previous[2]));
+        for (int n = 0; n < previous[2]; n++) {
+          body.writeByte(newData[previous[1] + n] - oldData[previous[0] + n]);
+        }
+        body.write(newData, copyStart, next[1] - copyStart);
+        previous = next;
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the 8 Bytes at the given Position as the Key of the Index.
+
+   * @param data  The File.
+   * @param pos The Position of the first Byte.
+   * @return  The Key.
+   * @since 1.22
+   */
+  private static long key(byte[] data, int pos) {
+    long key = 0;
+    for (int i = 0; i < 8; i++) {
+      key = key << 8 | (data[pos + i] & 0xFF);
+    }
+    return key;
+  }
+
+  /**
+   * Downloads the whole new File, as the DownloadTask does without a Patch.
+
+   * @param server  The Server of the new File.
+   * @param output  The File, the Download is written to.
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  private static void fullDownload(StubServer server, File output) throws Exception {
+    HttpURLConnection con = (HttpURLConnection) new URL(server.url(StubServer.FILE))
+        .openConnection();
+    try (ReadableByteChannel source = Channels.newChannel(con.getInputStream());
+        FileChannel target = FileChannel.open(output.toPath(), StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      new TransferPipeline(source, target, con.getContentLengthLong()).transfer(0,
+          Long.MAX_VALUE, () -> false, bytes -> { });
+    }
+  }
+
+  /**
+   * Returns the Median of the given Durations in ms.
+
+   * @param durations The Durations in ns.
+   * @return  The Median in ms.
+   * @since 1.22
+   */
+  private static double median(long[] durations) {
+    long[] sorted = durations.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  }
+}
@@ -0,0 +1,154 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests, how many Runnables the ProgressPublisher posts to the FX-Thread during a Download. A
+ * single Thread stands in for the FX-Thread.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class ProgressPublisherTest {
+
+  /**
+   * The Size of a downloaded Chunk, as the TransferPipeline uses it for small Downloads.
+   */
+  private static final int CHUNK = 16384;
+
+  /**
+   * The Scheduler, the Sampler is run on.
+   */
+  private ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * The Thread, that stands in for the FX-Thread.
+   */
+  private ExecutorService fxThread;
+
+  /**
+   * The amount of Runnables, that were posted to the FX-Thread.
+   */
+  private AtomicInteger posts;
+
+  /**
+   * Starts the Scheduler and the FX-Thread.
+
+   * @since 1.22
+   */
+  @Before
+  public void setUp() {
+    scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("Test"));
+    scheduler.setRemoveOnCancelPolicy(true);
+    fxThread = Executors.newSingleThreadExecutor(new NamedThreadFactory("FX"));
+    posts = new AtomicInteger();
+  }
+
+  /**
+   * Stops the Scheduler and the FX-Thread.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+    fxThread.shutdownNow();
+  }
+
+  /**
+   * Tests, if a Download, that reports every Chunk, posts at most one Runnable per Frame instead
+   * of one per Chunk, and if its last State is rendered.
+
+   * @throws Exception  If the Test was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testPostsPerMegabyte() throws Exception {
+    AtomicLong rendered = new AtomicLong();
+    AtomicLong downloaded = new AtomicLong();
+    ProgressPublisher publisher = new ProgressPublisher(() -> rendered.set(downloaded.get()),
+        scheduler, runnable -> {
+          posts.incrementAndGet();
+          fxThread.execute(runnable);
+        });
+    int megabytes = 8;
+    long begin = System.nanoTime();
+    for (long bytes = CHUNK; bytes <= megabytes * 1024 * 1024; bytes += CHUNK) {
+      downloaded.set(bytes);
+      publisher.changed();
+      Thread.sleep(1);
+    }
+    publisher.close();
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    fxThread.submit(() -> { }).get();
+    int frames = (int) (elapsed / 50) + 1;
+    assertTrue(posts.get() + " Posts in " + frames + " Frames", posts.get() <= frames + 1);
+    assertTrue(posts.get() < megabytes * 1024 * 1024 / CHUNK / 4);
+    assertEquals(downloaded.get(), rendered.get());
+  }
+
+  /**
+   * Tests, if only one Runnable is waiting for the FX-Thread, while it's busy, no matter how many
+   * Frames pass.
+
+   * @throws Exception  If the Test was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testCoalescesWhileBusy() throws Exception {
+    List<Runnable> queue = new ArrayList<Runnable>();
+    AtomicInteger renders = new AtomicInteger();
+    ProgressPublisher publisher = new ProgressPublisher(renders::incrementAndGet, scheduler,
+        runnable -> {
+          posts.incrementAndGet();
+          synchronized (queue) {
+            queue.add(runnable);
+          }
+        });
+    for (int i = 0; i < 40; i++) {
+      publisher.changed();
+      Thread.sleep(5);
+    }
+    assertEquals(1, posts.get());
+    synchronized (queue) {
+      queue.remove(0).run();
+    }
+    publisher.close();
+    assertEquals(2, posts.get());
+    assertEquals(1, renders.get());
+  }
+
+  /**
+   * Tests, if closing the Publisher stops its Sampler, so it doesn't keep running on the shared
+   * Scheduler.
+
+   * @throws Exception  If the Test was interrupted.
+   * @since 1.22
+   */
+  @Test
+  public void testCloseStopsSampler() throws Exception {
+    ProgressPublisher publisher = new ProgressPublisher(() -> { }, scheduler, runnable -> {
+      posts.incrementAndGet();
+      runnable.run();
+    });
+    publisher.changed();
+    publisher.close();
+    assertTrue(scheduler.getQueue().isEmpty());
+    int closed = posts.get();
+    Thread.sleep(150);
+    assertEquals(closed, posts.get());
+  }
+}
@@ -0,0 +1,200 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the RateLimiter with a fake Clock and measures its Throughput against a local Server.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class RateLimiterTest {
+
+  /**
+   * The allowed amount of Bytes per second.
+   */
+  private static final long RATE = 100_000;
+
+  /**
+   * The Folder, the limited Download is stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The fake Clock in ns.
+   */
+  private AtomicLong nanos;
+
+  /**
+   * The fake Time of Day.
+   */
+  private AtomicReference<LocalTime> time;
+
+  /**
+   * Creates the fake Clocks.
+
+   * @since 1.22
+   */
+  @Before
+  public void setUp() {
+    nanos = new AtomicLong(0);
+    time = new AtomicReference<LocalTime>(LocalTime.NOON);
+  }
+
+  /**
+   * Tests, if every Chunk takes its Bytes from the Bucket and the Bucket is refilled with the
+   * allowed Rate, but never beyond a quarter Second.
+
+   * @since 1.22
+   */
+  @Test
+  public void testTokenBucket() {
+    RateLimiter limiter = newLimiter("");
+    assertEquals(100, limiter.reserve(10_000));
+    advance(100);
+    assertEquals(100, limiter.reserve(10_000));
+    advance(1000);
+    assertEquals(0, limiter.reserve(RATE / 4));
+    assertEquals(50, limiter.reserve(5_000));
+    assertEquals(RATE / 8, limiter.limitChunk(1 << 20));
+    assertEquals(1024, limiter.limitChunk(1024));
+  }
+
+  /**
+   * Tests, if a long Download, that waits as told, keeps the allowed Rate.
+
+   * @since 1.22
+   */
+  @Test
+  public void testSustainedRate() {
+    RateLimiter limiter = newLimiter("");
+    long bytes = 0;
+    int chunk = limiter.limitChunk(1 << 20);
+    while (nanos.get() < TimeUnit.SECONDS.toNanos(60)) {
+      advance(limiter.reserve(chunk));
+      bytes += chunk;
+    }
+    assertEquals(60 * RATE, bytes, RATE / 4 + chunk);
+  }
+
+  /**
+   * Tests, if the Limit only applies during the Service-Hours, also for Service-Hours, that span
+   * Midnight, and if malformed Service-Hours are ignored.
+
+   * @since 1.22
+   */
+  @Test
+  public void testServiceHours() {
+    RateLimiter limiter = newLimiter("11:00-14:30, 22:00-02:00, lunch");
+    assertLimited(limiter, "11:00", true);
+    assertLimited(limiter, "14:29", true);
+    assertLimited(limiter, "14:30", false);
+    assertLimited(limiter, "18:00", false);
+    assertLimited(limiter, "23:30", true);
+    assertLimited(limiter, "00:00", true);
+    assertLimited(limiter, "01:59", true);
+    assertLimited(limiter, "02:00", false);
+    assertLimited(limiter, "10:59", false);
+  }
+
+  /**
+   * Tests, if the Download runs at full Speed outside of the Service-Hours and without a Limit.
+
+   * @since 1.22
+   */
+  @Test
+  public void testUnlimited() {
+    RateLimiter limiter = newLimiter("11:00-14:00");
+    time.set(LocalTime.of(16, 0));
+    assertEquals(0, limiter.reserve(10 * RATE));
+    assertEquals(1 << 20, limiter.limitChunk(1 << 20));
+    RateLimiter none = new RateLimiter(0, "", nanos::get, time::get);
+    assertFalse(none.isLimited());
+    assertEquals(0, none.reserve(10 * RATE));
+  }
+
+  /**
+   * Measures the Throughput of a limited Download from a local Server. It has to be close to the
+   * allowed Rate.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testMeasuredThroughput() throws Exception {
+    long rate = 200_000;
+    byte[] content = new byte[(int) (2 * rate)];
+    try (StubServer server = new StubServer()) {
+      server.setContent(content);
+      File output = folder.newFile("limited.bin");
+      HttpURLConnection con = (HttpURLConnection) new URL(server.url(StubServer.FILE))
+          .openConnection();
+      long begin = System.nanoTime();
+      long written;
+      try (ReadableByteChannel source = Channels.newChannel(con.getInputStream());
+          FileChannel target = FileChannel.open(output.toPath(), StandardOpenOption.WRITE)) {
+        TransferPipeline pipeline = new TransferPipeline(source, target, content.length);
+        pipeline.setRateLimiter(new RateLimiter(rate, ""));
+        written = pipeline.transfer(0, Long.MAX_VALUE, () -> false, bytes -> { });
+      }
+      double seconds = (System.nanoTime() - begin) / 1e9;
+      assertEquals(content.length, written);
+      double throughput = written / seconds;
+      assertTrue("Throughput was " + Math.round(throughput) + " B/s",
+          throughput > rate * 0.8 && throughput < rate * 1.2);
+    }
+  }
+
+  /**
+   * Asserts, if the Limit applies at the given Time of Day.
+
+   * @param limiter The RateLimiter to be checked.
+   * @param now The Time of Day.
+   * @param limited {@code true}, if the Limit has to apply, {@code false} if not.
+   * @since 1.22
+   */
+  private void assertLimited(RateLimiter limiter, String now, boolean limited) {
+    time.set(LocalTime.parse(now));
+    assertEquals(now, limited, limiter.isLimited());
+  }
+
+  /**
+   * Creates a RateLimiter with the fake Clocks.
+
+   * @param serviceHours  The Service-Hours, during which the Limit applies.
+   * @return  The new RateLimiter.
+   * @since 1.22
+   */
+  private RateLimiter newLimiter(String serviceHours) {
+    return new RateLimiter(RATE, serviceHours, nanos::get, time::get);
+  }
+
+  /**
+   * Advances the fake Clock by the given Time.
+
+   * @param millis  The Time in ms.
+   * @since 1.22
+   */
+  private void advance(long millis) {
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+}
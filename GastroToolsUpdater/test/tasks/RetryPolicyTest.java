@@ -0,0 +1,191 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import updatersettings.UpdaterSettingsTool;
+
+/**
+ * Tests the RetryPolicy with a fake Clock and a fixed Jitter.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class RetryPolicyTest {
+
+  /**
+   * The Timeout of the Settings in ms.
+   */
+  private static final long TIMEOUT = 4000;
+
+  /**
+   * The Folder, the Settings File is stored in.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The fake Clock in ms.
+   */
+  private AtomicLong clock;
+
+  /**
+   * The Settings File.
+   */
+  private File settingsFile;
+
+  /**
+   * Creates the Clock and the Settings File.
+
+   * @since 1.22
+   */
+  @Before
+  public void setUp() {
+    clock = new AtomicLong(1_000_000);
+    settingsFile = new File(folder.getRoot(), "UpdaterSettings.txt");
+  }
+
+  /**
+   * Tests, if the Timeout of the Settings is used, as long as no Round-Trip was measured.
+
+   * @throws Exception  If the Connection couldn't be created.
+   * @since 1.22
+   */
+  @Test
+  public void testDefaultsWithoutRoundTrip() throws Exception {
+    RetryPolicy policy = newPolicy(0.5);
+    assertEquals(TIMEOUT, policy.getCheckTimeout(0));
+    assertEquals(2 * TIMEOUT, policy.getCheckTimeout(1));
+    assertEquals(TIMEOUT / 4, policy.getHedgeDelay());
+    URLConnection con = new URL("http://127.0.0.1/").openConnection();
+    policy.applyTimeouts(con);
+    assertEquals(3 * TIMEOUT, con.getConnectTimeout());
+    assertEquals(4 * TIMEOUT, con.getReadTimeout());
+  }
+
+  /**
+   * Tests, if the Timeouts follow the moving Average of the measured Round-Trips.
+
+   * @throws Exception  If the Connection couldn't be created.
+   * @since 1.22
+   */
+  @Test
+  public void testAdaptsToRoundTrips() throws Exception {
+    RetryPolicy policy = newPolicy(0.5);
+    roundTrip(policy, 300);
+    assertEquals(2400, policy.getCheckTimeout(0));
+    assertEquals(4800, policy.getCheckTimeout(1));
+    assertEquals(300 + 2 * 150, policy.getHedgeDelay());
+
+    /*
+     * Average 0.25 * 700 + 0.75 * 300 = 400, Deviation 0.25 * 400 + 0.75 * 150 = 212.5.
+     */
+    roundTrip(policy, 700);
+    assertEquals(3200, policy.getCheckTimeout(0));
+    assertEquals(400 + 425, policy.getHedgeDelay());
+    URLConnection con = new URL("http://127.0.0.1/").openConnection();
+    policy.applyTimeouts(con);
+    assertEquals(1200, con.getConnectTimeout());
+    assertEquals(2000, con.getReadTimeout());
+  }
+
+  /**
+   * Tests, if the Timeout of a Check stays within its Bounds for very fast and very slow Servers.
+
+   * @since 1.22
+   */
+  @Test
+  public void testLimitsCheckTimeout() {
+    RetryPolicy fast = newPolicy(0.5);
+    roundTrip(fast, 5);
+    assertEquals(2000, fast.getCheckTimeout(0));
+    assertEquals(100, fast.getHedgeDelay());
+    RetryPolicy slow = newPolicy(0.5);
+    roundTrip(slow, 20000);
+    assertEquals(60000, slow.getCheckTimeout(0));
+    assertEquals(60000, slow.getCheckTimeout(10));
+  }
+
+  /**
+   * Tests, if the Backoff grows exponentially up to its Maximum and the Jitter is taken from the
+   * whole Range.
+
+   * @since 1.22
+   */
+  @Test
+  public void testBackoff() {
+    RetryPolicy longest = newPolicy(0.9999999);
+    assertEquals(0, longest.getBackoff(0));
+    assertEquals(500, longest.getBackoff(1));
+    assertEquals(1000, longest.getBackoff(2));
+    assertEquals(2000, longest.getBackoff(3));
+    assertEquals(8000, longest.getBackoff(10));
+    RetryPolicy shortest = newPolicy(0);
+    assertEquals(0, shortest.getBackoff(3));
+    RetryPolicy half = newPolicy(0.5);
+    assertEquals(1000, half.getBackoff(3));
+  }
+
+  /**
+   * Tests, if the Round-Trips are only stored once by {@link RetryPolicy#store()} and restored by
+   * the next Policy.
+
+   * @since 1.22
+   */
+  @Test
+  public void testStoresOnce() {
+    RetryPolicy policy = newPolicy(0.5);
+    roundTrip(policy, 200);
+    roundTrip(policy, 600);
+    assertFalse(settingsFile.exists());
+    policy.store();
+    assertTrue(settingsFile.exists());
+    RetryPolicy restored = newPolicy(0.5);
+    assertEquals(policy.getCheckTimeout(0), restored.getCheckTimeout(0));
+    assertEquals(policy.getHedgeDelay(), restored.getHedgeDelay());
+    assertFalse(new File(settingsFile.getPath() + ".tmp").exists());
+  }
+
+  /**
+   * Creates a Policy with the fake Clock, whose Jitter is always the given Fraction of the
+   * maximal Backoff.
+
+   * @param jitter  The Fraction of the maximal Backoff, every Backoff will take.
+   * @return  The new Policy.
+   * @since 1.22
+   */
+  private RetryPolicy newPolicy(double jitter) {
+    return new RetryPolicy(new UpdaterSettingsTool(settingsFile), TIMEOUT, clock::get,
+        new Random() {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          public double nextDouble() {
+            return jitter;
+          }
+        });
+  }
+
+  /**
+   * Measures a Round-Trip of the given Duration with the fake Clock.
+
+   * @param policy  The Policy, that measures the Round-Trip.
+   * @param duration  The Duration of the Round-Trip in ms.
+   * @since 1.22
+   */
+  private void roundTrip(RetryPolicy policy, long duration) {
+    long start = policy.now();
+    clock.addAndGet(duration);
+    policy.finishRoundTrip(start);
+  }
+}
@@ -0,0 +1,164 @@
+package tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the SegmentedDownloader against a local Server, that supports Range-Requests.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class SegmentedDownloaderTest {
+
+  /**
+   * The Size of the downloaded File.
+   */
+  private static final int LENGTH = 3 * 1024 * 1024 + 17;
+
+  /**
+   * The Folder, the File and the Journal are downloaded into.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The Server, the File is downloaded from.
+   */
+  private StubServer server;
+
+  /**
+   * The Content of the served File.
+   */
+  private byte[] content;
+
+  /**
+   * Starts the Server with a random File.
+
+   * @throws Exception  If the Server couldn't be started.
+   * @since 1.22
+   */
+  @Before
+  public void setUp() throws Exception {
+    content = new byte[LENGTH];
+    new Random(42).nextBytes(content);
+    server = new StubServer();
+    server.setContent(content);
+  }
+
+  /**
+   * Stops the Server.
+
+   * @since 1.22
+   */
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  /**
+   * Tests, if the Segments are reassembled into the served File and every Byte is requested only
+   * once.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testReassemblesSegments() throws Exception {
+    File output = folder.newFile("(tmp).jar");
+    DownloadJournal journal = newJournal();
+    SegmentedDownloader downloader = new SegmentedDownloader(server.url(StubServer.FILE), output,
+        journal, LENGTH, 4, () -> false, bytes -> { });
+    assertEquals(0, downloader.prepare());
+    assertTrue(downloader.download());
+    assertArrayEquals(content, Files.readAllBytes(output.toPath()));
+    assertTrue(journal.isCommitted());
+    assertEquals(4, server.getBodies());
+    assertEquals(LENGTH, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if a cancelled Download resumes every Segment from its committed Position and only
+   * requests the missing Bytes.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testResumesSegments() throws Exception {
+    File output = folder.newFile("(tmp).jar");
+    AtomicBoolean cancelled = new AtomicBoolean();
+    SegmentedDownloader first = new SegmentedDownloader(server.url(StubServer.FILE), output,
+        newJournal(), LENGTH, 4, cancelled::get, bytes -> {
+          if (bytes > LENGTH / 2) {
+            cancelled.set(true);
+          }
+        });
+    first.prepare();
+    first.download();
+
+    DownloadJournal journal = DownloadJournal.read(getJournalFile());
+    assertNotNull(journal);
+    assertTrue(journal.isSegmented());
+    assertFalse(journal.isComplete());
+    server.resetCounters();
+    SegmentedDownloader second = new SegmentedDownloader(server.url(StubServer.FILE), output,
+        journal, LENGTH, 4, () -> false, bytes -> { });
+    long done = second.prepare();
+    assertTrue(done > 0 && done < LENGTH);
+    assertTrue(second.download());
+    assertArrayEquals(content, Files.readAllBytes(output.toPath()));
+    assertTrue(journal.isCommitted());
+    assertEquals(LENGTH - done, server.getBodyBytes());
+  }
+
+  /**
+   * Tests, if the Download reports a Server, that ignores Ranges, so it can be done in a single
+   * Stream instead.
+
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  @Test
+  public void testReportsRejectedRanges() throws Exception {
+    server.setRangesSupported(false);
+    File output = folder.newFile("(tmp).jar");
+    SegmentedDownloader downloader = new SegmentedDownloader(server.url(StubServer.FILE), output,
+        newJournal(), LENGTH, 4, () -> false, bytes -> { });
+    downloader.prepare();
+    assertFalse(downloader.download());
+  }
+
+  /**
+   * Returns the File of the Journal.
+
+   * @return  The File, the Journal is stored in.
+   * @since 1.22
+   */
+  private File getJournalFile() {
+    return new File(folder.getRoot(), "download.journal");
+  }
+
+  /**
+   * Creates a new Journal for the served File.
+
+   * @return  The new Journal.
+   * @since 1.22
+   */
+  private DownloadJournal newJournal() {
+    return new DownloadJournal(getJournalFile(), server.url(StubServer.FILE), "1.0", "(tmp).jar");
+  }
+}
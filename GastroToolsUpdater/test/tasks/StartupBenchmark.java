@@ -0,0 +1,129 @@
+package tasks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Time until the first Decision of the Updater, once with the StartupCheck started
+ * before the FX-Toolkit, as the Updater does, and once started afterwards, as the Updater did
+ * before. The StartupCheck runs completely: it loads the Settings, reads the installed Version and
+ * requests the Manifest from a local Server, that answers after the given Latency, as GitHub does
+ * after DNS, TLS-Handshake and Round-Trip. The FX-Toolkit isn't available here, so its Start and
+ * the Construction of the Stage are replaced by a Pause of the given Length. This isn't run with
+ * the Tests, but started on its own: <br>
+ * {@code java tasks.StartupBenchmark [Latency in ms] [Rounds] [Toolkit-Start in ms ...]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class StartupBenchmark {
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The Latency of the Server, the amount of measured Rounds and the Durations of the
+   *     Toolkit-Start, all optional.
+   * @throws Exception  If the Check failed.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    long latency = args.length > 0 ? Long.parseLong(args[0]) : 150;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    long[] toolkits = args.length > 2 ? Arrays.stream(args, 2, args.length)
+        .mapToLong(Long::parseLong).toArray() : new long[] {0, 250, 500, 1000};
+    /*
+     * The Updater reads its Files from the Working Directory.
+     */
+    File dir = Files.createTempDirectory("startup").toFile();
+    System.setProperty("user.dir", dir.getPath());
+    File app = new File(dir, "app");
+    app.mkdirs();
+    Files.write(new File(app, "Version.txt").toPath(), "1.21".getBytes(StandardCharsets.UTF_8));
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(5,
+        new NamedThreadFactory("Updater"));
+    try (StubServer server = new StubServer()) {
+      server.handle("/manifest", exchange -> {
+        try {
+          Thread.sleep(latency);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        byte[] body = "current=1.22\nolder=1.21\n".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+          os.write(body);
+        }
+      });
+      File settings = new File(dir, "Settings");
+      settings.mkdirs();
+      Files.write(new File(settings, "UpdaterSettings.txt").toPath(), ("manifestUrl="
+          + server.url("/manifest") + "\n").getBytes(StandardCharsets.ISO_8859_1));
+      File launcher = new File(app, "Launcher.jar");
+      for (int i = 0; i < 3; i++) {
+        decide(launcher, scheduler, 0, true);
+      }
+      System.out.printf("Latency %d ms, %d Rounds, Java %s%n", latency, rounds,
+          System.getProperty("java.version"));
+      for (long toolkit : toolkits) {
+        long[] before = new long[rounds];
+        long[] after = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+          before[i] = decide(launcher, scheduler, toolkit, true);
+          after[i] = decide(launcher, scheduler, toolkit, false);
+        }
+        System.out.printf("Toolkit %4d ms: Check before Toolkit %6.1f ms, after Toolkit %6.1f ms"
+            + " (Median)%n", toolkit, median(before), median(after));
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs a StartupCheck together with the Stand-In for the Toolkit-Start and returns the Time
+   * until the Updater could decide about the Update.
+
+   * @param launcher  The installed Launcher.
+   * @param scheduler The Scheduler of the Updater.
+   * @param toolkit The Duration of the Toolkit-Start in ms.
+   * @param early Determines, if the Check is started before the Toolkit.
+   * @return  The Time until the first Decision in ns.
+   * @throws Exception  If the Check failed.
+   * @since 1.22
+   */
+  private static long decide(File launcher, ScheduledThreadPoolExecutor scheduler, long toolkit,
+      boolean early) throws Exception {
+    CheckerTask.getManifestCacheFile().delete();
+    long begin = System.nanoTime();
+    StartupCheck check = early ? new StartupCheck(launcher, scheduler).start() : null;
+    TimeUnit.MILLISECONDS.sleep(toolkit);
+    if (check == null) {
+      check = new StartupCheck(launcher, scheduler).start();
+    }
+    check.getInstalledVersion();
+    VersionManifest manifest = check.takeManifest().get();
+    long elapsed = System.nanoTime() - begin;
+    if (!manifest.getCurrentVersion().equals("1.22")) {
+      throw new IllegalStateException("Wrong Manifest " + manifest.getCurrentVersion());
+    }
+    return elapsed;
+  }
+
+  /**
+   * Returns the Median of the given Durations in ms.
+
+   * @param durations The Durations in ns.
+   * @return  The Median in ms.
+   * @since 1.22
+   */
+  private static double median(long[] durations) {
+    long[] sorted = durations.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  }
+}
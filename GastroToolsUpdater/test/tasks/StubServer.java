@@ -0,0 +1,223 @@
+package tasks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local HTTP-Server, that stands in for the Download-Server in Tests. It serves a single File
+ * and answers Range-Requests like GitHub does, unless Ranges are disabled. Every Request and
+ * every announced Body is counted, so Tests can check, what was downloaded.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+class StubServer implements AutoCloseable {
+
+  /**
+   * The Path of the served File.
+   */
+  static final String FILE = "/Launcher.jar";
+
+  /**
+   * The Server, that answers all Requests.
+   */
+  private final HttpServer server;
+
+  /**
+   * The amount of GET-Requests, that were answered with a Body.
+   */
+  private final AtomicInteger bodies;
+
+  /**
+   * The amount of Bytes, that were announced in all Bodies.
+   */
+  private final AtomicLong bodyBytes;
+
+  /**
+   * The Content of the served File.
+   */
+  private volatile byte[] content;
+
+  /**
+   * Determines, if Range-Requests are answered with partial Content.
+   */
+  private volatile boolean rangesSupported;
+
+  /**
+   * The Constructor for this Server. Starts it on a free Port of the Loopback-Address.
+
+   * @throws IOException  If the Server couldn't be started.
+   * @since 1.22
+   */
+  StubServer() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.bodies = new AtomicInteger();
+    this.bodyBytes = new AtomicLong();
+    this.content = new byte[0];
+    this.rangesSupported = true;
+    server.setExecutor(Executors.newCachedThreadPool(new NamedThreadFactory("Stub")));
+    server.createContext(FILE, this::serveFile);
+    server.start();
+  }
+
+  /**
+   * Sets the Content of the served File.
+
+   * @param content The Content of the File.
+   * @since 1.22
+   */
+  void setContent(byte[] content) {
+    this.content = content;
+  }
+
+  /**
+   * Sets, if Range-Requests are answered with partial Content or with the whole File.
+
+   * @param rangesSupported {@code true}, if Ranges are supported, {@code false} if not.
+   * @since 1.22
+   */
+  void setRangesSupported(boolean rangesSupported) {
+    this.rangesSupported = rangesSupported;
+  }
+
+  /**
+   * Answers all Requests of the given Path with the given Handler.
+
+   * @param path  The Path to be answered.
+   * @param handler The Handler, that answers the Requests.
+   * @since 1.22
+   */
+  void handle(String path, HttpHandler handler) {
+    server.createContext(path, handler);
+  }
+
+  /**
+   * Returns the URL of the given Path on this Server.
+
+   * @param path  The Path, starting with a Slash.
+   * @return  The URL of the Path.
+   * @since 1.22
+   */
+  String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  /**
+   * Returns the amount of GET-Requests, that were answered with a Body.
+
+   * @return  The amount of Bodies.
+   * @since 1.22
+   */
+  int getBodies() {
+    return bodies.get();
+  }
+
+  /**
+   * Returns the amount of Bytes, that were announced in all Bodies. A Client, that stops reading,
+   * still counts the whole Body.
+
+   * @return  The amount of Bytes.
+   * @since 1.22
+   */
+  long getBodyBytes() {
+    return bodyBytes.get();
+  }
+
+  /**
+   * Resets the Counters of this Server.
+
+   * @since 1.22
+   */
+  void resetCounters() {
+    bodies.set(0);
+    bodyBytes.set(0);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * Answers a Request of the served File. HEAD-Requests get the Size of the File, Range-Requests
+   * the requested Bytes, if Ranges are supported, and all other Requests the whole File.
+
+   * @param exchange  The Request to be answered.
+   * @throws IOException  If the Answer couldn't be sent.
+   * @since 1.22
+   */
+  private void serveFile(HttpExchange exchange) throws IOException {
+    byte[] file = content;
+    exchange.getResponseHeaders().set("ETag", "\"" + file.length + "\"");
+    if (rangesSupported) {
+      exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+    }
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().set("Content-Length", String.valueOf(file.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    if (range == null || !rangesSupported) {
+      send(exchange, 200, file, 0, file.length);
+      return;
+    }
+    String[] bounds = range.substring("bytes=".length()).split("-", -1);
+    long from;
+    long to;
+    if (bounds[0].isEmpty()) {
+      from = Math.max(0, file.length - Long.parseLong(bounds[1]));
+      to = file.length - 1;
+    } else {
+      from = Long.parseLong(bounds[0]);
+      to = bounds[1].isEmpty() ? file.length - 1 : Math.min(file.length - 1,
+          Long.parseLong(bounds[1]));
+    }
+    if (from >= file.length) {
+      exchange.getResponseHeaders().set("Content-Range", "bytes */" + file.length);
+      exchange.sendResponseHeaders(416, -1);
+      exchange.close();
+      return;
+    }
+    exchange.getResponseHeaders().set("Content-Range",
+        "bytes " + from + "-" + to + "/" + file.length);
+    send(exchange, 206, file, (int) from, (int) (to - from + 1));
+  }
+
+  /**
+   * Sends the given Part of the File as the Body of the Answer. A Client, that closes the
+   * Connection early, is ignored.
+
+   * @param exchange  The Request to be answered.
+   * @param code  The Status-Code of the Answer.
+   * @param file  The Content of the File.
+   * @param offset  The first Byte of the Body.
+   * @param length  The Length of the Body.
+   * @throws IOException  If the Headers couldn't be sent.
+   * @since 1.22
+   */
+  private void send(HttpExchange exchange, int code, byte[] file, int offset, int length)
+      throws IOException {
+    bodies.incrementAndGet();
+    bodyBytes.addAndGet(length);
+    exchange.sendResponseHeaders(code, length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(file, offset, length);
+    } catch (IOException e) {
+      /*
+       * The Client stopped reading, e.g. because the Download was cancelled.
+       */
+    } finally {
+      exchange.close();
+    }
+  }
+}
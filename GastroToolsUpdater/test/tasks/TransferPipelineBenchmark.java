@@ -0,0 +1,165 @@
+package tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Compares the Throughput and the Allocations of the old Copy-Loop, that copied 1 KB at once
+ * into an unbuffered FileOutputStream, with the TransferPipeline. Both download the same File
+ * from a local Server. This isn't run with the Tests, but started on its own: <br>
+ * {@code java tasks.TransferPipelineBenchmark [MB] [Rounds]}
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class TransferPipelineBenchmark {
+
+  /**
+   * Runs the Benchmark.
+
+   * @param args  The Size of the File in MB and the amount of measured Rounds, both optional.
+   * @throws Exception  If a Download failed.
+   * @since 1.22
+   */
+  public static void main(String[] args) throws Exception {
+    int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    byte[] content = new byte[megabytes * 1024 * 1024];
+    new Random(42).nextBytes(content);
+    File output = File.createTempFile("benchmark", ".jar");
+    output.deleteOnExit();
+    try (StubServer server = new StubServer()) {
+      server.setContent(content);
+      URL url = new URL(server.url(StubServer.FILE));
+      /*
+       * The first Rounds only warm up the JIT and aren't measured.
+       */
+      for (int i = 0; i < 3; i++) {
+        copyLoop(url, output);
+        pipeline(url, output, content.length);
+      }
+      long[] loop = new long[2];
+      long[] nio = new long[2];
+      for (int i = 0; i < rounds; i++) {
+        add(loop, measure(() -> copyLoop(url, output)));
+        add(nio, measure(() -> pipeline(url, output, content.length)));
+      }
+      System.out.println("File: " + megabytes + " MB, " + rounds + " Rounds, Java "
+          + System.getProperty("java.version"));
+      print("1 KB Copy-Loop", loop, rounds, content.length);
+      print("TransferPipeline", nio, rounds, content.length);
+    }
+  }
+
+  /**
+   * Downloads the File with the old Copy-Loop.
+
+   * @param url The URL of the File.
+   * @param output  The File, the Download is written to.
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  private static void copyLoop(URL url, File output) throws Exception {
+    Files.write(output.toPath(), new byte[0]);
+    HttpURLConnection con = (HttpURLConnection) url.openConnection();
+    try (InputStream is = con.getInputStream();
+        FileOutputStream fos = new FileOutputStream(output, true)) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        fos.write(buffer, 0, read);
+      }
+    }
+  }
+
+  /**
+   * Downloads the File with the TransferPipeline, as the DownloadTask does.
+
+   * @param url The URL of the File.
+   * @param output  The File, the Download is written to.
+   * @param length  The Length of the File.
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  private static void pipeline(URL url, File output, long length) throws Exception {
+    Files.write(output.toPath(), new byte[0]);
+    HttpURLConnection con = (HttpURLConnection) url.openConnection();
+    try (ReadableByteChannel source = Channels.newChannel(con.getInputStream());
+        FileChannel target = FileChannel.open(output.toPath(), StandardOpenOption.WRITE)) {
+      new TransferPipeline(source, target, length).transfer(0, Long.MAX_VALUE, () -> false,
+          bytes -> { });
+    }
+  }
+
+  /**
+   * Measures a single Download.
+
+   * @param download  The Download to be measured.
+   * @return  The Duration in ns and the Bytes allocated by this Thread.
+   * @throws Exception  If the Download failed.
+   * @since 1.22
+   */
+  static long[] measure(Download download) throws Exception {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+    long allocated = threads.getThreadAllocatedBytes(id);
+    long begin = System.nanoTime();
+    download.run();
+    return new long[] {System.nanoTime() - begin, threads.getThreadAllocatedBytes(id) - allocated};
+  }
+
+  /**
+   * Adds a Measurement to the given Sums.
+
+   * @param sums  The Sums of the Durations and Allocations.
+   * @param measurement The Measurement to be added.
+   * @since 1.22
+   */
+  private static void add(long[] sums, long[] measurement) {
+    sums[0] += measurement[0];
+    sums[1] += measurement[1];
+  }
+
+  /**
+   * Prints the Averages of the given Sums.
+
+   * @param name  The Name of the measured Path.
+   * @param sums  The Sums of the Durations and Allocations.
+   * @param rounds  The amount of measured Rounds.
+   * @param length  The Length of the File.
+   * @since 1.22
+   */
+  private static void print(String name, long[] sums, int rounds, long length) {
+    double seconds = sums[0] / 1e9 / rounds;
+    System.out.printf("%-18s %8.1f MB/s %10.1f ms %10.1f KB allocated%n", name,
+        length / seconds / 1024 / 1024, seconds * 1000, sums[1] / 1024.0 / rounds);
+  }
+
+  /**
+   * A single Download, that is measured.
+
+   * @author Haeldeus
+   * @version {@value updater.Updater#version}
+   */
+  interface Download {
+
+    /**
+     * Runs the Download.
+
+     * @throws Exception  If the Download failed.
+     * @since 1.22
+     */
+    void run() throws Exception;
+  }
+}
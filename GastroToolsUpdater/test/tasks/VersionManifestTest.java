@@ -0,0 +1,88 @@
+package tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Tests the Parsing of the Version-Manifest with the Fixtures next to this Test.
+
+ * @author Haeldeus
+ * @version {@value updater.Updater#version}
+ */
+public class VersionManifestTest {
+
+  /**
+   * Tests, if a well-formed Manifest is parsed completely and unknown Keys and Lines are ignored.
+
+   * @throws Exception  If the Manifest couldn't be parsed.
+   * @since 1.22
+   */
+  @Test
+  public void testWellFormed() throws Exception {
+    VersionManifest manifest = parse("manifest.txt");
+    assertEquals("1.22", manifest.getCurrentVersion());
+    assertEquals(Arrays.asList("1.21", "1.20", "1.19"), manifest.getOlderVersions());
+    VersionManifest.Artifact launcher = manifest.getArtifact("Launcher.jar");
+    assertEquals(104630, launcher.getSize());
+    assertEquals("3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b",
+        launcher.getSha256());
+    assertEquals("https://example.org/releases/1.22/Launcher.jar", launcher.getUrl());
+    assertNull(manifest.getArtifact("Updater.jar"));
+  }
+
+  /**
+   * Tests, if a Manifest without the latest Version is rejected.
+
+   * @throws Exception  If the Fixture couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testMissingCurrent() throws Exception {
+    try {
+      parse("manifest-no-current.txt");
+      fail("Manifest without current Version was accepted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("current Version"));
+    }
+  }
+
+  /**
+   * Tests, if a Manifest with a Size, that is no Number, is rejected.
+
+   * @throws Exception  If the Fixture couldn't be read.
+   * @since 1.22
+   */
+  @Test
+  public void testBadSize() throws Exception {
+    try {
+      parse("manifest-bad-size.txt");
+      fail("Manifest with invalid Size was accepted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("100 KB"));
+    }
+  }
+
+  /**
+   * Parses the Manifest of the given Fixture.
+
+   * @param fixture The Name of the Fixture.
+   * @return  The parsed Manifest.
+   * @throws IOException  If the Fixture couldn't be read or parsed.
+   * @since 1.22
+   */
+  private VersionManifest parse(String fixture) throws IOException {
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(
+        getClass().getResourceAsStream(fixture), StandardCharsets.UTF_8))) {
+      return VersionManifest.parse(br);
+    }
+  }
+}